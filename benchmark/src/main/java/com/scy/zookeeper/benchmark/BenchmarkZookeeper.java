@@ -0,0 +1,60 @@
+package com.scy.zookeeper.benchmark;
+
+import com.scy.zookeeper.ZkClient;
+import org.apache.curator.test.TestingServer;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+/**
+ * BenchmarkZookeeper
+ * 进程内zookeeper(TestingServer), 基准测试共用; 本地快照写入临时目录, 不污染用户目录
+ *
+ * @author shichunyang
+ * Created by shichunyang on 2026/10/17.
+ */
+public final class BenchmarkZookeeper implements AutoCloseable {
+
+    public static final String NAMESPACE = "benchmark";
+
+    private final TestingServer testingServer;
+
+    private final Path snapshotDir;
+
+    private BenchmarkZookeeper(TestingServer testingServer, Path snapshotDir) {
+        this.testingServer = testingServer;
+        this.snapshotDir = snapshotDir;
+    }
+
+    public static BenchmarkZookeeper start() throws Exception {
+        Path snapshotDir = Files.createTempDirectory("scy-zookeeper-benchmark");
+        System.setProperty("scy.zookeeper.snapshot.dir", snapshotDir.toString());
+        return new BenchmarkZookeeper(new TestingServer(Boolean.TRUE), snapshotDir);
+    }
+
+    /**
+     * 新建客户端(独立会话, 同一namespace)
+     */
+    public ZkClient newClient() {
+        return ZkClient.builder()
+                .connectString(testingServer.getConnectString())
+                .namespace(NAMESPACE)
+                .build();
+    }
+
+    @Override
+    public void close() throws IOException {
+        testingServer.close();
+        deleteQuietly(snapshotDir);
+    }
+
+    private static void deleteQuietly(Path dir) {
+        try (Stream<Path> paths = Files.walk(dir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        } catch (IOException ignored) {
+        }
+    }
+}
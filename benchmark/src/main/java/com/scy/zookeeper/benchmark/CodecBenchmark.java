@@ -0,0 +1,91 @@
+package com.scy.zookeeper.benchmark;
+
+import com.scy.zookeeper.codec.ZkCodec;
+import com.scy.zookeeper.codec.ZkCodecs;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CodecBenchmark
+ * 写入编码/读取解码耗时, 以及每次变更推送给每个订阅者的字节数(fanOutBytes = 编码后大小)
+ * 数据为注册/配置场景常见的json文本
+ *
+ * @author shichunyang
+ * Created by shichunyang on 2026/10/17.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CodecBenchmark {
+
+    @Param({"plain", "deflate"})
+    public String codec;
+
+    @Param({"512", "8192", "131072"})
+    public int payloadBytes;
+
+    private ZkCodec zkCodec;
+
+    private byte[] payload;
+
+    private byte[] encoded;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        zkCodec = "deflate".equals(codec) ? ZkCodecs.DEFLATE : ZkCodecs.PLAIN;
+
+        Random random = new Random(payloadBytes);
+        StringBuilder json = new StringBuilder(payloadBytes + 128).append('[');
+        while (json.length() < payloadBytes) {
+            json.append("{\"address\":\"10.").append(random.nextInt(256)).append('.').append(random.nextInt(256)).append('.').append(random.nextInt(256))
+                    .append(":8080\",\"enable\":true,\"weight\":").append(50 + random.nextInt(4) * 50)
+                    .append(",\"zone\":\"zone-").append((char) ('a' + random.nextInt(3))).append("\",\"version\":\"1.0.").append(random.nextInt(20)).append("\"},");
+        }
+        json.setLength(payloadBytes - 1);
+        payload = json.append(']').toString().getBytes(StandardCharsets.UTF_8);
+        encoded = ZkCodecs.encode(zkCodec, payload);
+    }
+
+    /**
+     * 每次操作推送给单个订阅者的字节数
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class FanOut {
+
+        public long fanOutBytes;
+
+        public long rawBytes;
+    }
+
+    @Benchmark
+    public byte[] encode(FanOut fanOut) {
+        byte[] data = ZkCodecs.encode(zkCodec, payload);
+        fanOut.fanOutBytes += data.length;
+        fanOut.rawBytes += payload.length;
+        return data;
+    }
+
+    @Benchmark
+    public byte[] decode() {
+        return ZkCodecs.decode(encoded);
+    }
+}
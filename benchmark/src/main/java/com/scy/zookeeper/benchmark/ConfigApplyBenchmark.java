@@ -0,0 +1,121 @@
+package com.scy.zookeeper.benchmark;
+
+import com.scy.zookeeper.config.ConfigBinding;
+import com.scy.zookeeper.config.ConfigSnapshot;
+import com.scy.zookeeper.config.DynamicConfiguration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ConfigApplyBenchmark
+ * 配置推送应用耗时与绑定field数量的关系: 一次推送包含changedKeys个key, 共绑定boundFields个field
+ * 只测量推送到达后的应用过程(快照发布 + field更新), zookeeper传输延迟见RegistryLatencyBenchmark
+ *
+ * @author shichunyang
+ * Created by shichunyang on 2026/10/17.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConfigApplyBenchmark {
+
+    private static final String[] FIELD_NAMES = {"name", "timeout", "limit", "enabled"};
+
+    @Param({"16", "256", "4096"})
+    public int boundFields;
+
+    @Param({"1", "16"})
+    public int changedKeys;
+
+    private final List<Map<String, Object>> pushes = new ArrayList<>(2);
+
+    private int pushIndex;
+
+    private ConfigSnapshot snapshot;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        DynamicConfiguration.BINDING_MAP.clear();
+
+        // 每个key绑定到4个不同类型的field上
+        int keyCount = Math.max(boundFields / FIELD_NAMES.length, 1);
+        for (int i = 0; i < keyCount; i++) {
+            String key = "benchmark.config.key" + i;
+            List<ConfigBinding> configBindings = new ArrayList<>(FIELD_NAMES.length);
+            ConfigHolder configHolder = new ConfigHolder();
+            for (String fieldName : FIELD_NAMES) {
+                Field field = ConfigHolder.class.getDeclaredField(fieldName);
+                configBindings.add(ConfigBinding.ofValue(key, field, configHolder));
+            }
+            DynamicConfiguration.BINDING_MAP.put(key, configBindings);
+        }
+
+        int pushKeyCount = Math.min(changedKeys, keyCount);
+        for (int round = 0; round < 2; round++) {
+            Map<String, Object> push = new HashMap<>(pushKeyCount * 2);
+            for (int i = 0; i < pushKeyCount; i++) {
+                // "1"/"0" 四种类型都能转换, 两次推送交替, 保证每次都是真实变更
+                push.put("benchmark.config.key" + (i * keyCount / pushKeyCount), round == 0 ? "1" : "0");
+            }
+            pushes.add(push);
+        }
+        Map<String, Object> initData = new HashMap<>(keyCount * 2);
+        for (int i = 0; i < keyCount; i++) {
+            initData.put("benchmark.config.key" + i, "0");
+        }
+        snapshot = ConfigSnapshot.EMPTY.with(initData);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        DynamicConfiguration.BINDING_MAP.clear();
+    }
+
+    @Benchmark
+    public ConfigSnapshot applyPush() {
+        Map<String, Object> push = pushes.get(pushIndex++ & 1);
+        snapshot = snapshot.with(push);
+        DynamicConfiguration.updateData(push);
+        return snapshot;
+    }
+
+    /**
+     * 只更新绑定的field, 不发布快照
+     */
+    @Benchmark
+    public void updateBindings() {
+        DynamicConfiguration.updateData(pushes.get(pushIndex++ & 1));
+    }
+
+    public static class ConfigHolder {
+
+        private String name;
+
+        private int timeout;
+
+        private Long limit;
+
+        private boolean enabled;
+    }
+}
@@ -0,0 +1,152 @@
+package com.scy.zookeeper.benchmark;
+
+import com.scy.zookeeper.ZkClient;
+import com.scy.zookeeper.config.RegisterCenter;
+import com.scy.zookeeper.loadbalance.KetamaRing;
+import com.scy.zookeeper.loadbalance.LoadBalanceEnum;
+import com.scy.zookeeper.model.AddressDataBO;
+import com.scy.zookeeper.model.AddressSnapshot;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * DiscoveryBenchmark
+ * 服务发现吞吐: 地址快照读取, 各负载均衡算法选址, ketama环构建; providers为单个服务的地址数
+ *
+ * @author shichunyang
+ * Created by shichunyang on 2026/10/17.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class DiscoveryBenchmark {
+
+    private static final String SERVICE_KEY = "com.scy.benchmark.DiscoveryService";
+
+    private static final int ROUTE_KEY_COUNT = 1024;
+
+    @Param({"10", "100", "1000"})
+    public int providers;
+
+    private BenchmarkZookeeper zookeeper;
+
+    private ZkClient providerClient;
+
+    private ZkClient consumerClient;
+
+    private RegisterCenter consumer;
+
+    private AddressSnapshot snapshot;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        zookeeper = BenchmarkZookeeper.start();
+        providerClient = zookeeper.newClient();
+        consumerClient = zookeeper.newClient();
+
+        RegisterCenter provider = new RegisterCenter(providerClient, "benchmark");
+        for (int i = 0; i < providers; i++) {
+            AddressDataBO addressDataBO = new AddressDataBO();
+            addressDataBO.setEnable(Boolean.TRUE);
+            addressDataBO.setWeight(50 + (i % 4) * 50);
+            addressDataBO.setZone(i % 2 == 0 ? "zone-a" : "zone-b");
+            provider.registry(Collections.singleton(SERVICE_KEY), "10.0." + (i / 256) + "." + (i % 256) + ":8080", addressDataBO);
+        }
+
+        consumer = new RegisterCenter(consumerClient, "benchmark", "zone-a");
+        consumer.init();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (consumer.discoverySnapshot(SERVICE_KEY).size() < providers) {
+            if (System.nanoTime() > deadline) {
+                throw new IllegalStateException("discovery not ready, size " + consumer.discoverySnapshot(SERVICE_KEY).size());
+            }
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+        snapshot = consumer.discoverySnapshot(SERVICE_KEY);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        consumerClient.close();
+        providerClient.close();
+        zookeeper.close();
+    }
+
+    @State(Scope.Thread)
+    public static class RouteKeys {
+
+        private final String[] routeKeys = new String[ROUTE_KEY_COUNT];
+
+        private int index;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            for (int i = 0; i < ROUTE_KEY_COUNT; i++) {
+                routeKeys[i] = "user-" + (i * 7919);
+            }
+        }
+
+        String next() {
+            return routeKeys[index++ & (ROUTE_KEY_COUNT - 1)];
+        }
+    }
+
+    @Benchmark
+    public AddressSnapshot discovery() {
+        return consumer.discoverySnapshot(SERVICE_KEY);
+    }
+
+    @Benchmark
+    public String selectWeightedRandom() {
+        return consumer.select(SERVICE_KEY, LoadBalanceEnum.WEIGHTED_RANDOM, null);
+    }
+
+    @Benchmark
+    public String selectSmoothWeightedRoundRobin() {
+        return consumer.select(SERVICE_KEY, LoadBalanceEnum.SMOOTH_WEIGHTED_ROUND_ROBIN, null);
+    }
+
+    @Benchmark
+    public String selectSameZoneFirst() {
+        return consumer.select(SERVICE_KEY, LoadBalanceEnum.SAME_ZONE_FIRST, null);
+    }
+
+    @Benchmark
+    public String selectConsistentHash(RouteKeys routeKeys) {
+        return consumer.select(SERVICE_KEY, LoadBalanceEnum.CONSISTENT_HASH, routeKeys.next());
+    }
+
+    @Benchmark
+    public String selectKetamaHash(RouteKeys routeKeys) {
+        return consumer.select(SERVICE_KEY, LoadBalanceEnum.KETAMA_HASH, routeKeys.next());
+    }
+
+    /**
+     * 地址变化后重建ketama环的开销
+     */
+    @Benchmark
+    @Threads(1)
+    @BenchmarkMode(Mode.AverageTime)
+    public KetamaRing buildKetamaRing() {
+        return KetamaRing.build(snapshot);
+    }
+}
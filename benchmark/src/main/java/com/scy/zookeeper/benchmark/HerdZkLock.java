@@ -0,0 +1,84 @@
+package com.scy.zookeeper.benchmark;
+
+import com.scy.core.ObjectUtil;
+import com.scy.core.StringUtil;
+import com.scy.core.format.DateUtil;
+import com.scy.zookeeper.ZkClient;
+import com.scy.zookeeper.ZkLock;
+import com.scy.zookeeper.listener.CuratorListener;
+import com.scy.zookeeper.listener.DataListener;
+import org.apache.zookeeper.CreateMode;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * HerdZkLock
+ * 改造前的ZkLock实现(仅用于基准对比): 所有等待者竞争同一个临时节点, 节点删除时通过缓存监听唤醒全部等待者(惊群)
+ * 每个实例同一时间只能被一个线程使用
+ *
+ * @author shichunyang
+ * Created by shichunyang on 2026/10/17.
+ */
+public class HerdZkLock {
+
+    private final ZkClient zkClient;
+
+    private final Executor executor;
+
+    private CuratorListener curatorListener;
+
+    private String lockPath;
+
+    private volatile CountDownLatch countDownLatch;
+
+    public HerdZkLock(ZkClient zkClient, Executor executor) {
+        this.zkClient = zkClient;
+        this.executor = executor;
+    }
+
+    public void lock(String key) {
+        String path = ZkLock.LOCK_BASE_PATH + key;
+        this.lockPath = path;
+
+        this.countDownLatch = new CountDownLatch(1);
+        this.curatorListener = new CuratorListener(zkClient, new DataListener() {
+
+            @Override
+            public void delete(String deletePath, String data) {
+                if (!ObjectUtil.equals(path, deletePath)) {
+                    return;
+                }
+                CountDownLatch latch = countDownLatch;
+                if (latch != null) {
+                    latch.countDown();
+                }
+            }
+        });
+        zkClient.addListener(path, curatorListener, executor);
+
+        while (true) {
+            try {
+                String lockNode = zkClient.createNode(path, DateUtil.getCurrentDateStr(), CreateMode.EPHEMERAL);
+                if (!StringUtil.isEmpty(lockNode)) {
+                    return;
+                }
+                this.countDownLatch.await(30_000, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                this.countDownLatch = new CountDownLatch(1);
+            }
+        }
+    }
+
+    public void unlock() {
+        this.countDownLatch = null;
+        zkClient.delete(lockPath);
+        if (!ObjectUtil.isNull(this.curatorListener)) {
+            zkClient.removeListener(this.curatorListener);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.scy.zookeeper.benchmark;
+
+import com.scy.zookeeper.ZkClient;
+import com.scy.zookeeper.ZkLockManager;
+import com.scy.zookeeper.ZkReentrantLock;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * LockBenchmark
+ * 同一key的加锁/解锁吞吐(次/秒)
+ * distributed: 每个竞争者使用独立的ZkLockManager, 相当于不同JVM之间通过zookeeper竞争
+ * local: 竞争者共用ZkLockManager, 同一JVM内本地排队移交
+ * 竞争者数量为线程数, 运行main按 1/4/16/64 依次执行, 也可使用 -t 指定
+ *
+ * @author shichunyang
+ * Created by shichunyang on 2026/10/17.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class LockBenchmark {
+
+    private static final String LOCK_KEY = "benchmark_lock";
+
+    private static final int[] CONTENDERS = {1, 4, 16, 64};
+
+    @Param({"distributed", "local"})
+    public String mode;
+
+    @Param({"false", "true"})
+    public boolean fair;
+
+    private BenchmarkZookeeper zookeeper;
+
+    private ZkClient zkClient;
+
+    private ZkLockManager sharedLockManager;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        zookeeper = BenchmarkZookeeper.start();
+        zkClient = zookeeper.newClient();
+        sharedLockManager = new ZkLockManager(zkClient, fair);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        zkClient.close();
+        zookeeper.close();
+    }
+
+    @State(Scope.Thread)
+    public static class Contender {
+
+        private ZkReentrantLock lock;
+
+        @Setup(Level.Trial)
+        public void setup(LockBenchmark benchmark) {
+            ZkLockManager lockManager = "local".equals(benchmark.mode) ? benchmark.sharedLockManager : new ZkLockManager(benchmark.zkClient, benchmark.fair);
+            lock = lockManager.getLock(LOCK_KEY);
+        }
+    }
+
+    @Benchmark
+    public void lockAndUnlock(Contender contender) {
+        contender.lock.lock();
+        contender.lock.unlock();
+    }
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions commandLineOptions = new CommandLineOptions(args);
+        for (int contenders : CONTENDERS) {
+            ChainedOptionsBuilder builder = new OptionsBuilder()
+                    .parent(commandLineOptions)
+                    .include(LockBenchmark.class.getSimpleName())
+                    .threads(contenders);
+            new Runner(builder.build()).run();
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.scy.zookeeper.benchmark;
+
+import com.scy.zookeeper.ZkClient;
+import com.scy.zookeeper.ZkLockManager;
+import com.scy.zookeeper.ZkReentrantLock;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * LockWaitBenchmark
+ * 同一key竞争时单次加锁(含等待)+解锁耗时的分布(p50/p99/p999)
+ * herd: 改造前的实现(HerdZkLock), 节点删除时唤醒全部等待者
+ * nonfair/fair: ZkReentrantLock, 每个竞争者独立的ZkLockManager(相当于不同JVM), 不经过本地移交
+ * 竞争者数量为线程数, 运行main按 4/16/64 依次执行, 也可使用 -t 指定
+ *
+ * @author shichunyang
+ * Created by shichunyang on 2026/10/17.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class LockWaitBenchmark {
+
+    private static final String LOCK_KEY = "benchmark_wait_lock";
+
+    private static final int[] CONTENDERS = {4, 16, 64};
+
+    @Param({"herd", "nonfair", "fair"})
+    public String impl;
+
+    private BenchmarkZookeeper zookeeper;
+
+    private ZkClient zkClient;
+
+    private ExecutorService listenerExecutor;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        zookeeper = BenchmarkZookeeper.start();
+        zkClient = zookeeper.newClient();
+        listenerExecutor = Executors.newSingleThreadExecutor();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        listenerExecutor.shutdownNow();
+        zkClient.close();
+        zookeeper.close();
+    }
+
+    @State(Scope.Thread)
+    public static class Contender {
+
+        private HerdZkLock herdLock;
+
+        private ZkReentrantLock lock;
+
+        @Setup(Level.Trial)
+        public void setup(LockWaitBenchmark benchmark) {
+            if ("herd".equals(benchmark.impl)) {
+                herdLock = new HerdZkLock(benchmark.zkClient, benchmark.listenerExecutor);
+                return;
+            }
+            lock = new ZkLockManager(benchmark.zkClient, "fair".equals(benchmark.impl)).getLock(LOCK_KEY);
+        }
+    }
+
+    @Benchmark
+    public void lockAndUnlock(Contender contender) {
+        if (contender.herdLock != null) {
+            contender.herdLock.lock(LOCK_KEY);
+            contender.herdLock.unlock();
+            return;
+        }
+        contender.lock.lock();
+        contender.lock.unlock();
+    }
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions commandLineOptions = new CommandLineOptions(args);
+        for (int contenders : CONTENDERS) {
+            ChainedOptionsBuilder builder = new OptionsBuilder()
+                    .parent(commandLineOptions)
+                    .include(LockWaitBenchmark.class.getSimpleName())
+                    .threads(contenders);
+            new Runner(builder.build()).run();
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.scy.zookeeper.benchmark;
+
+import com.scy.zookeeper.ZkClient;
+import com.scy.zookeeper.config.RegisterCenter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * RegistryLatencyBenchmark
+ * 注册变更可见延迟: 提供方(独立会话)注册/摘除地址, 到消费方discovery可见为止的时间
+ * 每次调用包含一次上线与一次下线, 结果为单次变更的平均值; existing为服务已有的地址数
+ *
+ * @author shichunyang
+ * Created by shichunyang on 2026/10/17.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RegistryLatencyBenchmark {
+
+    private static final String SERVICE_KEY = "com.scy.benchmark.RegistryService";
+
+    private static final Set<String> SERVICE_KEYS = Collections.singleton(SERVICE_KEY);
+
+    private static final String ADDRESS = "10.1.0.1:8080";
+
+    private static final long VISIBLE_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    @Param({"1", "100"})
+    public int existing;
+
+    private BenchmarkZookeeper zookeeper;
+
+    private ZkClient providerClient;
+
+    private ZkClient consumerClient;
+
+    private RegisterCenter provider;
+
+    private RegisterCenter consumer;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        zookeeper = BenchmarkZookeeper.start();
+        providerClient = zookeeper.newClient();
+        consumerClient = zookeeper.newClient();
+
+        provider = new RegisterCenter(providerClient, "benchmark");
+        for (int i = 0; i < existing; i++) {
+            provider.registry(SERVICE_KEYS, "10.0." + (i / 256) + "." + (i % 256) + ":8080");
+        }
+
+        consumer = new RegisterCenter(consumerClient, "benchmark");
+        consumer.init();
+        awaitVisible(ADDRESS, Boolean.FALSE);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        consumerClient.close();
+        providerClient.close();
+        zookeeper.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(2)
+    public void registryAndRemove() {
+        provider.registry(SERVICE_KEYS, ADDRESS);
+        awaitVisible(ADDRESS, Boolean.TRUE);
+
+        provider.remove(SERVICE_KEYS, ADDRESS);
+        awaitVisible(ADDRESS, Boolean.FALSE);
+    }
+
+    private void awaitVisible(String address, boolean visible) {
+        long deadline = System.nanoTime() + VISIBLE_TIMEOUT_NANOS;
+        while (consumer.discoverySnapshot(SERVICE_KEY).contains(address) != visible) {
+            if (System.nanoTime() > deadline) {
+                throw new IllegalStateException("registry change not visible, address " + address + ", visible " + visible);
+            }
+            LockSupport.parkNanos(10_000L);
+        }
+    }
+}
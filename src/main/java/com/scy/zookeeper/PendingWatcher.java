@@ -0,0 +1,77 @@
+package com.scy.zookeeper;
+
+import org.apache.curator.framework.api.CuratorWatcher;
+import org.apache.zookeeper.WatchedEvent;
+import org.apache.zookeeper.Watcher;
+
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * PendingWatcher
+ * 包装watchIfExists/getChildrenAndAddListener注册的一次性watch, 注册时加入集合, 触发/会话过期/关闭时移出, 集合大小即未触发的watch数
+ * 按(类型, path, 原始watcher)判等, 与zookeeper对同一watcher的去重一致, 重复注册只计一次
+ *
+ * @author shichunyang
+ * Created by shichunyang on 2026/10/17.
+ */
+class PendingWatcher implements CuratorWatcher {
+
+    private final Set<PendingWatcher> pendingWatchers;
+
+    private final boolean children;
+
+    private final String path;
+
+    private final CuratorWatcher watcher;
+
+    PendingWatcher(Set<PendingWatcher> pendingWatchers, boolean children, String path, CuratorWatcher watcher) {
+        this.pendingWatchers = pendingWatchers;
+        this.children = children;
+        this.path = path;
+        this.watcher = watcher;
+        pendingWatchers.add(this);
+    }
+
+    @Override
+    public void process(WatchedEvent event) throws Exception {
+        if (isRemoved(event)) {
+            pendingWatchers.remove(this);
+        }
+        watcher.process(event);
+    }
+
+    /**
+     * 未注册成功(节点不存在或请求失败)时移出
+     */
+    void cancel() {
+        pendingWatchers.remove(this);
+    }
+
+    /**
+     * 节点事件触发后watch即失效; 断开连接的状态通知不影响watch, 会话过期/关闭时全部失效
+     */
+    private static boolean isRemoved(WatchedEvent event) {
+        if (event.getType() != Watcher.Event.EventType.None) {
+            return Boolean.TRUE;
+        }
+        return event.getState() == Watcher.Event.KeeperState.Expired || event.getState() == Watcher.Event.KeeperState.Closed;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return Boolean.TRUE;
+        }
+        if (!(o instanceof PendingWatcher)) {
+            return Boolean.FALSE;
+        }
+        PendingWatcher that = (PendingWatcher) o;
+        return children == that.children && path.equals(that.path) && watcher.equals(that.watcher);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(children, path, watcher);
+    }
+}
@@ -0,0 +1,338 @@
+package com.scy.zookeeper;
+
+import com.scy.core.format.MessageUtil;
+import com.scy.zookeeper.metrics.ZkMetrics;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.recipes.cache.ChildData;
+import org.apache.curator.framework.recipes.cache.CuratorCache;
+import org.apache.curator.framework.recipes.cache.CuratorCacheListener;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * SharedCuratorCache
+ * 同一子树共用一个CuratorCache, 事件按path分发给所有订阅者(订阅path可以是根节点的子孙节点)
+ * 祖先path晚于子孙path订阅时, 新缓存接管子孙缓存的订阅者: 新缓存首次加载完成前子孙缓存照常分发, 完成后按两者差异补发事件再关闭子孙缓存
+ * 持有缓存锁时事件只放入订阅者各自的队列(保证顺序), 释放锁后再提交到订阅者的executor, executor阻塞时不影响订阅/取消订阅及其他订阅者
+ *
+ * @author shichunyang
+ * Created by shichunyang on 2026/10/17.
+ */
+@Slf4j
+class SharedCuratorCache implements CuratorCacheListener {
+
+    @Getter
+    private final String path;
+
+    private final CuratorCache curatorCache;
+
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+
+    private final ZkMetrics metrics;
+
+    /**
+     * 订阅/取消订阅与事件入队互斥
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * 首次加载是否完成, 之后加入的订阅者需要回放已缓存的节点
+     */
+    private boolean initialized;
+
+    /**
+     * 等待接管的子孙缓存(首次加载完成时接管)
+     */
+    private final List<SharedCuratorCache> adoptedCaches = new ArrayList<>();
+
+    SharedCuratorCache(CuratorFramework curatorFramework, String path, ZkMetrics metrics) {
+        this.path = path;
+        this.metrics = metrics;
+        this.curatorCache = CuratorCache.build(curatorFramework, path);
+        this.curatorCache.listenable().addListener(this);
+    }
+
+    void start() {
+        curatorCache.start();
+    }
+
+    void close() {
+        List<SharedCuratorCache> pendingCaches;
+        lock.lock();
+        try {
+            pendingCaches = new ArrayList<>(adoptedCaches);
+            adoptedCaches.clear();
+        } finally {
+            lock.unlock();
+        }
+        pendingCaches.forEach(SharedCuratorCache::close);
+        curatorCache.close();
+    }
+
+    int getSubscriberCount() {
+        lock.lock();
+        try {
+            return subscribers.size() + adoptedCaches.stream().mapToInt(SharedCuratorCache::getSubscriberCount).sum();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 已缓存的节点数
+     */
+    long size() {
+        return curatorCache.size();
+    }
+
+    /**
+     * 是否覆盖指定path(path为根节点或其子孙节点)
+     */
+    boolean covers(String subscribePath) {
+        return covers(path, subscribePath);
+    }
+
+    void subscribe(String subscribePath, CuratorCacheListener listener, Executor executor) {
+        Subscriber subscriber = new Subscriber(subscribePath, listener, executor, metrics);
+        lock.lock();
+        try {
+            subscribers.add(subscriber);
+            if (!initialized) {
+                return;
+            }
+
+            curatorCache.stream().filter(childData -> covers(subscribePath, childData.getPath()))
+                    .forEach(childData -> subscriber.enqueue(() -> listener.event(Type.NODE_CREATED, null, childData)));
+            subscriber.enqueue(listener::initialized);
+        } finally {
+            lock.unlock();
+        }
+        subscriber.dispatch();
+    }
+
+    /**
+     * 接管子孙缓存的订阅者, 须在start之前调用
+     */
+    void adopt(SharedCuratorCache descendantCache) {
+        lock.lock();
+        try {
+            adoptedCaches.add(descendantCache);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 取消订阅(包括等待接管的子孙缓存中的订阅)
+     *
+     * @return true 已无订阅者
+     */
+    boolean unsubscribe(CuratorCacheListener listener) {
+        List<SharedCuratorCache> emptyCaches = new ArrayList<>();
+        boolean empty;
+        lock.lock();
+        try {
+            subscribers.removeIf(subscriber -> subscriber.getListener() == listener);
+            adoptedCaches.removeIf(adoptedCache -> {
+                if (adoptedCache.unsubscribe(listener)) {
+                    emptyCaches.add(adoptedCache);
+                    return Boolean.TRUE;
+                }
+                return Boolean.FALSE;
+            });
+            empty = subscribers.isEmpty() && adoptedCaches.isEmpty();
+        } finally {
+            lock.unlock();
+        }
+        emptyCaches.forEach(SharedCuratorCache::close);
+        return empty;
+    }
+
+    /**
+     * 停止分发并移出全部订阅者, 返回订阅者及当前缓存的节点
+     */
+    private Detached detach() {
+        lock.lock();
+        try {
+            List<SharedCuratorCache> pendingCaches = new ArrayList<>(adoptedCaches);
+            adoptedCaches.clear();
+            Map<String, ChildData> nodes = curatorCache.stream().collect(Collectors.toMap(ChildData::getPath, Function.identity()));
+            Detached detached = new Detached(new ArrayList<>(subscribers), nodes, initialized, pendingCaches);
+            subscribers.clear();
+            return detached;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void event(Type type, ChildData oldData, ChildData data) {
+        String eventPath = data != null ? data.getPath() : oldData.getPath();
+        List<Subscriber> matchedSubscribers = new ArrayList<>();
+        lock.lock();
+        try {
+            subscribers.forEach(subscriber -> {
+                if (covers(subscriber.getPath(), eventPath)) {
+                    subscriber.enqueue(() -> subscriber.getListener().event(type, oldData, data));
+                    matchedSubscribers.add(subscriber);
+                }
+            });
+        } finally {
+            lock.unlock();
+        }
+        matchedSubscribers.forEach(Subscriber::dispatch);
+    }
+
+    @Override
+    public void initialized() {
+        List<SharedCuratorCache> replacedCaches = new ArrayList<>();
+        List<Subscriber> currentSubscribers;
+        lock.lock();
+        try {
+            initialized = Boolean.TRUE;
+            subscribers.forEach(subscriber -> subscriber.enqueue(subscriber.getListener()::initialized));
+
+            Map<String, ChildData> nodes = curatorCache.stream().collect(Collectors.toMap(ChildData::getPath, Function.identity()));
+            List<SharedCuratorCache> pendingCaches = new ArrayList<>(adoptedCaches);
+            adoptedCaches.clear();
+            while (!pendingCaches.isEmpty()) {
+                SharedCuratorCache adoptedCache = pendingCaches.remove(pendingCaches.size() - 1);
+                Detached detached = adoptedCache.detach();
+                pendingCaches.addAll(detached.getAdoptedCaches());
+                detached.getSubscribers().forEach(subscriber -> {
+                    reconcile(subscriber, detached.getNodes(), nodes);
+                    if (!detached.isInitialized()) {
+                        subscriber.enqueue(subscriber.getListener()::initialized);
+                    }
+                    subscribers.add(subscriber);
+                });
+                replacedCaches.add(adoptedCache);
+            }
+            currentSubscribers = new ArrayList<>(subscribers);
+        } finally {
+            lock.unlock();
+        }
+        currentSubscribers.forEach(Subscriber::dispatch);
+        replacedCaches.forEach(replacedCache -> replacedCache.curatorCache.close());
+    }
+
+    /**
+     * 按子孙缓存已分发的节点与本缓存的节点差异补发事件
+     */
+    private static void reconcile(Subscriber subscriber, Map<String, ChildData> previousNodes, Map<String, ChildData> currentNodes) {
+        CuratorCacheListener listener = subscriber.getListener();
+        currentNodes.values().stream().filter(childData -> covers(subscriber.getPath(), childData.getPath())).forEach(childData -> {
+            ChildData previous = previousNodes.get(childData.getPath());
+            if (previous == null) {
+                subscriber.enqueue(() -> listener.event(Type.NODE_CREATED, null, childData));
+            } else if (previous.getStat().getMzxid() != childData.getStat().getMzxid()) {
+                subscriber.enqueue(() -> listener.event(Type.NODE_CHANGED, previous, childData));
+            }
+        });
+        previousNodes.values().stream().filter(childData -> covers(subscriber.getPath(), childData.getPath()) && !currentNodes.containsKey(childData.getPath()))
+                .forEach(childData -> subscriber.enqueue(() -> listener.event(Type.NODE_DELETED, childData, null)));
+    }
+
+    private static boolean covers(String rootPath, String childPath) {
+        if (childPath.equals(rootPath) || "/".equals(rootPath)) {
+            return Boolean.TRUE;
+        }
+        return childPath.startsWith(rootPath) && childPath.charAt(rootPath.length()) == '/';
+    }
+
+    @Getter
+    @AllArgsConstructor
+    private static class Detached {
+
+        private final List<Subscriber> subscribers;
+
+        private final Map<String, ChildData> nodes;
+
+        private final boolean initialized;
+
+        private final List<SharedCuratorCache> adoptedCaches;
+    }
+
+    private static class Subscriber {
+
+        @Getter
+        private final String path;
+
+        @Getter
+        private final CuratorCacheListener listener;
+
+        private final Executor executor;
+
+        private final ZkMetrics metrics;
+
+        /**
+         * 持有缓存锁时入队的待提交任务, 保持事件顺序
+         */
+        private final Queue<Runnable> pendingTasks = new ConcurrentLinkedQueue<>();
+
+        /**
+         * 串行提交待提交任务; executor阻塞时只阻塞本订阅者的提交
+         */
+        private final ReentrantLock dispatchLock = new ReentrantLock();
+
+        Subscriber(String path, CuratorCacheListener listener, Executor executor, ZkMetrics metrics) {
+            this.path = path;
+            this.listener = listener;
+            this.executor = executor;
+            this.metrics = metrics;
+        }
+
+        /**
+         * 持有缓存锁时调用, 不阻塞
+         */
+        void enqueue(Runnable runnable) {
+            if (!metrics.isEnabled()) {
+                pendingTasks.add(runnable);
+                return;
+            }
+
+            // 记录事件从产生到开始执行的等待时间及监听执行耗时
+            long dispatchNanos = System.nanoTime();
+            pendingTasks.add(() -> {
+                long startNanos = System.nanoTime();
+                metrics.recordDispatchLag(path, startNanos - dispatchNanos);
+                try {
+                    runnable.run();
+                } finally {
+                    metrics.recordLatency("listener", path, System.nanoTime() - startNanos);
+                }
+            });
+        }
+
+        /**
+         * 释放缓存锁后调用, 按入队顺序提交到executor
+         */
+        void dispatch() {
+            dispatchLock.lock();
+            try {
+                Runnable runnable;
+                while ((runnable = pendingTasks.poll()) != null) {
+                    try {
+                        executor.execute(runnable);
+                    } catch (Exception e) {
+                        log.error(MessageUtil.format("sharedCuratorCache dispatch error", e, "path", path));
+                    }
+                }
+            } finally {
+                dispatchLock.unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.scy.zookeeper;
+
+import com.scy.core.format.MessageUtil;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ZkAcquireContext
+ * 单次获取锁/许可的等待状态(截止时间与中断处理)
+ *
+ * @author shichunyang
+ * Created by shichunyang on 2026/10/17.
+ */
+@Slf4j
+class ZkAcquireContext {
+
+    /**
+     * 单次等待的最长时间, 超时后重新检查(防止丢失通知)
+     */
+    static final long MAX_WAIT_MS = 30_000L;
+
+    static final long RETRY_INTERVAL_MS = 1_000L;
+
+    private final String key;
+
+    private final long deadline;
+
+    private final boolean forever;
+
+    private final boolean interruptible;
+
+    /**
+     * 不响应中断时记录等待期间发生过中断, 获取结束后恢复中断标记
+     */
+    private boolean interrupted;
+
+    /**
+     * @param timeoutNanos  等待时间, 小于0表示一直等待
+     * @param interruptible true 响应中断
+     */
+    ZkAcquireContext(String key, long timeoutNanos, boolean interruptible) {
+        this.key = key;
+        this.forever = timeoutNanos < 0;
+        this.deadline = forever ? Long.MAX_VALUE : System.nanoTime() + timeoutNanos;
+        this.interruptible = interruptible;
+    }
+
+    long remainingNanos() {
+        return forever ? Long.MAX_VALUE : deadline - System.nanoTime();
+    }
+
+    boolean isTimeout() {
+        return !forever && deadline - System.nanoTime() <= 0;
+    }
+
+    /**
+     * 等待latch或等待时间结束; 不响应中断时中断后继续等待剩余时间(不提前返回重试), 只记录一次
+     */
+    void await(CountDownLatch latch, long maxWaitMs) throws InterruptedException {
+        long waitNanos = Math.min(TimeUnit.MILLISECONDS.toNanos(maxWaitMs), remainingNanos());
+        long waitDeadline = System.nanoTime() + waitNanos;
+        while (waitNanos > 0) {
+            try {
+                latch.await(waitNanos, TimeUnit.NANOSECONDS);
+                return;
+            } catch (InterruptedException e) {
+                if (interruptible) {
+                    throw e;
+                }
+                if (!interrupted) {
+                    log.warn(MessageUtil.format("zk acquire interrupted, continue waiting", "key", key));
+                    interrupted = Boolean.TRUE;
+                }
+            }
+            waitNanos = waitDeadline - System.nanoTime();
+        }
+    }
+
+    /**
+     * 恢复等待期间被忽略的中断标记
+     */
+    void restoreInterrupt() {
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
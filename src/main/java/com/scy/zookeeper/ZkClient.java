@@ -1,24 +1,60 @@
 package com.scy.zookeeper;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
 import com.scy.core.CollectionUtil;
 import com.scy.core.StringUtil;
+import com.scy.core.exception.BusinessException;
 import com.scy.core.format.MessageUtil;
-import com.scy.zookeeper.listener.CuratorListener;
+import com.scy.zookeeper.codec.ZkCodec;
+import com.scy.zookeeper.codec.ZkCodecs;
+import com.scy.zookeeper.metrics.ZkMetrics;
+import com.scy.zookeeper.model.ChunkManifest;
+import com.scy.zookeeper.model.ZkOperation;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.curator.framework.CuratorFramework;
 import org.apache.curator.framework.CuratorFrameworkFactory;
-import org.apache.curator.framework.recipes.cache.CuratorCache;
-import org.apache.curator.retry.RetryNTimes;
+import org.apache.curator.framework.api.BackgroundCallback;
+import org.apache.curator.framework.api.CuratorEvent;
+import org.apache.curator.framework.api.CuratorWatcher;
+import org.apache.curator.framework.api.transaction.CuratorOp;
+import org.apache.curator.framework.recipes.cache.CuratorCacheListener;
+import org.apache.curator.framework.state.ConnectionState;
+import org.apache.curator.retry.ExponentialBackoffRetry;
+import org.apache.curator.utils.ZKPaths;
 import org.apache.zookeeper.CreateMode;
 import org.apache.zookeeper.KeeperException;
+import org.apache.zookeeper.data.Stat;
 
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * ZkClient
@@ -31,28 +67,333 @@ public class ZkClient {
 
     private final CuratorFramework curatorFramework;
 
-    private static final CountDownLatch CONNECTED_SEMAPHORE = new CountDownLatch(1);
+    /**
+     * 构造时等待连接的最长时间, 超时后继续启动, 连接在后台建立
+     */
+    public static final long CONNECT_TIMEOUT_MS = 10_000L;
+
+    private final String namespace;
+
+    /**
+     * 写入时使用的压缩算法, 读取时按数据头部自动识别
+     */
+    private final ZkCodec codec;
+
+    private final ZkMetrics metrics;
+
+    /**
+     * 未启用指标时不计时
+     */
+    private final boolean metricsEnabled;
+
+    /**
+     * 是否使用虚拟线程执行监听回调与后台任务(需JDK 21+)
+     */
+    private final boolean virtualThreads;
 
-    private final Map<CuratorListener, CuratorCache> curatorCacheMap = new ConcurrentHashMap<>();
+    /**
+     * doGetContent/getChildren读缓存, 未启用时为null
+     */
+    private final ZkReadCache readCache;
+
+    /**
+     * 保护sharedCacheMap/listenerCacheMap的复合操作, 使用ReentrantLock避免虚拟线程在synchronized中被固定
+     */
+    private final ReentrantLock cacheLock = new ReentrantLock();
+
+    /**
+     * 首次连接建立后完成, 每个实例独立
+     */
+    private final CompletableFuture<ZkClient> readyFuture = new CompletableFuture<>();
+
+    /**
+     * 连接建立后执行一次的回调
+     */
+    private final Queue<Runnable> connectedCallbacks = new ConcurrentLinkedQueue<>();
+
+    /**
+     * 根path -> 共享缓存, 同一子树只启动一个CuratorCache
+     */
+    private final Map<String, SharedCuratorCache> sharedCacheMap = new ConcurrentHashMap<>();
+
+    /**
+     * 监听 -> 所在共享缓存(同一监听可订阅多个path)
+     */
+    private final Map<CuratorCacheListener, Set<SharedCuratorCache>> listenerCacheMap = new ConcurrentHashMap<>();
+
+    /**
+     * watchIfExists/getChildrenAndAddListener注册且尚未触发的一次性watch(读缓存的watch按zk.readCache.size统计)
+     */
+    private final Set<PendingWatcher> pendingWatchers = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 当前会话id, 0表示尚未建立过会话
+     */
+    private volatile long sessionId;
+
+    private final List<Runnable> sessionListeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * 会话监听与连接回调在单线程中按顺序执行, 不阻塞Curator的连接状态回调线程(监听中会执行batch等阻塞请求)
+     */
+    private final Executor sessionListenerExecutor;
+
+    /**
+     * 异步请求最大并发数
+     */
+    public static final int MAX_IN_FLIGHT = 256;
+
+    private final Semaphore inFlightSemaphore = new Semaphore(MAX_IN_FLIGHT);
+
+    /**
+     * 超出并发数的异步请求排队, 有请求完成后再发出
+     */
+    private final Queue<Runnable> pendingOperations = new ConcurrentLinkedQueue<>();
+
+    /**
+     * 单次multi请求的最大字节数(jute.maxbuffer的一半, 为序列化开销预留余量)
+     */
+    private static final int MAX_BATCH_BYTES = Integer.getInteger("jute.maxbuffer", 0xfffff) / 2;
+
+    /**
+     * 大数据分块大小(压缩前), 超过该大小的数据按分块写入
+     */
+    public static final int LARGE_DATA_CHUNK_BYTES = 256 * 1024;
+
+    /**
+     * 读取期间清单被替换(旧分块已删除)时重新读取清单的次数
+     */
+    private static final int LARGE_DATA_READ_RETRIES = 2;
+
+    /**
+     * 是否公平 -> 锁管理器, 同一ZkClient上的ZkLock共用, 同一key在JVM内本地排队
+     */
+    private final Map<Boolean, ZkLockManager> lockManagers = new ConcurrentHashMap<>();
+
+    /**
+     * 分块本地缓存(sha256 -> 分块数据), 分块内容寻址, 更新时只下载变化的分块
+     */
+    private final Cache<String, byte[]> chunkCache = CacheBuilder.newBuilder()
+            .maximumWeight(64L * 1024 * 1024)
+            .weigher((String hash, byte[] chunk) -> chunk.length)
+            .build();
 
     public ZkClient(String namespace) {
-        CuratorFrameworkFactory.Builder builder = CuratorFrameworkFactory.builder()
-                .connectString("127.0.0.1:2181")
-                .retryPolicy(new RetryNTimes(1, 5_000))
-                .namespace(namespace);
-        curatorFramework = builder.build();
+        this(builder().namespace(namespace));
+    }
+
+    private ZkClient(Builder builder) {
+        this.namespace = builder.namespace;
+        this.codec = builder.codec;
+        this.metrics = builder.metrics == null ? ZkMetrics.NOOP : builder.metrics;
+        this.metricsEnabled = metrics.isEnabled();
+        this.virtualThreads = builder.virtualThreads && ZkExecutors.isVirtualThreadSupported();
+        if (builder.virtualThreads && !virtualThreads) {
+            log.warn(MessageUtil.format("zkClient virtual threads not supported, use platform threads", "javaVersion", System.getProperty("java.version")));
+        }
+        this.readCache = builder.readCacheMaxBytes > 0 ? new ZkReadCache(builder.readCacheMaxBytes) : null;
+        this.sessionListenerExecutor = ZkExecutors.getThreadPool("zkSessionListener", 1, 1, 64, virtualThreads);
+        curatorFramework = CuratorFrameworkFactory.builder()
+                .connectString(builder.getConnectString())
+                .sessionTimeoutMs(builder.sessionTimeoutMs)
+                .connectionTimeoutMs(builder.connectionTimeoutMs)
+                .retryPolicy(new ExponentialBackoffRetry(builder.baseSleepTimeMs, builder.maxRetries, builder.maxSleepTimeMs))
+                .namespace(namespace)
+                .build();
         curatorFramework.getConnectionStateListenable().addListener((curatorFramework, newState) -> {
-            log.info(MessageUtil.format("zkClient state listener", "newState", newState.name()));
+            log.info(MessageUtil.format("zkClient state listener", "namespace", namespace, "newState", newState.name()));
+            if (readCache != null && newState != ConnectionState.CONNECTED) {
+                // 断线期间的变更可能收不到watch通知(会话过期时watch全部丢失)
+                readCache.invalidateAll();
+            }
             if (newState.isConnected()) {
-                CONNECTED_SEMAPHORE.countDown();
+                readyFuture.complete(this);
+                checkSession();
+                runConnectedCallbacks();
             }
         });
         curatorFramework.start();
+        registerGauges();
 
+        if (builder.readyTimeoutMs <= 0) {
+            return;
+        }
         try {
-            CONNECTED_SEMAPHORE.await();
+            readyFuture.get(builder.readyTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            log.warn(MessageUtil.format("zkClient connect timeout, continue connecting in background", "namespace", namespace, "connectString", builder.getConnectString(), "timeout", builder.readyTimeoutMs));
         } catch (InterruptedException e) {
             log.warn("zkClient init interrupted");
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.error(MessageUtil.format("zkClient init error", e, "namespace", namespace));
+        }
+    }
+
+    private void registerGauges() {
+        if (!metricsEnabled) {
+            return;
+        }
+
+        metrics.registerGauge("zk.inFlight", () -> MAX_IN_FLIGHT - inFlightSemaphore.availablePermits());
+        metrics.registerGauge("zk.pendingOperations", pendingOperations::size);
+        metrics.registerGauge("zk.caches", sharedCacheMap::size);
+        metrics.registerGauge("zk.cacheSubscribers", () -> sharedCacheMap.values().stream().mapToLong(SharedCuratorCache::getSubscriberCount).sum());
+        metrics.registerGauge("zk.cachedNodes", () -> sharedCacheMap.values().stream().mapToLong(SharedCuratorCache::size).sum());
+        metrics.registerGauge("zk.watches", pendingWatchers::size);
+        if (readCache != null) {
+            metrics.registerGauge("zk.readCache.size", readCache::size);
+            metrics.registerGauge("zk.readCache.hitCount", () -> readCache.stats().hitCount());
+            metrics.registerGauge("zk.readCache.missCount", () -> readCache.stats().missCount());
+        }
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public String getNamespace() {
+        return namespace;
+    }
+
+    public ZkMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * 是否启用虚拟线程, 监听回调/后台刷新线程池通过ZkExecutors按此创建
+     */
+    public boolean isVirtualThreads() {
+        return virtualThreads;
+    }
+
+    /**
+     * 共用的锁管理器
+     *
+     * @param fair true 公平锁
+     */
+    public ZkLockManager getLockManager(boolean fair) {
+        return lockManagers.computeIfAbsent(fair, key -> new ZkLockManager(this, key));
+    }
+
+    /**
+     * 读缓存命中/未命中统计, 未启用读缓存时返回null
+     */
+    public CacheStats getReadCacheStats() {
+        return readCache == null ? null : readCache.stats();
+    }
+
+    /**
+     * 首次连接建立后完成(之后断线重连不会重置)
+     */
+    public CompletableFuture<ZkClient> getReadyFuture() {
+        return readyFuture;
+    }
+
+    /**
+     * 当前是否已连接
+     */
+    public boolean isConnected() {
+        return curatorFramework.getZookeeperClient().isConnected();
+    }
+
+    /**
+     * 连接建立后执行一次回调(已连接时立即提交), 在会话监听线程中执行
+     */
+    public void whenConnected(Runnable callback) {
+        connectedCallbacks.add(callback);
+        if (isConnected()) {
+            runConnectedCallbacks();
+        }
+    }
+
+    private void runConnectedCallbacks() {
+        Runnable callback;
+        while ((callback = connectedCallbacks.poll()) != null) {
+            Runnable connectedCallback = callback;
+            Runnable task = () -> {
+                try {
+                    connectedCallback.run();
+                } catch (Exception e) {
+                    log.error(MessageUtil.format("connected callback error", e, "namespace", namespace));
+                }
+            };
+            try {
+                sessionListenerExecutor.execute(task);
+            } catch (RejectedExecutionException e) {
+                // 回调只执行一次, 线程池已满或已关闭时在当前线程执行, 不丢弃
+                log.warn(MessageUtil.format("connected callback rejected, run in caller thread", "namespace", namespace));
+                task.run();
+            }
+        }
+    }
+
+    /**
+     * 连接建立(CONNECTED/RECONNECTED)时检查会话是否变化
+     * 会话变化(包括LOST之后重连)说明旧会话的临时节点已被删除, 通知监听者重新注册
+     */
+    private void checkSession() {
+        long currentSessionId;
+        try {
+            currentSessionId = curatorFramework.getZookeeperClient().getZooKeeper().getSessionId();
+        } catch (Exception e) {
+            log.error(MessageUtil.format("checkSession get sessionId error", e));
+            return;
+        }
+
+        long previousSessionId = sessionId;
+        sessionId = currentSessionId;
+        if (previousSessionId == 0 || previousSessionId == currentSessionId) {
+            return;
+        }
+
+        log.info(MessageUtil.format("zkClient session changed", "previousSessionId", Long.toHexString(previousSessionId), "sessionId", Long.toHexString(currentSessionId)));
+        try {
+            sessionListenerExecutor.execute(() -> sessionListeners.forEach(listener -> {
+                try {
+                    listener.run();
+                } catch (Exception e) {
+                    log.error(MessageUtil.format("session listener error", e));
+                }
+            }));
+        } catch (RejectedExecutionException e) {
+            log.error(MessageUtil.format("session listener rejected", e, "sessionId", Long.toHexString(currentSessionId)));
+        }
+    }
+
+    /**
+     * 添加会话监听, 新会话建立后在独立线程中回调(旧会话创建的临时节点已不存在)
+     */
+    public void addSessionListener(Runnable listener) {
+        sessionListeners.add(listener);
+    }
+
+    public long getSessionId() {
+        return sessionId;
+    }
+
+    /**
+     * 当前连接实时的会话id, 会话过期后新会话建立前为0, 读取失败返回0
+     */
+    long getLiveSessionId() {
+        try {
+            return curatorFramework.getZookeeperClient().getZooKeeper().getSessionId();
+        } catch (Exception e) {
+            log.error(MessageUtil.format("getLiveSessionId error", e));
+            return 0L;
+        }
+    }
+
+    /**
+     * 临时节点所属的会话id, 节点不存在或读取失败返回0
+     */
+    long getEphemeralOwner(String path) {
+        try {
+            Stat stat = checkExistsStat(path);
+            return stat == null ? 0L : stat.getEphemeralOwner();
+        } catch (Exception e) {
+            log.error(MessageUtil.format("getEphemeralOwner error", e, "path", path));
+            return 0L;
         }
     }
 
@@ -60,17 +401,24 @@ public class ZkClient {
      * 创建节点(若节点存在则创建失败, 不可用于更新节点)
      */
     public String createNode(String path, String data, CreateMode createMode) {
+        long startNanos = metricsStartNanos();
         try {
-            byte[] dataBytes = data.getBytes(StandardCharsets.UTF_8);
-            String createPath = curatorFramework.create().creatingParentContainersIfNeeded().withMode(createMode).forPath(path, dataBytes);
+            byte[] dataBytes = ZkCodecs.encode(codec, data);
+            String createPath = forPath(() -> curatorFramework.create().creatingParentContainersIfNeeded().withMode(createMode).forPath(path, dataBytes),
+                    callback -> curatorFramework.create().creatingParentContainersIfNeeded().withMode(createMode).inBackground(callback).forPath(path, dataBytes), CuratorEvent::getName);
             log.info(MessageUtil.format("createNode success", "createPath", createPath));
             return createPath;
         } catch (KeeperException.NodeExistsException e) {
+            recordError("createNode", path, e);
             log.info(MessageUtil.format("createNode fail, path已存在", "path", path));
             return null;
         } catch (Exception e) {
+            recordError("createNode", path, e);
             log.error(MessageUtil.format("createNode error", e, "path", path, "data", data));
             return null;
+        } finally {
+            invalidateReadCache(path);
+            recordLatency("createNode", path, startNanos);
         }
     }
 
@@ -78,14 +426,41 @@ public class ZkClient {
      * 创建节点并赋值(可用于更新节点)
      */
     public String createNodeWithData(String path, String data, CreateMode createMode) {
+        long startNanos = metricsStartNanos();
         try {
-            byte[] dataBytes = data.getBytes(StandardCharsets.UTF_8);
-            String createPath = curatorFramework.create().orSetData().creatingParentContainersIfNeeded().withMode(createMode).forPath(path, dataBytes);
+            byte[] dataBytes = ZkCodecs.encode(codec, data);
+            String createPath = forPath(() -> curatorFramework.create().orSetData().creatingParentContainersIfNeeded().withMode(createMode).forPath(path, dataBytes),
+                    callback -> curatorFramework.create().orSetData().creatingParentContainersIfNeeded().withMode(createMode).inBackground(callback).forPath(path, dataBytes), CuratorEvent::getPath);
             log.info(MessageUtil.format("createNodeWithData success", "createPath", createPath));
             return createPath;
         } catch (Exception e) {
+            recordError("createNodeWithData", path, e);
             log.error(MessageUtil.format("createNodeWithData error", e, "path", path, "data", data));
             return null;
+        } finally {
+            invalidateReadCache(path);
+            recordLatency("createNodeWithData", path, startNanos);
+        }
+    }
+
+    /**
+     * 创建节点并赋值(原始字节, 按codec压缩后写入)
+     */
+    public String createNodeWithData(String path, byte[] data, CreateMode createMode) {
+        long startNanos = metricsStartNanos();
+        try {
+            byte[] dataBytes = ZkCodecs.encode(codec, data);
+            String createPath = forPath(() -> curatorFramework.create().orSetData().creatingParentContainersIfNeeded().withMode(createMode).forPath(path, dataBytes),
+                    callback -> curatorFramework.create().orSetData().creatingParentContainersIfNeeded().withMode(createMode).inBackground(callback).forPath(path, dataBytes), CuratorEvent::getPath);
+            log.info(MessageUtil.format("createNodeWithData success", "createPath", createPath, "length", data.length, "storedLength", dataBytes.length));
+            return createPath;
+        } catch (Exception e) {
+            recordError("createNodeWithData", path, e);
+            log.error(MessageUtil.format("createNodeWithData error", e, "path", path, "length", data.length));
+            return null;
+        } finally {
+            invalidateReadCache(path);
+            recordLatency("createNodeWithData", path, startNanos);
         }
     }
 
@@ -95,44 +470,96 @@ public class ZkClient {
      * @return true 已创建
      */
     public boolean checkExists(String path) {
+        long startNanos = metricsStartNanos();
         try {
-            if (curatorFramework.checkExists().forPath(path) != null) {
+            if (checkExistsStat(path) != null) {
                 return Boolean.TRUE;
             }
         } catch (Exception e) {
+            recordError("checkExists", path, e);
             log.error(MessageUtil.format("checkExists error", e, "path", path));
+        } finally {
+            recordLatency("checkExists", path, startNanos);
         }
         return Boolean.FALSE;
     }
 
     /**
-     * 查询节点数据
+     * 查询节点数据, 启用读缓存时优先读取缓存
      */
     public String doGetContent(String path) {
+        long startNanos = metricsStartNanos();
         try {
-            byte[] dataBytes = curatorFramework.getData().forPath(path);
-            return dataBytes == null ? StringUtil.EMPTY : new String(dataBytes, StandardCharsets.UTF_8);
+            if (readCache != null) {
+                return readCache.getContent(path, () -> ZkCodecs.decodeToString(forPath(() -> curatorFramework.getData().usingWatcher(readCache).forPath(path),
+                        callback -> curatorFramework.getData().usingWatcher(readCache).inBackground(callback).forPath(path), CuratorEvent::getData)));
+            }
+            byte[] dataBytes = forPath(() -> curatorFramework.getData().forPath(path), callback -> curatorFramework.getData().inBackground(callback).forPath(path), CuratorEvent::getData);
+            return ZkCodecs.decodeToString(dataBytes);
         } catch (KeeperException.NoNodeException e) {
+            recordError("getData", path, e);
             log.warn(MessageUtil.format("doGetContent 节点不存在", "path", path));
             return StringUtil.EMPTY;
         } catch (Exception e) {
+            recordError("getData", path, e);
             log.error(MessageUtil.format("doGetContent error", e, "path", path));
             return StringUtil.EMPTY;
+        } finally {
+            recordLatency("getData", path, startNanos);
         }
     }
 
     /**
-     * 查询子节点
+     * 查询节点原始字节(已解压), 节点不存在或异常时返回null
+     */
+    public byte[] getData(String path) {
+        long startNanos = metricsStartNanos();
+        try {
+            byte[] dataBytes = forPath(() -> curatorFramework.getData().forPath(path), callback -> curatorFramework.getData().inBackground(callback).forPath(path), CuratorEvent::getData);
+            return dataBytes == null ? new byte[0] : ZkCodecs.decode(dataBytes);
+        } catch (KeeperException.NoNodeException e) {
+            recordError("getData", path, e);
+            log.warn(MessageUtil.format("getData 节点不存在", "path", path));
+            return null;
+        } catch (Exception e) {
+            recordError("getData", path, e);
+            log.error(MessageUtil.format("getData error", e, "path", path));
+            return null;
+        } finally {
+            recordLatency("getData", path, startNanos);
+        }
+    }
+
+    /**
+     * 查询子节点, 启用读缓存时优先读取缓存(此时返回的列表只读)
      */
     public List<String> getChildren(String path) {
+        return getChildren(path, Boolean.TRUE);
+    }
+
+    /**
+     * 查询子节点, 启用读缓存且cached为true时返回的列表只读(多个调用方共享), 需要修改时先复制
+     *
+     * @param cached false 不使用读缓存, 直接读取zookeeper; 需要最新子节点的场景使用(如分布式锁排队, 收到变更通知后重新加载)
+     */
+    public List<String> getChildren(String path, boolean cached) {
+        long startNanos = metricsStartNanos();
         try {
-            return curatorFramework.getChildren().forPath(path);
+            if (cached && readCache != null) {
+                return readCache.getChildren(path, () -> forPath(() -> curatorFramework.getChildren().usingWatcher(readCache).forPath(path),
+                        callback -> curatorFramework.getChildren().usingWatcher(readCache).inBackground(callback).forPath(path), CuratorEvent::getChildren));
+            }
+            return forPath(() -> curatorFramework.getChildren().forPath(path), callback -> curatorFramework.getChildren().inBackground(callback).forPath(path), CuratorEvent::getChildren);
         } catch (KeeperException.NoNodeException e) {
+            recordError("getChildren", path, e);
             log.warn(MessageUtil.format("getChildren path不存在", "path", path));
             return CollectionUtil.emptyList();
         } catch (Exception e) {
+            recordError("getChildren", path, e);
             log.error(MessageUtil.format("getChildren error", e, "path", path));
             return CollectionUtil.emptyList();
+        } finally {
+            recordLatency("getChildren", path, startNanos);
         }
     }
 
@@ -142,53 +569,772 @@ public class ZkClient {
      * @return true 删除成功
      */
     public boolean delete(String path) {
+        long startNanos = metricsStartNanos();
         try {
-            curatorFramework.delete().guaranteed().deletingChildrenIfNeeded().forPath(path);
+            forPath(() -> curatorFramework.delete().guaranteed().deletingChildrenIfNeeded().forPath(path),
+                    callback -> curatorFramework.delete().guaranteed().deletingChildrenIfNeeded().inBackground(callback).forPath(path), event -> null);
             return Boolean.TRUE;
         } catch (KeeperException.NoNodeException e) {
+            recordError("delete", path, e);
             log.warn(MessageUtil.format("delete path不存在", "path", path));
             return Boolean.FALSE;
         } catch (Exception e) {
+            recordError("delete", path, e);
             log.error(MessageUtil.format("delete error", e, "path", path));
             return Boolean.FALSE;
+        } finally {
+            invalidateReadCacheTree(path);
+            recordLatency("delete", path, startNanos);
         }
     }
 
     /**
-     * 添加监听
+     * 异步创建节点(若节点存在则失败, 异常为NodeExistsException)
+     */
+    public CompletableFuture<String> createNodeAsync(String path, String data, CreateMode createMode) {
+        byte[] dataBytes = ZkCodecs.encode(codec, data);
+        return submit("createNodeAsync", path, invalidating(path, Boolean.FALSE, callback -> curatorFramework.create().creatingParentContainersIfNeeded().withMode(createMode).inBackground(callback).forPath(path, dataBytes)), CuratorEvent::getName);
+    }
+
+    /**
+     * 异步创建节点并赋值(可用于更新节点)
+     */
+    public CompletableFuture<String> createNodeWithDataAsync(String path, String data, CreateMode createMode) {
+        return createNodeWithDataAsync(path, data == null ? new byte[0] : data.getBytes(StandardCharsets.UTF_8), createMode);
+    }
+
+    /**
+     * 异步创建节点并赋值(原始字节, 按codec压缩后写入)
+     */
+    public CompletableFuture<String> createNodeWithDataAsync(String path, byte[] data, CreateMode createMode) {
+        byte[] dataBytes = ZkCodecs.encode(codec, data);
+        return submit("createNodeWithDataAsync", path, invalidating(path, Boolean.FALSE, callback -> curatorFramework.create().orSetData().creatingParentContainersIfNeeded().withMode(createMode).inBackground(callback).forPath(path, dataBytes)), CuratorEvent::getPath);
+    }
+
+    /**
+     * 异步判断path是否已创建
+     */
+    public CompletableFuture<Boolean> checkExistsAsync(String path) {
+        CompletableFuture<Boolean> future = new CompletableFuture<>();
+        submit("checkExistsAsync", path, callback -> curatorFramework.checkExists().inBackground(callback).forPath(path), event -> event.getStat() != null).whenComplete((exists, throwable) -> {
+            if (throwable == null) {
+                future.complete(exists);
+            } else if (throwable instanceof KeeperException.NoNodeException) {
+                future.complete(Boolean.FALSE);
+            } else {
+                future.completeExceptionally(throwable);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * 异步查询节点数据
+     */
+    public CompletableFuture<String> doGetContentAsync(String path) {
+        return submit("getDataAsync", path, callback -> curatorFramework.getData().inBackground(callback).forPath(path),
+                event -> ZkCodecs.decodeToString(event.getData()));
+    }
+
+    /**
+     * 异步查询节点原始字节(已解压), 不解码为字符串
+     */
+    public CompletableFuture<byte[]> getDataAsync(String path) {
+        return submit("getDataAsync", path, callback -> curatorFramework.getData().inBackground(callback).forPath(path),
+                event -> event.getData() == null ? new byte[0] : ZkCodecs.decode(event.getData()));
+    }
+
+    /**
+     * 写入大数据(可超过jute.maxbuffer)
+     * 超过分块大小时拆分为内容寻址的子节点 chunk-{sha256}, 只创建新增的分块, 清单写入与过期分块删除在同一事务中提交
+     * 以节点版本做乐观锁, 并发写入同一path时冲突方返回false
+     * 只使用同步请求, 可在watcher/监听回调(zookeeper事件线程)中调用
+     *
+     * @return true 写入成功
+     */
+    public boolean setLargeData(String path, byte[] data) {
+        List<String> createdChunks = new ArrayList<>();
+        try {
+            Stat stat = checkExistsStat(path);
+            if (stat == null) {
+                createNode(path, StringUtil.EMPTY, CreateMode.PERSISTENT);
+                stat = checkExistsStat(path);
+            }
+
+            Set<String> staleChunks = getChildren(path, Boolean.FALSE).stream().filter(child -> child.startsWith(ChunkManifest.CHUNK_PREFIX)).collect(Collectors.toSet());
+            Set<String> reusedChunks = new HashSet<>();
+            byte[] nodeData;
+            if (data.length <= LARGE_DATA_CHUNK_BYTES) {
+                nodeData = ZkCodecs.encode(codec, data);
+            } else {
+                List<String> chunks = new ArrayList<>();
+                Set<String> chunkNames = new HashSet<>();
+                for (int offset = 0; offset < data.length; offset += LARGE_DATA_CHUNK_BYTES) {
+                    byte[] chunk = Arrays.copyOfRange(data, offset, Math.min(offset + LARGE_DATA_CHUNK_BYTES, data.length));
+                    String hash = sha256(chunk);
+                    chunks.add(hash);
+
+                    String chunkName = ChunkManifest.chunkName(hash);
+                    // 重复分块只写一次, 已存在的分块内容不变, 直接复用
+                    if (!chunkNames.add(chunkName)) {
+                        continue;
+                    }
+                    if (staleChunks.remove(chunkName)) {
+                        reusedChunks.add(chunkName);
+                        continue;
+                    }
+                    chunkCache.put(hash, chunk);
+                    createdChunks.add(chunkName);
+                    writeChunk(path + "/" + chunkName, chunk);
+                }
+
+                ChunkManifest chunkManifest = new ChunkManifest();
+                chunkManifest.setLength(data.length);
+                chunkManifest.setChecksum(sha256(data));
+                chunkManifest.setChunks(chunks);
+                nodeData = chunkManifest.toBytes();
+                log.info(MessageUtil.format("setLargeData chunks", "path", path, "length", data.length, "chunks", chunks.size(), "created", createdChunks.size(), "stale", staleChunks.size()));
+            }
+
+            List<CuratorOp> curatorOps = new ArrayList<>(staleChunks.size() + reusedChunks.size() + 1);
+            curatorOps.add(curatorFramework.transactionOp().setData().withVersion(stat.getVersion()).forPath(path, nodeData));
+            for (String staleChunk : staleChunks) {
+                curatorOps.add(curatorFramework.transactionOp().delete().forPath(path + "/" + staleChunk));
+            }
+            for (String reusedChunk : reusedChunks) {
+                // 复用的分块可能被冲突写入方清理, 提交时确认仍存在
+                curatorOps.add(curatorFramework.transactionOp().check().forPath(path + "/" + reusedChunk));
+            }
+            forPath(() -> curatorFramework.transaction().forOperations(curatorOps), callback -> curatorFramework.transaction().inBackground(callback).forOperations(curatorOps), CuratorEvent::getOpResults);
+            return Boolean.TRUE;
+        } catch (KeeperException.BadVersionException e) {
+            log.warn(MessageUtil.format("setLargeData conflict, path已被其他客户端修改", "path", path));
+            deleteOrphanChunks(path, createdChunks);
+            return Boolean.FALSE;
+        } catch (Exception e) {
+            log.error(MessageUtil.format("setLargeData error", e, "path", path, "length", data.length));
+            return Boolean.FALSE;
+        } finally {
+            invalidateReadCacheTree(path);
+        }
+    }
+
+    /**
+     * 写入分块(同名分块内容相同, 已存在时覆盖)
      */
-    public void addListener(String path, CuratorListener listener, Executor executor) {
-        CuratorCache curatorCache = CuratorCache.build(curatorFramework, path);
-        curatorCacheMap.putIfAbsent(listener, curatorCache);
-        curatorCache.listenable().addListener(listener, executor);
-        curatorCache.start();
+    private void writeChunk(String chunkPath, byte[] chunk) throws Exception {
+        byte[] dataBytes = ZkCodecs.encode(codec, chunk);
+        forPath(() -> curatorFramework.create().orSetData().withMode(CreateMode.PERSISTENT).forPath(chunkPath, dataBytes),
+                callback -> curatorFramework.create().orSetData().withMode(CreateMode.PERSISTENT).inBackground(callback).forPath(chunkPath, dataBytes), CuratorEvent::getPath);
     }
 
     /**
-     * 删除监听
+     * 读取节点原始字节(已解压), 节点不存在时抛出NoNodeException
      */
-    public void removeListener(CuratorListener listener) {
-        CuratorCache curatorCache = curatorCacheMap.get(listener);
-        if (Objects.isNull(curatorCache)) {
+    private byte[] readData(String path) throws Exception {
+        byte[] dataBytes = forPath(() -> curatorFramework.getData().forPath(path), callback -> curatorFramework.getData().inBackground(callback).forPath(path), CuratorEvent::getData);
+        return dataBytes == null ? new byte[0] : ZkCodecs.decode(dataBytes);
+    }
+
+    /**
+     * 写入冲突时删除本次新建且未被当前清单引用的分块(分块内容寻址, 胜出方可能引用了同名分块)
+     */
+    private void deleteOrphanChunks(String path, List<String> createdChunks) {
+        if (createdChunks.isEmpty()) {
             return;
         }
-        curatorCache.listenable().removeListener(listener);
-        curatorCache.close();
-        curatorCacheMap.remove(listener);
+
+        try {
+            ChunkManifest chunkManifest = ChunkManifest.parse(readData(path));
+            Set<String> referencedChunks = chunkManifest == null ? Collections.emptySet()
+                    : CollectionUtil.emptyIfNull(chunkManifest.getChunks()).stream().map(ChunkManifest::chunkName).collect(Collectors.toSet());
+            createdChunks.stream().filter(chunk -> !referencedChunks.contains(chunk)).forEach(chunk -> delete(path + "/" + chunk));
+        } catch (Exception e) {
+            log.error(MessageUtil.format("setLargeData delete orphan chunks error", e, "path", path, "chunks", createdChunks.size()));
+        }
+    }
+
+    /**
+     * 读取大数据(兼容普通节点), 节点不存在或校验失败时返回null
+     * 只使用同步请求(分块逐个读取, 优先本地缓存), 可在watcher/监听回调(zookeeper事件线程)中调用; 需要并发读取分块时使用getLargeDataAsync
+     */
+    public byte[] getLargeData(String path) {
+        try {
+            for (int retries = LARGE_DATA_READ_RETRIES; ; retries--) {
+                byte[] data = readData(path);
+                ChunkManifest chunkManifest = ChunkManifest.parse(data);
+                if (chunkManifest == null) {
+                    return data;
+                }
+
+                List<byte[]> chunks = new ArrayList<>();
+                try {
+                    for (String hash : CollectionUtil.emptyIfNull(chunkManifest.getChunks())) {
+                        byte[] chunk = chunkCache.getIfPresent(hash);
+                        chunks.add(chunk != null ? chunk : verifyChunk(path, hash, readData(path + "/" + ChunkManifest.chunkName(hash))));
+                    }
+                } catch (KeeperException.NoNodeException e) {
+                    if (retries > 0) {
+                        // 读取期间清单被替换, 旧分块已删除, 重新读取清单
+                        continue;
+                    }
+                    throw e;
+                }
+                return joinChunks(path, chunkManifest, chunks);
+            }
+        } catch (Exception e) {
+            log.error(MessageUtil.format("getLargeData error", e, "path", path));
+            return null;
+        }
     }
 
+    /**
+     * 异步读取大数据(兼容普通节点), 分块并发读取并校验sha256
+     */
+    public CompletableFuture<byte[]> getLargeDataAsync(String path) {
+        return getLargeDataAsync(path, LARGE_DATA_READ_RETRIES);
+    }
+
+    private CompletableFuture<byte[]> getLargeDataAsync(String path, int retries) {
+        return getDataAsync(path).thenCompose(data -> resolveLargeDataAsync(path, data)).handle((data, throwable) -> {
+            if (throwable == null) {
+                return CompletableFuture.completedFuture(data);
+            }
+
+            Throwable cause = throwable instanceof CompletionException && throwable.getCause() != null ? throwable.getCause() : throwable;
+            if (retries > 0 && cause instanceof KeeperException.NoNodeException && !path.equals(((KeeperException) cause).getPath())) {
+                // 读取期间清单被替换, 旧分块已删除, 重新读取清单
+                return getLargeDataAsync(path, retries - 1);
+            }
+            CompletableFuture<byte[]> future = new CompletableFuture<>();
+            future.completeExceptionally(cause);
+            return future;
+        }).thenCompose(Function.identity());
+    }
+
+    /**
+     * 解析已读取的节点数据, 普通数据直接返回, 清单则读取分块(优先本地缓存)后拼接
+     */
+    public CompletableFuture<byte[]> resolveLargeDataAsync(String path, byte[] data) {
+        ChunkManifest chunkManifest = ChunkManifest.parse(data);
+        if (chunkManifest == null) {
+            return CompletableFuture.completedFuture(data);
+        }
+
+        List<CompletableFuture<byte[]>> futures = CollectionUtil.emptyIfNull(chunkManifest.getChunks()).stream().map(hash -> {
+            byte[] cachedChunk = chunkCache.getIfPresent(hash);
+            if (cachedChunk != null) {
+                return CompletableFuture.completedFuture(cachedChunk);
+            }
+            return getDataAsync(path + "/" + ChunkManifest.chunkName(hash)).thenApply(chunk -> verifyChunk(path, hash, chunk));
+        }).collect(Collectors.toList());
+
+        // allOf正常结束时各分块均已完成, getNow不阻塞
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+                .thenApply(nothing -> joinChunks(path, chunkManifest, futures.stream().map(future -> future.getNow(null)).collect(Collectors.toList())));
+    }
+
+    /**
+     * 校验分块内容并放入本地缓存
+     */
+    private byte[] verifyChunk(String path, String hash, byte[] chunk) {
+        if (!hash.equals(sha256(chunk))) {
+            throw new BusinessException(MessageUtil.format("chunk checksum mismatch", "path", path, "chunk", hash));
+        }
+        chunkCache.put(hash, chunk);
+        return chunk;
+    }
+
+    /**
+     * 按清单拼接分块并校验长度与sha256
+     */
+    private static byte[] joinChunks(String path, ChunkManifest chunkManifest, List<byte[]> chunks) {
+        byte[] result = new byte[chunkManifest.getLength()];
+        int offset = 0;
+        for (byte[] chunk : chunks) {
+            if (offset + chunk.length > result.length) {
+                throw new BusinessException(MessageUtil.format("large data length mismatch", "path", path, "length", chunkManifest.getLength()));
+            }
+            System.arraycopy(chunk, 0, result, offset, chunk.length);
+            offset += chunk.length;
+        }
+        if (offset != result.length || !sha256(result).equals(chunkManifest.getChecksum())) {
+            throw new BusinessException(MessageUtil.format("large data checksum mismatch", "path", path, "length", chunkManifest.getLength()));
+        }
+        return result;
+    }
+
+    private static String sha256(byte[] data) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(data);
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new BusinessException("sha256 not supported", e);
+        }
+    }
+
+    /**
+     * 异步查询子节点
+     */
+    public CompletableFuture<List<String>> getChildrenAsync(String path) {
+        return submit("getChildrenAsync", path, callback -> curatorFramework.getChildren().inBackground(callback).forPath(path), CuratorEvent::getChildren);
+    }
+
+    /**
+     * 异步删除节点(同时删除子节点)
+     */
+    public CompletableFuture<Boolean> deleteAsync(String path) {
+        return submit("deleteAsync", path, invalidating(path, Boolean.TRUE, callback -> curatorFramework.delete().guaranteed().deletingChildrenIfNeeded().inBackground(callback).forPath(path)), event -> Boolean.TRUE);
+    }
+
+    /**
+     * 批量执行创建/修改/删除, 按MAX_BATCH_BYTES拆分为多个multi事务, 每个事务一次网络往返
+     * 先按声明的操作类型直接提交; 因节点状态不符(NodeExists/NoNode)失败时按节点当前状态重试一次: 补建缺失的父节点, 跳过已存在节点的创建与不存在节点的删除, 不存在节点的修改转为创建
+     * 重试仍失败时(如检查后被其他客户端修改)该批次退化为逐个执行, 语义与createNode/createNodeWithData/delete一致
+     * 只使用同步请求, 可在watcher/监听回调(zookeeper事件线程)中调用
+     *
+     * @return 执行成功的操作数
+     */
+    public int batch(List<ZkOperation> operations) {
+        if (CollectionUtil.isEmpty(operations)) {
+            return 0;
+        }
+
+        int count = 0;
+        List<ZkOperation> chunk = new ArrayList<>();
+        int chunkBytes = 0;
+        for (ZkOperation operation : operations) {
+            int operationBytes = operation.estimateBytes();
+            if (!chunk.isEmpty() && chunkBytes + operationBytes > MAX_BATCH_BYTES) {
+                count += commit(chunk);
+                chunk = new ArrayList<>();
+                chunkBytes = 0;
+            }
+            chunk.add(operation);
+            chunkBytes += operationBytes;
+        }
+        count += commit(chunk);
+        return count;
+    }
+
+    private int commit(List<ZkOperation> chunk) {
+        String path = chunk.get(0).getPath();
+        long startNanos = metricsStartNanos();
+        try {
+            List<CuratorOp> curatorOps = new ArrayList<>(chunk.size());
+            for (ZkOperation operation : chunk) {
+                curatorOps.add(toCuratorOp(operation.getType(), operation));
+            }
+            try {
+                commitTransaction(curatorOps);
+                log.info(MessageUtil.format("batch commit success", "size", chunk.size()));
+                return curatorOps.size();
+            } catch (KeeperException.NodeExistsException | KeeperException.NoNodeException e) {
+                log.info(MessageUtil.format("batch commit conflict, 按节点状态重试", "size", chunk.size(), "code", e.code()));
+            }
+
+            curatorOps = prepare(chunk);
+            if (curatorOps.isEmpty()) {
+                log.info(MessageUtil.format("batch commit skip, 节点状态已满足", "size", chunk.size()));
+                return 0;
+            }
+            commitTransaction(curatorOps);
+            log.info(MessageUtil.format("batch commit success", "size", chunk.size(), "committed", curatorOps.size()));
+            return curatorOps.size();
+        } catch (KeeperException e) {
+            recordError("multi", path, e);
+            log.info(MessageUtil.format("batch commit fail, 逐个执行", "size", chunk.size(), "code", e.code()));
+        } catch (Exception e) {
+            recordError("multi", path, e);
+            log.error(MessageUtil.format("batch commit error, 逐个执行", e, "size", chunk.size()));
+        } finally {
+            chunk.forEach(operation -> {
+                if (operation.getType() == ZkOperation.Type.DELETE) {
+                    invalidateReadCacheTree(operation.getPath());
+                } else {
+                    invalidateReadCache(operation.getPath());
+                }
+            });
+            recordLatency("multi", path, startNanos);
+        }
+
+        return (int) chunk.stream().filter(this::execute).count();
+    }
+
+    private void commitTransaction(List<CuratorOp> curatorOps) throws Exception {
+        forPath(() -> curatorFramework.transaction().forOperations(curatorOps), callback -> curatorFramework.transaction().inBackground(callback).forOperations(curatorOps), CuratorEvent::getOpResults);
+    }
+
+    /**
+     * 按节点当前状态生成事务操作(multi不支持自动创建父节点, 也不允许创建已存在的节点)
+     * 每个父节点查询一次子节点得到节点及父节点的存在性, 同一批次内前面的操作会改变后面操作看到的状态
+     */
+    private List<CuratorOp> prepare(List<ZkOperation> chunk) throws Exception {
+        Map<String, Boolean> existsMap = new HashMap<>();
+        Set<String> parentPaths = new HashSet<>();
+        for (ZkOperation operation : chunk) {
+            String parentPath = getParentPath(operation.getPath());
+            if (!parentPaths.add(parentPath)) {
+                continue;
+            }
+            try {
+                List<String> children = forPath(() -> curatorFramework.getChildren().forPath(parentPath), callback -> curatorFramework.getChildren().inBackground(callback).forPath(parentPath), CuratorEvent::getChildren);
+                markExists(existsMap, parentPath);
+                children.forEach(child -> existsMap.putIfAbsent(ZKPaths.makePath(parentPath, child), Boolean.TRUE));
+            } catch (KeeperException.NoNodeException e) {
+                existsMap.put(parentPath, Boolean.FALSE);
+            }
+        }
+
+        List<CuratorOp> curatorOps = new ArrayList<>(chunk.size());
+        for (ZkOperation operation : chunk) {
+            String operationPath = operation.getPath();
+            boolean exists = existsMap.getOrDefault(operationPath, Boolean.FALSE);
+            if (operation.getType() == ZkOperation.Type.DELETE) {
+                if (exists) {
+                    curatorOps.add(toCuratorOp(operation.getType(), operation));
+                    existsMap.put(operationPath, Boolean.FALSE);
+                }
+                continue;
+            }
+            if (exists && operation.getType() == ZkOperation.Type.CREATE) {
+                continue;
+            }
+
+            String parentPath = getParentPath(operationPath);
+            if (!existsMap.getOrDefault(parentPath, Boolean.FALSE)) {
+                createParents(parentPath);
+                markExists(existsMap, parentPath);
+            }
+            curatorOps.add(toCuratorOp(exists ? ZkOperation.Type.SET_DATA : ZkOperation.Type.CREATE, operation));
+            existsMap.put(operationPath, Boolean.TRUE);
+        }
+        return curatorOps;
+    }
+
+    /**
+     * 创建父节点(容器节点, 子节点全部删除后由服务端清理), 已存在时忽略
+     */
+    private void createParents(String parentPath) throws Exception {
+        try {
+            forPath(() -> curatorFramework.create().creatingParentContainersIfNeeded().withMode(CreateMode.CONTAINER).forPath(parentPath),
+                    callback -> curatorFramework.create().creatingParentContainersIfNeeded().withMode(CreateMode.CONTAINER).inBackground(callback).forPath(parentPath), CuratorEvent::getName);
+        } catch (KeeperException.NodeExistsException e) {
+            // 其他客户端已创建
+        }
+    }
+
+    /**
+     * 父节点及其祖先节点均已存在
+     */
+    private static void markExists(Map<String, Boolean> existsMap, String path) {
+        for (String current = path; !"/".equals(current); current = getParentPath(current)) {
+            existsMap.put(current, Boolean.TRUE);
+        }
+        existsMap.put("/", Boolean.TRUE);
+    }
+
+    private static String getParentPath(String path) {
+        int index = path.lastIndexOf('/');
+        return index <= 0 ? "/" : path.substring(0, index);
+    }
+
+    private CuratorOp toCuratorOp(ZkOperation.Type type, ZkOperation operation) throws Exception {
+        switch (type) {
+            case CREATE:
+                return curatorFramework.transactionOp().create().withMode(operation.getCreateMode()).forPath(operation.getPath(), ZkCodecs.encode(codec, operation.getDataBytes()));
+            case SET_DATA:
+                return curatorFramework.transactionOp().setData().forPath(operation.getPath(), ZkCodecs.encode(codec, operation.getDataBytes()));
+            case DELETE:
+                return curatorFramework.transactionOp().delete().forPath(operation.getPath());
+            default:
+                throw new IllegalArgumentException(MessageUtil.format("unknown operation type", "type", type));
+        }
+    }
+
+    /**
+     * 逐个执行, 节点已存在的创建与节点不存在的删除记为失败
+     */
+    private boolean execute(ZkOperation operation) {
+        switch (operation.getType()) {
+            case CREATE:
+                return createNode(operation.getPath(), operation.getData(), operation.getCreateMode()) != null;
+            case SET_DATA:
+                return createNodeWithData(operation.getPath(), operation.getData(), operation.getCreateMode()) != null;
+            default:
+                return delete(operation.getPath());
+        }
+    }
+
+    /**
+     * 提交异步请求, 超过MAX_IN_FLIGHT时排队(不阻塞调用线程)
+     * 失败时future以KeeperException结束, 回调在zookeeper事件线程执行
+     */
+    private <T> CompletableFuture<T> submit(String operationName, String path, BackgroundOperation operation, Function<CuratorEvent, T> resultMapper) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        pendingOperations.offer(() -> {
+            future.whenComplete((result, throwable) -> {
+                inFlightSemaphore.release();
+                drainPendingOperations();
+            });
+            if (future.isDone()) {
+                return;
+            }
+
+            long startNanos = metricsStartNanos();
+            BackgroundCallback callback = (client, event) -> {
+                recordLatency(operationName, path, startNanos);
+                KeeperException keeperException = complete(future, event, resultMapper);
+                if (keeperException != null) {
+                    recordError(operationName, path, keeperException);
+                }
+            };
+
+            try {
+                operation.execute(callback);
+            } catch (Exception e) {
+                recordError(operationName, path, e);
+                future.completeExceptionally(e);
+            }
+        });
+        drainPendingOperations();
+        return future;
+    }
+
+    /**
+     * 按后台请求结果结束future
+     *
+     * @return 请求失败时的KeeperException, 成功时返回null
+     */
+    private static <T> KeeperException complete(CompletableFuture<T> future, CuratorEvent event, Function<CuratorEvent, T> resultMapper) {
+        KeeperException.Code code = KeeperException.Code.get(event.getResultCode());
+        if (code != KeeperException.Code.OK) {
+            KeeperException keeperException = KeeperException.create(code, event.getPath());
+            future.completeExceptionally(keeperException);
+            return keeperException;
+        }
+
+        try {
+            future.complete(resultMapper.apply(event));
+        } catch (Exception e) {
+            future.completeExceptionally(e);
+        }
+        return null;
+    }
+
+    /**
+     * 同步请求
+     * zookeeper客户端的同步请求在synchronized中等待响应, 虚拟线程会固定载体线程; 虚拟线程中改为后台请求并等待future(不固定载体线程)
+     * 平台线程(含zookeeper事件线程中的watcher回调)仍走同步请求
+     */
+    private <T> T forPath(SyncOperation<T> syncOperation, BackgroundOperation backgroundOperation, Function<CuratorEvent, T> resultMapper) throws Exception {
+        if (!ZkExecutors.isVirtualThread()) {
+            return syncOperation.execute();
+        }
+
+        CompletableFuture<T> future = new CompletableFuture<>();
+        backgroundOperation.execute((client, event) -> complete(future, event, resultMapper));
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof Exception ? (Exception) cause : e;
+        }
+    }
+
+    /**
+     * 写请求结束(成功或失败)后、结果返回调用方之前删除相关读缓存, 保证读己之写
+     *
+     * @param tree true 删除请求, 同时删除子孙节点的缓存
+     */
+    private BackgroundOperation invalidating(String path, boolean tree, BackgroundOperation operation) {
+        if (readCache == null) {
+            return operation;
+        }
+        return callback -> operation.execute((client, event) -> {
+            if (tree) {
+                readCache.invalidateTree(path);
+            } else {
+                readCache.invalidate(path);
+            }
+            callback.processResult(client, event);
+        });
+    }
+
+    private void invalidateReadCache(String path) {
+        if (readCache != null) {
+            readCache.invalidate(path);
+        }
+    }
+
+    private void invalidateReadCacheTree(String path) {
+        if (readCache != null) {
+            readCache.invalidateTree(path);
+        }
+    }
+
+    /**
+     * 节点状态, 节点不存在时返回null
+     */
+    private Stat checkExistsStat(String path) throws Exception {
+        try {
+            return forPath(() -> curatorFramework.checkExists().forPath(path), callback -> curatorFramework.checkExists().inBackground(callback).forPath(path), CuratorEvent::getStat);
+        } catch (KeeperException.NoNodeException e) {
+            return null;
+        }
+    }
+
+    private void drainPendingOperations() {
+        while (!pendingOperations.isEmpty() && inFlightSemaphore.tryAcquire()) {
+            Runnable operation = pendingOperations.poll();
+            if (operation == null) {
+                inFlightSemaphore.release();
+                continue;
+            }
+            operation.run();
+        }
+    }
+
+    private long metricsStartNanos() {
+        return metricsEnabled ? System.nanoTime() : 0L;
+    }
+
+    private void recordLatency(String operation, String path, long startNanos) {
+        if (metricsEnabled) {
+            metrics.recordLatency(operation, path, System.nanoTime() - startNanos);
+        }
+    }
+
+    private void recordError(String operation, String path, Throwable throwable) {
+        if (metricsEnabled) {
+            metrics.recordError(operation, path, throwable instanceof KeeperException ? ((KeeperException) throwable).code() : KeeperException.Code.SYSTEMERROR);
+        }
+    }
+
+    @FunctionalInterface
+    private interface SyncOperation<T> {
+
+        T execute() throws Exception;
+    }
+
+    @FunctionalInterface
+    private interface BackgroundOperation {
+
+        void execute(BackgroundCallback callback) throws Exception;
+    }
+
+    /**
+     * 添加监听
+     * 已有缓存覆盖path(同一path或祖先path)时直接订阅该缓存, 否则新建缓存, 缓存按订阅数引用计数
+     * 新建缓存覆盖已有的子孙path缓存时接管其订阅者, 同一子树始终只有一个CuratorCache
+     */
+    public void addListener(String path, CuratorCacheListener listener, Executor executor) {
+        cacheLock.lock();
+        try {
+            SharedCuratorCache sharedCache = sharedCacheMap.values().stream().filter(cache -> cache.covers(path)).findFirst().orElse(null);
+            boolean created = Objects.isNull(sharedCache);
+            if (created) {
+                SharedCuratorCache ancestorCache = new SharedCuratorCache(curatorFramework, path, metrics);
+                List<SharedCuratorCache> descendantCaches = sharedCacheMap.values().stream().filter(cache -> ancestorCache.covers(cache.getPath())).collect(Collectors.toList());
+                for (SharedCuratorCache descendantCache : descendantCaches) {
+                    sharedCacheMap.remove(descendantCache.getPath());
+                    ancestorCache.adopt(descendantCache);
+                    listenerCacheMap.values().forEach(caches -> {
+                        if (caches.remove(descendantCache)) {
+                            caches.add(ancestorCache);
+                        }
+                    });
+                    log.info(MessageUtil.format("sharedCuratorCache promoted", "path", descendantCache.getPath(), "ancestorPath", path));
+                }
+                sharedCache = ancestorCache;
+                sharedCacheMap.put(path, sharedCache);
+            }
+
+            sharedCache.subscribe(path, listener, executor);
+            listenerCacheMap.computeIfAbsent(listener, key -> ConcurrentHashMap.newKeySet()).add(sharedCache);
+
+            if (created) {
+                sharedCache.start();
+            }
+        } finally {
+            cacheLock.unlock();
+        }
+    }
+
+    /**
+     * 删除监听(该监听订阅的所有path), 缓存没有订阅者后关闭
+     */
+    public void removeListener(CuratorCacheListener listener) {
+        cacheLock.lock();
+        try {
+            Set<SharedCuratorCache> sharedCaches = listenerCacheMap.remove(listener);
+            if (Objects.isNull(sharedCaches)) {
+                return;
+            }
+
+            for (SharedCuratorCache sharedCache : sharedCaches) {
+                if (sharedCache.unsubscribe(listener)) {
+                    sharedCacheMap.remove(sharedCache.getPath());
+                    sharedCache.close();
+                }
+            }
+        } finally {
+            cacheLock.unlock();
+        }
+    }
+
+
     /**
      * 获取子节点并给path添加监听
      */
-    public List<String> getChildrenAndAddListener(String path, CuratorListener listener) {
+    public List<String> getChildrenAndAddListener(String path, CuratorWatcher watcher) {
+        long startNanos = metricsStartNanos();
+        PendingWatcher pendingWatcher = new PendingWatcher(pendingWatchers, Boolean.TRUE, path, watcher);
         try {
-            return curatorFramework.getChildren().usingWatcher(listener).forPath(path);
+            return forPath(() -> curatorFramework.getChildren().usingWatcher(pendingWatcher).forPath(path),
+                    callback -> curatorFramework.getChildren().usingWatcher(pendingWatcher).inBackground(callback).forPath(path), CuratorEvent::getChildren);
         } catch (KeeperException.NoNodeException e) {
+            pendingWatcher.cancel();
+            recordError("getChildrenWatch", path, e);
             log.warn(MessageUtil.format("getChildrenAndAddListener node不存在", "path", path));
             return CollectionUtil.emptyList();
         } catch (Exception e) {
+            pendingWatcher.cancel();
+            recordError("getChildrenWatch", path, e);
             log.error(MessageUtil.format("getChildrenAndAddListener error", e, "path", path));
             return CollectionUtil.emptyList();
+        } finally {
+            recordLatency("getChildrenWatch", path, startNanos);
+        }
+    }
+
+    /**
+     * 节点存在时添加一次性监听(节点修改或删除时触发)
+     *
+     * @return true 节点存在且已添加监听, false 节点不存在(未添加监听)
+     */
+    public boolean watchIfExists(String path, CuratorWatcher watcher) {
+        long startNanos = metricsStartNanos();
+        PendingWatcher pendingWatcher = new PendingWatcher(pendingWatchers, Boolean.FALSE, path, watcher);
+        try {
+            forPath(() -> curatorFramework.getData().usingWatcher(pendingWatcher).forPath(path),
+                    callback -> curatorFramework.getData().usingWatcher(pendingWatcher).inBackground(callback).forPath(path), CuratorEvent::getData);
+            return Boolean.TRUE;
+        } catch (KeeperException.NoNodeException e) {
+            pendingWatcher.cancel();
+            recordError("getDataWatch", path, e);
+            return Boolean.FALSE;
+        } catch (Exception e) {
+            pendingWatcher.cancel();
+            recordError("getDataWatch", path, e);
+            log.error(MessageUtil.format("watchIfExists error", e, "path", path));
+            return Boolean.FALSE;
+        } finally {
+            recordLatency("getDataWatch", path, startNanos);
         }
     }
 
@@ -196,7 +1342,144 @@ public class ZkClient {
      * 关闭客户端
      */
     public void close() {
-        curatorCacheMap.values().forEach(CuratorCache::close);
+        sharedCacheMap.values().forEach(SharedCuratorCache::close);
         curatorFramework.close();
+        pendingWatchers.clear();
+        if (sessionListenerExecutor instanceof ExecutorService) {
+            ((ExecutorService) sessionListenerExecutor).shutdown();
+        }
+    }
+
+    /**
+     * ZkClient构造器, 未设置的参数使用默认值
+     */
+    public static class Builder {
+
+        private String connectString = "127.0.0.1:2181";
+
+        private String chroot;
+
+        private String namespace;
+
+        private int sessionTimeoutMs = 60_000;
+
+        private int connectionTimeoutMs = 15_000;
+
+        private int baseSleepTimeMs = 1_000;
+
+        private int maxRetries = 3;
+
+        private int maxSleepTimeMs = 10_000;
+
+        private long readyTimeoutMs = CONNECT_TIMEOUT_MS;
+
+        private ZkCodec codec = ZkCodecs.PLAIN;
+
+        private ZkMetrics metrics = ZkMetrics.NOOP;
+
+        private boolean virtualThreads;
+
+        private long readCacheMaxBytes;
+
+        private Builder() {
+        }
+
+        /**
+         * 集群地址, 如 host1:2181,host2:2181
+         */
+        public Builder connectString(String connectString) {
+            this.connectString = connectString;
+            return this;
+        }
+
+        /**
+         * 根路径, 追加在集群地址之后, 与namespace叠加生效
+         */
+        public Builder chroot(String chroot) {
+            this.chroot = chroot;
+            return this;
+        }
+
+        public Builder namespace(String namespace) {
+            this.namespace = namespace;
+            return this;
+        }
+
+        /**
+         * 会话超时时间, 需大于应用最长GC停顿
+         */
+        public Builder sessionTimeoutMs(int sessionTimeoutMs) {
+            this.sessionTimeoutMs = sessionTimeoutMs;
+            return this;
+        }
+
+        public Builder connectionTimeoutMs(int connectionTimeoutMs) {
+            this.connectionTimeoutMs = connectionTimeoutMs;
+            return this;
+        }
+
+        /**
+         * 指数退避重试
+         */
+        public Builder retry(int baseSleepTimeMs, int maxRetries, int maxSleepTimeMs) {
+            this.baseSleepTimeMs = baseSleepTimeMs;
+            this.maxRetries = maxRetries;
+            this.maxSleepTimeMs = maxSleepTimeMs;
+            return this;
+        }
+
+        /**
+         * 构造时等待连接的最长时间, 小于等于0时不等待
+         */
+        public Builder readyTimeoutMs(long readyTimeoutMs) {
+            this.readyTimeoutMs = readyTimeoutMs;
+            return this;
+        }
+
+        /**
+         * 写入时使用的压缩算法, 如 ZkCodecs.DEFLATE, 默认不压缩
+         */
+        public Builder codec(ZkCodec codec) {
+            this.codec = codec;
+            return this;
+        }
+
+        /**
+         * 指标实现, 如 new HistogramZkMetrics(), 默认不统计
+         */
+        public Builder metrics(ZkMetrics metrics) {
+            this.metrics = metrics;
+            return this;
+        }
+
+        /**
+         * 监听回调/后台刷新使用虚拟线程(JDK 21+, 低版本JDK忽略), 默认关闭
+         */
+        public Builder virtualThreads(boolean virtualThreads) {
+            this.virtualThreads = virtualThreads;
+            return this;
+        }
+
+        /**
+         * 启用doGetContent/getChildren读缓存, 缓存占用内存上限(字节, 按数据长度估算), 小于等于0时不启用(默认)
+         */
+        public Builder readCacheMaxBytes(long readCacheMaxBytes) {
+            this.readCacheMaxBytes = readCacheMaxBytes;
+            return this;
+        }
+
+        private String getConnectString() {
+            if (StringUtil.isEmpty(chroot) || "/".equals(chroot)) {
+                return connectString;
+            }
+            return connectString + (chroot.startsWith("/") ? chroot : "/" + chroot);
+        }
+
+        public ZkClient build() {
+            if (StringUtil.isEmpty(connectString)) {
+                throw new BusinessException("zkClient connectString不能为空");
+            }
+            return new ZkClient(this);
+        }
     }
 }
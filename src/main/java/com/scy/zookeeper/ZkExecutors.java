@@ -0,0 +1,156 @@
+package com.scy.zookeeper;
+
+import com.scy.core.format.MessageUtil;
+import com.scy.core.thread.ThreadPoolUtil;
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * ZkExecutors
+ * 监听回调/后台刷新使用的线程池, 启用虚拟线程且JDK支持(21+)时使用虚拟线程, 否则使用ThreadPoolUtil的平台线程池
+ * 虚拟线程相关API通过反射调用, 在低版本JDK上编译运行不受影响
+ *
+ * @author shichunyang
+ * Created by shichunyang on 2026/10/17.
+ */
+@Slf4j
+public final class ZkExecutors {
+
+    /**
+     * Thread.ofVirtual()
+     */
+    private static final MethodHandle OF_VIRTUAL;
+
+    /**
+     * Thread.Builder.name(String prefix, long start)
+     */
+    private static final MethodHandle BUILDER_NAME;
+
+    /**
+     * Thread.Builder.factory()
+     */
+    private static final MethodHandle BUILDER_FACTORY;
+
+    /**
+     * Thread.isVirtual()
+     */
+    private static final MethodHandle IS_VIRTUAL;
+
+    /**
+     * Executors.newThreadPerTaskExecutor(ThreadFactory)
+     */
+    private static final MethodHandle NEW_THREAD_PER_TASK_EXECUTOR;
+
+    private static final boolean VIRTUAL_THREAD_SUPPORTED;
+
+    static {
+        MethodHandle ofVirtual = null;
+        MethodHandle builderName = null;
+        MethodHandle builderFactory = null;
+        MethodHandle isVirtual = null;
+        MethodHandle newThreadPerTaskExecutor = null;
+        boolean supported = Boolean.FALSE;
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            Class<?> ofVirtualClass = Class.forName("java.lang.Thread$Builder$OfVirtual");
+            ofVirtual = lookup.findStatic(Thread.class, "ofVirtual", MethodType.methodType(ofVirtualClass));
+            builderName = lookup.findVirtual(builderClass, "name", MethodType.methodType(builderClass, String.class, long.class));
+            builderFactory = lookup.findVirtual(builderClass, "factory", MethodType.methodType(ThreadFactory.class));
+            isVirtual = lookup.findVirtual(Thread.class, "isVirtual", MethodType.methodType(boolean.class));
+            newThreadPerTaskExecutor = lookup.findStatic(Executors.class, "newThreadPerTaskExecutor", MethodType.methodType(ExecutorService.class, ThreadFactory.class));
+
+            // JDK 19/20 未开启preview时ofVirtual()抛出UnsupportedOperationException
+            ofVirtual.invoke();
+            supported = Boolean.TRUE;
+        } catch (Throwable e) {
+            log.info(MessageUtil.format("virtual thread not supported", "javaVersion", System.getProperty("java.version")));
+        }
+        OF_VIRTUAL = ofVirtual;
+        BUILDER_NAME = builderName;
+        BUILDER_FACTORY = builderFactory;
+        IS_VIRTUAL = isVirtual;
+        NEW_THREAD_PER_TASK_EXECUTOR = newThreadPerTaskExecutor;
+        VIRTUAL_THREAD_SUPPORTED = supported;
+    }
+
+    private ZkExecutors() {
+    }
+
+    public static boolean isVirtualThreadSupported() {
+        return VIRTUAL_THREAD_SUPPORTED;
+    }
+
+    /**
+     * 当前线程是否为虚拟线程
+     */
+    public static boolean isVirtualThread() {
+        if (!VIRTUAL_THREAD_SUPPORTED) {
+            return Boolean.FALSE;
+        }
+
+        try {
+            return (boolean) IS_VIRTUAL.invoke(Thread.currentThread());
+        } catch (Throwable e) {
+            return Boolean.FALSE;
+        }
+    }
+
+    /**
+     * 虚拟线程工厂, 线程名为 name-序号
+     *
+     * @return 不支持虚拟线程时返回null
+     */
+    public static ThreadFactory virtualThreadFactory(String name) {
+        if (!VIRTUAL_THREAD_SUPPORTED) {
+            return null;
+        }
+
+        try {
+            Object builder = OF_VIRTUAL.invoke();
+            builder = BUILDER_NAME.invoke(builder, name + "-", 0L);
+            return (ThreadFactory) BUILDER_FACTORY.invoke(builder);
+        } catch (Throwable e) {
+            log.error(MessageUtil.format("virtualThreadFactory error", e, "name", name));
+            return null;
+        }
+    }
+
+    /**
+     * 任务线程池
+     *
+     * @param virtual true 每个任务一个虚拟线程(不限并发, 不排队); 不支持时退化为平台线程池
+     */
+    public static Executor getThreadPool(String name, int corePoolSize, int maximumPoolSize, int queueSize, boolean virtual) {
+        ThreadFactory threadFactory = virtual ? virtualThreadFactory(name) : null;
+        if (threadFactory != null) {
+            try {
+                return (ExecutorService) NEW_THREAD_PER_TASK_EXECUTOR.invoke(threadFactory);
+            } catch (Throwable e) {
+                log.error(MessageUtil.format("newThreadPerTaskExecutor error", e, "name", name));
+            }
+        }
+        return ThreadPoolUtil.getThreadPool(name, corePoolSize, maximumPoolSize, queueSize);
+    }
+
+    /**
+     * 定时任务线程池
+     *
+     * @param virtual true 调度线程与任务执行线程均为虚拟线程; 不支持时退化为平台线程池
+     */
+    public static ScheduledThreadPoolExecutor getScheduledPool(String name, int corePoolSize, boolean virtual) {
+        ThreadFactory threadFactory = virtual ? virtualThreadFactory(name) : null;
+        if (threadFactory != null) {
+            return new ScheduledThreadPoolExecutor(corePoolSize, threadFactory);
+        }
+        return ThreadPoolUtil.getScheduledPool(name, corePoolSize);
+    }
+}
@@ -1,21 +1,18 @@
 package com.scy.zookeeper;
 
 import com.scy.core.ObjectUtil;
-import com.scy.core.StringUtil;
-import com.scy.core.format.DateUtil;
 import com.scy.core.format.MessageUtil;
 import com.scy.core.thread.ThreadLocalUtil;
-import com.scy.zookeeper.listener.CuratorListener;
-import com.scy.zookeeper.listener.DataListener;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.zookeeper.CreateMode;
 
-import java.util.concurrent.CountDownLatch;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
 
 /**
  * ZkLock
+ * 按key加锁, 当前线程持有的锁按栈记录, unlock释放最近一次加的锁
  *
  * @author shichunyang
  * Created by shichunyang on 2020/10/5.
@@ -27,64 +24,64 @@ public class ZkLock {
 
     public static final String ZK_LOCK_PATH = "zk_lock_path";
 
-    private final ZkClient zkClient;
+    /**
+     * 公平锁根节点, 每个key下为EPHEMERAL_SEQUENTIAL子节点
+     */
+    public static final String FAIR_LOCK_BASE_PATH = "/distributedfairlocks/";
 
-    private final Executor executor;
-
-    private CuratorListener curatorListener;
-
-    private volatile CountDownLatch countDownLatch;
+    private final ZkLockManager zkLockManager;
 
+    /**
+     * @param executor 已不再使用(等待者通过watcher唤醒, 不再为每个等待者启动缓存监听), 保留以兼容旧的构造方式
+     */
     public ZkLock(ZkClient zkClient, Executor executor) {
-        this.zkClient = zkClient;
-        this.executor = executor;
+        this(zkClient, executor, Boolean.FALSE);
     }
 
-    public void lock(String key) {
-        String path = LOCK_BASE_PATH + key;
-        ThreadLocalUtil.put(ZK_LOCK_PATH, path);
+    public ZkLock(ZkClient zkClient, Executor executor, boolean fair) {
+        this(zkClient.getLockManager(fair));
+    }
 
-        this.countDownLatch = new CountDownLatch(1);
-        this.curatorListener = new CuratorListener(zkClient, new DataListener() {
+    public ZkLock(ZkLockManager zkLockManager) {
+        this.zkLockManager = zkLockManager;
+    }
 
-            @Override
-            public void delete(String deletePath, String data) {
-                if (!ObjectUtil.equals(path, deletePath)) {
-                    return;
-                }
-                if (countDownLatch != null) {
-                    countDownLatch.countDown();
-                }
-            }
-        });
-        zkClient.addListener(path, curatorListener, executor);
+    public void lock(String key) {
+        ZkReentrantLock lock = zkLockManager.getLock(key);
+        lock.lock();
+        getHeldLocks().push(lock);
+    }
 
-        int count = 1;
-        while (true) {
-            try {
-                String lockNode = zkClient.createNode(path, DateUtil.getCurrentDateStr(), CreateMode.EPHEMERAL);
-                if (!StringUtil.isEmpty(lockNode)) {
-                    log.info(MessageUtil.format("zk lock success", "path", path, "count", count));
-                    return;
-                }
-                this.countDownLatch.await(30_000, TimeUnit.MILLISECONDS);
-            } catch (InterruptedException e) {
-                log.warn(MessageUtil.format("zk lock interrupted", "path", path, "count", count));
-            } finally {
-                this.countDownLatch = new CountDownLatch(1);
-            }
-            count++;
+    /**
+     * 限时加锁
+     *
+     * @return true 加锁成功
+     */
+    public boolean tryLock(String key, long timeout, TimeUnit unit) throws InterruptedException {
+        ZkReentrantLock lock = zkLockManager.getLock(key);
+        if (!lock.tryLock(timeout, unit)) {
+            return Boolean.FALSE;
         }
+        getHeldLocks().push(lock);
+        return Boolean.TRUE;
     }
 
     public void unlock() {
-        this.countDownLatch = null;
-
-        String lockPath = (String) ThreadLocalUtil.get(ZK_LOCK_PATH);
-        zkClient.delete(lockPath);
+        ZkReentrantLock lock = getHeldLocks().poll();
+        if (ObjectUtil.isNull(lock)) {
+            log.warn(MessageUtil.format("zk unlock, 当前线程未持有锁"));
+            return;
+        }
+        lock.unlock();
+    }
 
-        if (!ObjectUtil.isNull(this.curatorListener)) {
-            zkClient.removeListener(this.curatorListener);
+    @SuppressWarnings("unchecked")
+    private static Deque<ZkReentrantLock> getHeldLocks() {
+        Deque<ZkReentrantLock> heldLocks = (Deque<ZkReentrantLock>) ThreadLocalUtil.get(ZK_LOCK_PATH);
+        if (ObjectUtil.isNull(heldLocks)) {
+            heldLocks = new ArrayDeque<>();
+            ThreadLocalUtil.put(ZK_LOCK_PATH, heldLocks);
         }
+        return heldLocks;
     }
 }
@@ -0,0 +1,82 @@
+package com.scy.zookeeper;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * ZkLockManager
+ * 按key分配ZkReentrantLock, 同一key在JVM内共用一个实例
+ * 被持有或有线程等待的实例强引用保留, 空闲且无引用后才可被回收
+ * 同一JVM内的竞争者在本地排队, 每个key只有一个线程访问zookeeper; 同一ZkClient应共用一个实例(ZkClient.getLockManager)
+ *
+ * @author shichunyang
+ * Created by shichunyang on 2026/10/17.
+ */
+public class ZkLockManager {
+
+    /**
+     * 默认的连续本地移交最大次数
+     */
+    public static final int DEFAULT_MAX_LOCAL_HANDOFFS = 16;
+
+    private final LoadingCache<String, ZkReentrantLock> lockCache;
+
+    /**
+     * 被持有或有等待者的锁, key -> 锁
+     */
+    private final Map<String, ZkReentrantLock> activeLocks = new ConcurrentHashMap<>();
+
+    public ZkLockManager(ZkClient zkClient) {
+        this(zkClient, Boolean.FALSE);
+    }
+
+    /**
+     * @param fair true 公平锁(顺序节点排队, 释放时只唤醒下一个等待者)
+     */
+    public ZkLockManager(ZkClient zkClient, boolean fair) {
+        this(zkClient, fair, DEFAULT_MAX_LOCAL_HANDOFFS);
+    }
+
+    /**
+     * @param fair             true 公平锁(顺序节点排队, 释放时只唤醒下一个等待者)
+     * @param maxLocalHandoffs 同一JVM内连续本地移交的最大次数, 达到后释放zookeeper节点让其他JVM竞争, 默认DEFAULT_MAX_LOCAL_HANDOFFS
+     */
+    public ZkLockManager(ZkClient zkClient, boolean fair, int maxLocalHandoffs) {
+        this.lockCache = CacheBuilder.newBuilder().weakValues().build(new CacheLoader<String, ZkReentrantLock>() {
+            @Override
+            public ZkReentrantLock load(String key) {
+                return new ZkReentrantLock(zkClient, key, fair, maxLocalHandoffs, ZkLockManager.this);
+            }
+        });
+    }
+
+    public ZkReentrantLock getLock(String key) {
+        ZkReentrantLock lock = activeLocks.get(key);
+        return lock != null ? lock : lockCache.getUnchecked(key);
+    }
+
+    /**
+     * 开始获取锁(包括重入)时调用, 持有/等待期间保留强引用
+     */
+    void retain(ZkReentrantLock lock) {
+        activeLocks.compute(lock.getKey(), (key, activeLock) -> {
+            lock.users++;
+            return lock;
+        });
+    }
+
+    /**
+     * 获取失败或释放一次时调用, 没有持有者和等待者后取消强引用
+     */
+    void release(ZkReentrantLock lock) {
+        activeLocks.compute(lock.getKey(), (key, activeLock) -> --lock.users > 0 ? lock : null);
+    }
+
+    int getActiveLockCount() {
+        return activeLocks.size();
+    }
+}
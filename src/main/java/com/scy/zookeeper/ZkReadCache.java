@@ -0,0 +1,204 @@
+package com.scy.zookeeper;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.Weigher;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.scy.core.format.MessageUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.zookeeper.WatchedEvent;
+import org.apache.zookeeper.Watcher;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * ZkReadCache
+ * doGetContent/getChildren的本地读缓存, 未命中时读取zookeeper并注册一次性watch, watch触发时删除缓存
+ * 本客户端的写入完成后立即删除相关缓存(读己之写); 其他客户端的写入在watch通知到达后生效
+ * 按估算的内存字节数淘汰(Guava近似LRU), 节点数据与子节点缓存各占一半容量; 节点不存在时不缓存
+ *
+ * @author shichunyang
+ * Created by shichunyang on 2026/10/17.
+ */
+@Slf4j
+class ZkReadCache implements Watcher {
+
+    /**
+     * 失效版本的分段数(2的幂)
+     */
+    static final int VERSION_STRIPES = 1024;
+
+    /**
+     * 单个缓存条目的固定开销(对象头/引用/Guava节点)估算, 字节
+     */
+    static final int ENTRY_OVERHEAD = 64;
+
+    /**
+     * 子节点列表中每个元素的固定开销估算, 字节
+     */
+    static final int CHILD_OVERHEAD = 40;
+
+    private static final Weigher<String, String> CONTENT_WEIGHER = (path, content) -> weigh(ENTRY_OVERHEAD + 2L * (path.length() + content.length()));
+
+    private static final Weigher<String, List<String>> CHILDREN_WEIGHER = (path, children) -> {
+        long weight = ENTRY_OVERHEAD + 2L * path.length();
+        for (String child : children) {
+            weight += CHILD_OVERHEAD + 2L * child.length();
+        }
+        return weigh(weight);
+    };
+
+    /**
+     * path -> 节点数据(已解码)
+     */
+    private final Cache<String, String> contentCache;
+
+    /**
+     * path -> 子节点(只读)
+     */
+    private final Cache<String, List<String>> childrenCache;
+
+    /**
+     * path按hash分段的失效版本, 读取期间所在分段发生过失效则丢弃读取结果, 避免旧数据覆盖失效
+     * 分段数固定, 不随path数量增长; 不同path落在同一分段时只会多丢弃一次读取结果
+     */
+    private final AtomicLongArray versions = new AtomicLongArray(VERSION_STRIPES);
+
+    /**
+     * 子树/全部失效的次数, 影响所有path
+     */
+    private final AtomicLong epoch = new AtomicLong();
+
+    /**
+     * @param maxBytes 缓存占用内存上限(估算, 按字符数*2加固定开销计算), 节点数据与子节点缓存各占一半
+     */
+    ZkReadCache(long maxBytes) {
+        long maximumWeight = Math.max(maxBytes / 2, 1L);
+        this.contentCache = CacheBuilder.newBuilder().maximumWeight(maximumWeight).weigher(CONTENT_WEIGHER).recordStats().build();
+        this.childrenCache = CacheBuilder.newBuilder().maximumWeight(maximumWeight).weigher(CHILDREN_WEIGHER).recordStats().build();
+    }
+
+    private static int weigh(long weight) {
+        return (int) Math.min(weight, Integer.MAX_VALUE);
+    }
+
+    String getContent(String path, Callable<String> loader) throws Exception {
+        return get(contentCache, path, loader);
+    }
+
+    List<String> getChildren(String path, Callable<List<String>> loader) throws Exception {
+        return get(childrenCache, path, () -> Collections.unmodifiableList(loader.call()));
+    }
+
+    /**
+     * 同一path并发未命中时只读取一次
+     */
+    private <T> T get(Cache<String, T> cache, String path, Callable<T> loader) throws Exception {
+        int stripe = stripe(path);
+        long version = versions.get(stripe);
+        long epochBefore = epoch.get();
+        T value;
+        try {
+            value = cache.get(path, loader);
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof Exception ? (Exception) cause : e;
+        }
+        if (versions.get(stripe) != version || epoch.get() != epochBefore) {
+            // 只删除本次得到的值, 不影响失效后其他线程重新读取的结果
+            cache.asMap().remove(path, value);
+        }
+        return value;
+    }
+
+    private void bump(String path) {
+        versions.incrementAndGet(stripe(path));
+    }
+
+    private static int stripe(String path) {
+        int hash = path.hashCode();
+        return (hash ^ (hash >>> 16)) & (VERSION_STRIPES - 1);
+    }
+
+    /**
+     * 节点被创建/修改: 删除节点数据及所有祖先节点的子节点缓存
+     */
+    void invalidate(String path) {
+        bump(path);
+        contentCache.invalidate(path);
+        invalidateAncestors(path);
+    }
+
+    /**
+     * 节点被删除(包括子孙节点)
+     */
+    void invalidateTree(String path) {
+        epoch.incrementAndGet();
+        String prefix = path + "/";
+        contentCache.asMap().keySet().removeIf(key -> key.equals(path) || key.startsWith(prefix));
+        childrenCache.asMap().keySet().removeIf(key -> key.equals(path) || key.startsWith(prefix));
+        invalidateAncestors(path);
+    }
+
+    /**
+     * 连接断开/会话变化时watch可能丢失, 清空缓存
+     */
+    void invalidateAll() {
+        epoch.incrementAndGet();
+        contentCache.invalidateAll();
+        childrenCache.invalidateAll();
+    }
+
+    private void invalidateAncestors(String path) {
+        int index = path.lastIndexOf('/');
+        while (index >= 0) {
+            String parent = index == 0 ? "/" : path.substring(0, index);
+            bump(parent);
+            childrenCache.invalidate(parent);
+            index = index == 0 ? -1 : path.lastIndexOf('/', index - 1);
+        }
+    }
+
+    long size() {
+        return contentCache.size() + childrenCache.size();
+    }
+
+    /**
+     * 命中/未命中统计(节点数据与子节点合计)
+     */
+    CacheStats stats() {
+        return contentCache.stats().plus(childrenCache.stats());
+    }
+
+    @Override
+    public void process(WatchedEvent event) {
+        String path = event.getPath();
+        if (path == null) {
+            return;
+        }
+
+        bump(path);
+        switch (event.getType()) {
+            case NodeDataChanged:
+            case NodeCreated:
+                contentCache.invalidate(path);
+                break;
+            case NodeChildrenChanged:
+                childrenCache.invalidate(path);
+                break;
+            case NodeDeleted:
+                contentCache.invalidate(path);
+                childrenCache.invalidate(path);
+                break;
+            default:
+                log.debug(MessageUtil.format("zkReadCache ignore event", "path", path, "type", event.getType()));
+                break;
+        }
+    }
+}
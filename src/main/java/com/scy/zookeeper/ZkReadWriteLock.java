@@ -0,0 +1,50 @@
+package com.scy.zookeeper;
+
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+
+/**
+ * ZkReadWriteLock
+ * 分布式读写锁: 读锁之间不互斥, 只等待排在前面的最后一个写锁; 写锁等待前一个节点(读或写)
+ * 持有写锁时可以再获取读锁(降级, 读锁不等待自己持有的写锁), 之后释放写锁仍持有读锁
+ * 不支持持有读锁时升级为写锁(写锁会等待自己的读锁节点, 一直阻塞)
+ *
+ * @author shichunyang
+ * Created by shichunyang on 2026/10/17.
+ */
+public class ZkReadWriteLock implements ReadWriteLock {
+
+    public static final String READ_WRITE_LOCK_BASE_PATH = "/distributedrwlocks/";
+
+    private static final String READ_NODE_PREFIX = "read-";
+
+    private static final String WRITE_NODE_PREFIX = "write-";
+
+    private final ZkSequentialLock readLock;
+
+    private final ZkSequentialLock writeLock;
+
+    public ZkReadWriteLock(ZkClient zkClient, String key) {
+        String lockPath = READ_WRITE_LOCK_BASE_PATH + key;
+        this.writeLock = new ZkSequentialLock(zkClient, lockPath, WRITE_NODE_PREFIX, ZkSequentialLock.PREDECESSOR_RULE);
+        this.readLock = new ZkSequentialLock(zkClient, lockPath, READ_NODE_PREFIX, (children, index) -> {
+            for (int i = index - 1; i >= 0; i--) {
+                if (ZkSequentialLock.hasPrefix(children.get(i), WRITE_NODE_PREFIX)) {
+                    // 当前线程持有的写锁(降级)不需要等待, 写锁持有时前面没有其他节点
+                    return children.get(i).equals(writeLock.getHeldNodeName()) ? null : children.get(i);
+                }
+            }
+            return null;
+        });
+    }
+
+    @Override
+    public Lock readLock() {
+        return readLock;
+    }
+
+    @Override
+    public Lock writeLock() {
+        return writeLock;
+    }
+}
@@ -0,0 +1,371 @@
+package com.scy.zookeeper;
+
+import com.scy.core.StringUtil;
+import com.scy.core.format.DateUtil;
+import com.scy.core.format.MessageUtil;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.zookeeper.CreateMode;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * ZkReentrantLock
+ * 单个key的分布式可重入锁, 由ZkLockManager创建, 同一JVM内同一key共用一个实例
+ * 同一JVM内的竞争者先在本地公平锁上排队, 只有队首线程访问zookeeper, 释放时若本地仍有等待者则直接移交(不删除zookeeper节点)
+ * 移交期间(handoffPending)节点无本地持有者, 由接手的等待者清除标记; 等待者超时/中断离开时若无人接手, 由其在localLock下删除节点
+ * 非公平锁节点数据带本次获取的唯一标识, 创建请求失败但服务端已创建(如ConnectionLoss/中断)时据此接管或删除, 不残留无人持有的节点
+ * 移交前检查节点所属会话仍是当前会话, 会话已过期(节点已被删除, 可能已被其他JVM持有)时放弃节点重新竞争
+ * 重入只在本地计数, 不访问zookeeper
+ *
+ * @author shichunyang
+ * Created by shichunyang on 2026/10/17.
+ */
+@Slf4j
+public class ZkReentrantLock implements Lock {
+
+    private static final String FAIR_LOCK_NODE_PREFIX = "lock-";
+
+    private final ZkClient zkClient;
+
+    @Getter
+    private final String key;
+
+    private final boolean fair;
+
+    /**
+     * 连续本地移交的最大次数, 达到后释放zookeeper节点, 避免单个JVM长期占用
+     */
+    private final int maxLocalHandoffs;
+
+    /**
+     * 本地排队锁, 持有者即当前JVM内唯一的zookeeper竞争者/持有者
+     */
+    private final ReentrantLock localLock = new ReentrantLock(Boolean.TRUE);
+
+    /**
+     * 当前JVM持有的zookeeper节点, 只有localLock持有者读写
+     */
+    private String lockNode;
+
+    /**
+     * 当前zookeeper节点已连续本地移交的次数, 只有localLock持有者读写
+     */
+    private int localHandoffs;
+
+    /**
+     * lockNode所属的会话id, 只有localLock持有者读写
+     */
+    private long lockSessionId;
+
+    /**
+     * 已释放localLock但保留zookeeper节点等待本地等待者接手, 由接手者或最后离开的等待者(持有localLock时)清除
+     */
+    private volatile boolean handoffPending;
+
+    /**
+     * 正在localLock上等待的线程数, 与handoffPending配合判断移交是否有人接手(不依赖AQS队列中可能残留的已取消节点)
+     */
+    private final AtomicInteger localWaiters = new AtomicInteger();
+
+    private final ZkLockManager lockManager;
+
+    /**
+     * 持有次数与等待线程数之和, 大于0时ZkLockManager保留强引用, 只在ZkLockManager中修改
+     */
+    int users;
+
+    ZkReentrantLock(ZkClient zkClient, String key, boolean fair, int maxLocalHandoffs, ZkLockManager lockManager) {
+        this.zkClient = zkClient;
+        this.key = key;
+        this.fair = fair;
+        this.maxLocalHandoffs = maxLocalHandoffs;
+        this.lockManager = lockManager;
+    }
+
+    @Override
+    public void lock() {
+        try {
+            acquire(-1L, Boolean.FALSE);
+        } catch (InterruptedException e) {
+            // 不响应中断时不会抛出
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void lockInterruptibly() throws InterruptedException {
+        acquire(-1L, Boolean.TRUE);
+    }
+
+    @Override
+    public boolean tryLock() {
+        try {
+            return acquire(0L, Boolean.FALSE);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Boolean.FALSE;
+        }
+    }
+
+    @Override
+    public boolean tryLock(long time, TimeUnit unit) throws InterruptedException {
+        return acquire(Math.max(unit.toNanos(time), 0L), Boolean.TRUE);
+    }
+
+    @Override
+    public void unlock() {
+        if (!localLock.isHeldByCurrentThread()) {
+            throw new IllegalMonitorStateException(MessageUtil.format("zk lock not held by current thread", "key", key));
+        }
+
+        try {
+            unlockHeld();
+        } finally {
+            lockManager.release(this);
+        }
+    }
+
+    private void unlockHeld() {
+        if (localLock.getHoldCount() > 1) {
+            localLock.unlock();
+            return;
+        }
+
+        // 先标记再检查等待者, 与等待者先减少计数再检查标记对应, 保证等待者离开时至少一方负责删除节点
+        handoffPending = Boolean.TRUE;
+        if (localWaiters.get() > 0 && localHandoffs < maxLocalHandoffs) {
+            // 本地仍有等待者, 保留zookeeper节点直接移交
+            localLock.unlock();
+            return;
+        }
+
+        handoffPending = Boolean.FALSE;
+        releaseNode();
+        localLock.unlock();
+    }
+
+    @Override
+    public Condition newCondition() {
+        throw new UnsupportedOperationException("zk lock does not support condition");
+    }
+
+    public boolean isHeldByCurrentThread() {
+        return localLock.isHeldByCurrentThread();
+    }
+
+    public int getHoldCount() {
+        return localLock.getHoldCount();
+    }
+
+    /**
+     * 等待者超时/中断离开时移交仍未被接手: 没有其他等待者则删除zookeeper节点, 否则留给其他等待者
+     * localLock被占用时持有者是接手者(会清除标记)或另一个离开的等待者(很快释放), 不阻塞等待其释放
+     */
+    private void releaseAbandonedHandoff() {
+        while (handoffPending) {
+            if (!localLock.tryLock()) {
+                Thread.yield();
+                continue;
+            }
+            try {
+                if (handoffPending && localWaiters.get() == 0) {
+                    handoffPending = Boolean.FALSE;
+                    releaseNode();
+                }
+            } finally {
+                localLock.unlock();
+            }
+            return;
+        }
+    }
+
+    private void releaseNode() {
+        String node = lockNode;
+        lockNode = null;
+        localHandoffs = 0;
+        if (StringUtil.isEmpty(node)) {
+            return;
+        }
+        if (!isSessionAlive()) {
+            // 旧会话的临时节点已被删除, 同一path可能已由其他JVM创建, 不能再删除
+            log.warn(MessageUtil.format("zk lock session expired, skip delete", "node", node, "sessionId", Long.toHexString(lockSessionId)));
+            return;
+        }
+        ZkSequentialLock.deleteNode(zkClient, node);
+    }
+
+    /**
+     * lockNode所属会话是否仍是当前会话
+     */
+    private boolean isSessionAlive() {
+        return lockSessionId != 0 && lockSessionId == zkClient.getLiveSessionId();
+    }
+
+    /**
+     * 获取锁
+     *
+     * @param timeoutNanos  等待时间, 小于0表示一直等待
+     * @param interruptible true 响应中断
+     * @return true 获取成功
+     */
+    private boolean acquire(long timeoutNanos, boolean interruptible) throws InterruptedException {
+        lockManager.retain(this);
+        boolean acquired = Boolean.FALSE;
+        try {
+            acquired = acquireHeld(timeoutNanos, interruptible);
+            return acquired;
+        } finally {
+            if (!acquired) {
+                lockManager.release(this);
+            }
+        }
+    }
+
+    private boolean acquireHeld(long timeoutNanos, boolean interruptible) throws InterruptedException {
+        if (localLock.isHeldByCurrentThread()) {
+            localLock.lock();
+            return Boolean.TRUE;
+        }
+
+        ZkAcquireContext context = new ZkAcquireContext(key, timeoutNanos, interruptible);
+        if (!acquireLocal(timeoutNanos, interruptible)) {
+            return Boolean.FALSE;
+        }
+
+        handoffPending = Boolean.FALSE;
+        if (!StringUtil.isEmpty(lockNode)) {
+            if (isSessionAlive()) {
+                // 本地移交, 无需访问zookeeper
+                localHandoffs++;
+                return Boolean.TRUE;
+            }
+            log.warn(MessageUtil.format("zk lock session expired, drop node and contend again", "node", lockNode, "sessionId", Long.toHexString(lockSessionId)));
+            lockNode = null;
+            localHandoffs = 0;
+        }
+
+        long sessionId = zkClient.getLiveSessionId();
+        String node = null;
+        try {
+            node = fair ? acquireSequential(context) : acquireExclusive(context);
+        } finally {
+            context.restoreInterrupt();
+            if (StringUtil.isEmpty(node)) {
+                localLock.unlock();
+            }
+        }
+        if (StringUtil.isEmpty(node)) {
+            return Boolean.FALSE;
+        }
+
+        if (sessionId != zkClient.getLiveSessionId()) {
+            // 竞争期间会话发生变化, 以节点实际所属会话为准
+            sessionId = zkClient.getEphemeralOwner(node);
+        }
+        lockNode = node;
+        lockSessionId = sessionId;
+        localHandoffs = 0;
+        return Boolean.TRUE;
+    }
+
+    private boolean acquireLocal(long timeoutNanos, boolean interruptible) throws InterruptedException {
+        localWaiters.incrementAndGet();
+        boolean acquired = Boolean.FALSE;
+        try {
+            acquired = acquireLocalLock(timeoutNanos, interruptible);
+            return acquired;
+        } finally {
+            localWaiters.decrementAndGet();
+            if (!acquired && handoffPending) {
+                releaseAbandonedHandoff();
+            }
+        }
+    }
+
+    private boolean acquireLocalLock(long timeoutNanos, boolean interruptible) throws InterruptedException {
+        if (timeoutNanos >= 0) {
+            if (interruptible) {
+                return localLock.tryLock(timeoutNanos, TimeUnit.NANOSECONDS);
+            }
+            return localLock.tryLock();
+        }
+
+        if (interruptible) {
+            localLock.lockInterruptibly();
+        } else {
+            localLock.lock();
+        }
+        return Boolean.TRUE;
+    }
+
+    /**
+     * 非公平锁: 所有等待者竞争创建同一个临时节点
+     */
+    private String acquireExclusive(ZkAcquireContext context) throws InterruptedException {
+        String path = ZkLock.LOCK_BASE_PATH + key;
+        String owner = DateUtil.getCurrentDateStr() + " " + UUID.randomUUID();
+        int count = 1;
+        boolean locked = Boolean.FALSE;
+        try {
+            while (true) {
+                String node = zkClient.createNode(path, owner, CreateMode.EPHEMERAL);
+                if (StringUtil.isEmpty(node) && isOwnNode(path, owner)) {
+                    // 创建请求失败但服务端已创建
+                    log.warn(MessageUtil.format("zk lock adopt node created by failed request", "path", path, "count", count));
+                    node = path;
+                }
+                if (!StringUtil.isEmpty(node)) {
+                    log.info(MessageUtil.format("zk lock success", "path", path, "count", count));
+                    locked = Boolean.TRUE;
+                    return node;
+                }
+
+                CountDownLatch latch = new CountDownLatch(1);
+                if (zkClient.watchIfExists(path, event -> latch.countDown())) {
+                    context.await(latch, ZkAcquireContext.MAX_WAIT_MS);
+                } else {
+                    // 节点已删除时立即重试, 未连接时间隔重试
+                    context.await(new CountDownLatch(zkClient.isConnected() ? 0 : 1), ZkAcquireContext.RETRY_INTERVAL_MS);
+                }
+                if (context.isTimeout()) {
+                    return null;
+                }
+                count++;
+            }
+        } finally {
+            if (!locked && isOwnNode(path, owner)) {
+                ZkSequentialLock.deleteNode(zkClient, path);
+            }
+        }
+    }
+
+    /**
+     * 节点数据是否为本次获取写入的标识, 当前线程带中断标记时先清除再恢复
+     */
+    private boolean isOwnNode(String path, String owner) {
+        boolean interrupted = Thread.interrupted();
+        try {
+            return Arrays.equals(owner.getBytes(StandardCharsets.UTF_8), zkClient.getData(path));
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * 公平锁: 创建顺序节点, 序号最小者获得锁, 其余只监听前一个节点
+     */
+    private String acquireSequential(ZkAcquireContext context) throws InterruptedException {
+        return ZkSequentialLock.acquireNode(zkClient, ZkLock.FAIR_LOCK_BASE_PATH + key, FAIR_LOCK_NODE_PREFIX, ZkSequentialLock.PREDECESSOR_RULE, context);
+    }
+}
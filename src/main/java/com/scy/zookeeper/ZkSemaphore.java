@@ -0,0 +1,153 @@
+package com.scy.zookeeper;
+
+import com.scy.core.StringUtil;
+import com.scy.core.format.DateUtil;
+import com.scy.core.format.MessageUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.zookeeper.CreateMode;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ZkSemaphore
+ * 分布式信号量(permits个许可), 许可为leases下固定编号的临时节点
+ * 等待者先在queue下按顺序节点排队(只监听前一个节点), 只有队首监听leases变化, 每释放一个许可只唤醒一个等待者
+ * 同一key的所有客户端需使用相同的permits
+ *
+ * @author shichunyang
+ * Created by shichunyang on 2026/10/17.
+ */
+@Slf4j
+public class ZkSemaphore {
+
+    public static final String SEMAPHORE_BASE_PATH = "/distributedsemaphores/";
+
+    private static final String QUEUE_PATH = "/queue";
+
+    private static final String LEASE_PATH = "/leases";
+
+    private static final String QUEUE_NODE_PREFIX = "waiter-";
+
+    private static final String LEASE_NODE_PREFIX = "lease-";
+
+    private final ZkClient zkClient;
+
+    private final String key;
+
+    private final int permits;
+
+    private final String leasePath;
+
+    /**
+     * 排队锁, 持有者即队首
+     */
+    private final ZkSequentialLock queueLock;
+
+    public ZkSemaphore(ZkClient zkClient, String key, int permits) {
+        if (permits <= 0) {
+            throw new IllegalArgumentException(MessageUtil.format("zk semaphore permits must be positive", "key", key, "permits", permits));
+        }
+
+        this.zkClient = zkClient;
+        this.key = key;
+        this.permits = permits;
+        this.leasePath = SEMAPHORE_BASE_PATH + key + LEASE_PATH;
+        this.queueLock = new ZkSequentialLock(zkClient, SEMAPHORE_BASE_PATH + key + QUEUE_PATH, QUEUE_NODE_PREFIX, ZkSequentialLock.PREDECESSOR_RULE);
+    }
+
+    /**
+     * 获取许可(一直等待, 不响应中断)
+     *
+     * @return 许可节点, 用于release
+     */
+    public String acquire() {
+        try {
+            return acquire(-1L, Boolean.FALSE);
+        } catch (InterruptedException e) {
+            // 不响应中断时不会抛出
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    public String acquireInterruptibly() throws InterruptedException {
+        return acquire(-1L, Boolean.TRUE);
+    }
+
+    /**
+     * 限时获取许可
+     *
+     * @return 许可节点, 超时返回null
+     */
+    public String tryAcquire(long time, TimeUnit unit) throws InterruptedException {
+        return acquire(Math.max(unit.toNanos(time), 0L), Boolean.TRUE);
+    }
+
+    /**
+     * 释放许可
+     */
+    public void release(String lease) {
+        if (StringUtil.isEmpty(lease)) {
+            return;
+        }
+        ZkSequentialLock.deleteNode(zkClient, lease);
+    }
+
+    private String acquire(long timeoutNanos, boolean interruptible) throws InterruptedException {
+        ZkAcquireContext context = new ZkAcquireContext(key, timeoutNanos, interruptible);
+        if (!lockQueue(context, timeoutNanos, interruptible)) {
+            return null;
+        }
+
+        try {
+            CountDownLatch latch = null;
+            while (true) {
+                List<String> leases;
+                if (latch == null || latch.getCount() == 0) {
+                    CountDownLatch watchLatch = new CountDownLatch(1);
+                    leases = zkClient.getChildrenAndAddListener(leasePath, event -> watchLatch.countDown());
+                    latch = watchLatch;
+                } else {
+                    // 上一次注册的监听尚未触发, 不重复注册
+                    leases = zkClient.getChildren(leasePath, Boolean.FALSE);
+                }
+                for (int i = 0; i < permits; i++) {
+                    String leaseNode = LEASE_NODE_PREFIX + i;
+                    if (leases.contains(leaseNode)) {
+                        continue;
+                    }
+
+                    String lease = zkClient.createNode(leasePath + "/" + leaseNode, DateUtil.getCurrentDateStr(), CreateMode.EPHEMERAL);
+                    if (!StringUtil.isEmpty(lease)) {
+                        log.info(MessageUtil.format("zk semaphore acquire success", "lease", lease));
+                        return lease;
+                    }
+                }
+
+                // 许可已用完, 等待leases变化
+                context.await(latch, ZkAcquireContext.MAX_WAIT_MS);
+                if (context.isTimeout()) {
+                    return null;
+                }
+            }
+        } finally {
+            queueLock.unlock();
+            context.restoreInterrupt();
+        }
+    }
+
+    private boolean lockQueue(ZkAcquireContext context, long timeoutNanos, boolean interruptible) throws InterruptedException {
+        if (timeoutNanos >= 0) {
+            return queueLock.tryLock(context.remainingNanos(), TimeUnit.NANOSECONDS);
+        }
+
+        if (interruptible) {
+            queueLock.lockInterruptibly();
+        } else {
+            queueLock.lock();
+        }
+        return Boolean.TRUE;
+    }
+}
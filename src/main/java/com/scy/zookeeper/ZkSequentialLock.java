@@ -0,0 +1,335 @@
+package com.scy.zookeeper;
+
+import com.scy.core.StringUtil;
+import com.scy.core.format.DateUtil;
+import com.scy.core.format.MessageUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.curator.framework.imps.ProtectedUtils;
+import org.apache.zookeeper.CreateMode;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.stream.Collectors;
+
+/**
+ * ZkSequentialLock
+ * 基于EPHEMERAL_SEQUENTIAL节点的锁, 同一父节点下可有多种前缀的节点(如读/写), 序号在父节点内全局递增
+ * 由WaitRule决定当前节点需要等待的节点, 每个等待者只监听一个节点; 每个线程持有独立节点, 支持重入
+ * 节点名带protection前缀(_c_<id>-), WaitRule中按前缀区分节点类型时使用hasPrefix
+ *
+ * @author shichunyang
+ * Created by shichunyang on 2026/10/17.
+ */
+@Slf4j
+class ZkSequentialLock implements Lock {
+
+    /**
+     * 顺序节点序号长度
+     */
+    private static final int SEQUENCE_LENGTH = 10;
+
+    private static final Comparator<String> SEQUENCE_COMPARATOR = Comparator.comparing(ZkSequentialLock::sequence);
+
+    /**
+     * 等待前一个节点, 序号最小者获得锁(互斥锁/写锁/排队)
+     */
+    static final WaitRule PREDECESSOR_RULE = (children, index) -> index == 0 ? null : children.get(index - 1);
+
+    private final ZkClient zkClient;
+
+    private final String lockPath;
+
+    private final String nodePrefix;
+
+    private final WaitRule waitRule;
+
+    /**
+     * 线程 -> 持有的节点与重入次数
+     */
+    private final Map<Thread, Holder> holderMap = new ConcurrentHashMap<>();
+
+    ZkSequentialLock(ZkClient zkClient, String lockPath, String nodePrefix, WaitRule waitRule) {
+        this.zkClient = zkClient;
+        this.lockPath = lockPath;
+        this.nodePrefix = nodePrefix;
+        this.waitRule = waitRule;
+    }
+
+    @Override
+    public void lock() {
+        try {
+            acquire(-1L, Boolean.FALSE);
+        } catch (InterruptedException e) {
+            // 不响应中断时不会抛出
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void lockInterruptibly() throws InterruptedException {
+        acquire(-1L, Boolean.TRUE);
+    }
+
+    @Override
+    public boolean tryLock() {
+        try {
+            return acquire(0L, Boolean.FALSE);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Boolean.FALSE;
+        }
+    }
+
+    @Override
+    public boolean tryLock(long time, TimeUnit unit) throws InterruptedException {
+        return acquire(Math.max(unit.toNanos(time), 0L), Boolean.TRUE);
+    }
+
+    @Override
+    public void unlock() {
+        Holder holder = holderMap.get(Thread.currentThread());
+        if (holder == null) {
+            throw new IllegalMonitorStateException(MessageUtil.format("zk lock not held by current thread", "lockPath", lockPath, "nodePrefix", nodePrefix));
+        }
+
+        if (--holder.count > 0) {
+            return;
+        }
+
+        holderMap.remove(Thread.currentThread());
+        deleteNode(zkClient, holder.node);
+    }
+
+    @Override
+    public Condition newCondition() {
+        throw new UnsupportedOperationException("zk lock does not support condition");
+    }
+
+    public boolean isHeldByCurrentThread() {
+        return holderMap.containsKey(Thread.currentThread());
+    }
+
+    /**
+     * 当前线程持有的节点名(不含父路径), 未持有时返回null
+     */
+    String getHeldNodeName() {
+        Holder holder = holderMap.get(Thread.currentThread());
+        return holder == null ? null : holder.node.substring(lockPath.length() + 1);
+    }
+
+    private boolean acquire(long timeoutNanos, boolean interruptible) throws InterruptedException {
+        Holder holder = holderMap.get(Thread.currentThread());
+        if (holder != null) {
+            holder.count++;
+            return Boolean.TRUE;
+        }
+
+        ZkAcquireContext context = new ZkAcquireContext(lockPath, timeoutNanos, interruptible);
+        String node;
+        try {
+            node = acquireNode(zkClient, lockPath, nodePrefix, waitRule, context);
+        } finally {
+            context.restoreInterrupt();
+        }
+        if (StringUtil.isEmpty(node)) {
+            return Boolean.FALSE;
+        }
+
+        holderMap.put(Thread.currentThread(), new Holder(node));
+        return Boolean.TRUE;
+    }
+
+    /**
+     * 创建顺序节点并按等待规则排队, 每次只监听一个节点; 超时/中断时删除排队节点
+     *
+     * @return 获取到的节点, 超时返回null
+     */
+    static String acquireNode(ZkClient zkClient, String lockPath, String nodePrefix, WaitRule waitRule, ZkAcquireContext context) throws InterruptedException {
+        return acquireNode(zkClient, lockPath, nodePrefix, waitRule, context,
+                path -> zkClient.createNode(path, DateUtil.getCurrentDateStr(), CreateMode.EPHEMERAL_SEQUENTIAL));
+    }
+
+    /**
+     * 排队节点以protection id命名(与Curator withProtection相同格式: _c_<id>-前缀序号)
+     * 创建失败时(如ConnectionLoss, 服务端可能已创建节点)按id查找并接管已创建的节点, 多余的删除; 结束时未获取锁则删除该id的所有节点
+     * 避免无人持有的排队节点阻塞后续所有等待者直到会话过期
+     */
+    static String acquireNode(ZkClient zkClient, String lockPath, String nodePrefix, WaitRule waitRule, ZkAcquireContext context,
+                              NodeCreator nodeCreator) throws InterruptedException {
+        String protectedId = UUID.randomUUID().toString();
+        String protectedPath = ProtectedUtils.toProtectedZNodePath(lockPath + "/" + nodePrefix, protectedId);
+        int count = 1;
+        String node = null;
+        boolean locked = Boolean.FALSE;
+        try {
+            while (true) {
+                if (StringUtil.isEmpty(node)) {
+                    node = nodeCreator.create(protectedPath);
+                    if (StringUtil.isEmpty(node)) {
+                        node = adoptProtectedNode(zkClient, lockPath, protectedId);
+                    }
+                    if (StringUtil.isEmpty(node)) {
+                        context.await(new CountDownLatch(1), ZkAcquireContext.RETRY_INTERVAL_MS);
+                        if (context.isTimeout()) {
+                            return null;
+                        }
+                        continue;
+                    }
+                }
+
+                List<String> children = new ArrayList<>(zkClient.getChildren(lockPath, Boolean.FALSE));
+                String nodeName = node.substring(lockPath.length() + 1);
+                // 重试创建(Curator内部重试或上一轮失败)可能留下同一id的多个节点, 只保留当前节点
+                for (String child : children) {
+                    if (!child.equals(nodeName) && isProtectedBy(child, protectedId)) {
+                        deleteNode(zkClient, lockPath + "/" + child);
+                    }
+                }
+                children.removeIf(child -> !child.equals(nodeName) && isProtectedBy(child, protectedId));
+                children.sort(SEQUENCE_COMPARATOR);
+                int index = children.indexOf(nodeName);
+                if (index < 0) {
+                    // 会话过期导致节点丢失, 重新排队
+                    log.warn(MessageUtil.format("zk sequential lock node lost", "node", node, "count", count));
+                    node = null;
+                    continue;
+                }
+
+                String waitNode = waitRule.waitNode(children, index);
+                if (StringUtil.isEmpty(waitNode)) {
+                    log.info(MessageUtil.format("zk sequential lock success", "node", node, "count", count));
+                    locked = Boolean.TRUE;
+                    return node;
+                }
+
+                CountDownLatch latch = new CountDownLatch(1);
+                if (zkClient.watchIfExists(lockPath + "/" + waitNode, event -> latch.countDown())) {
+                    context.await(latch, ZkAcquireContext.MAX_WAIT_MS);
+                }
+                if (context.isTimeout()) {
+                    return null;
+                }
+                count++;
+            }
+        } finally {
+            // 超时或中断时删除排队节点(包括创建失败但服务端已创建的同id节点), 避免阻塞后续等待者
+            if (!locked) {
+                deleteProtectedNodes(zkClient, lockPath, protectedId, node);
+            }
+        }
+    }
+
+    /**
+     * 查找本次创建的节点, 保留序号最小的一个, 其余删除
+     *
+     * @return 节点路径, 不存在时返回null
+     */
+    private static String adoptProtectedNode(ZkClient zkClient, String lockPath, String protectedId) {
+        List<String> nodes = findProtectedNodes(zkClient, lockPath, protectedId);
+        if (nodes.isEmpty()) {
+            return null;
+        }
+
+        nodes.sort(SEQUENCE_COMPARATOR);
+        for (int i = 1; i < nodes.size(); i++) {
+            deleteNode(zkClient, lockPath + "/" + nodes.get(i));
+        }
+        log.warn(MessageUtil.format("zk sequential lock adopt node created by failed request", "lockPath", lockPath, "node", nodes.get(0)));
+        return lockPath + "/" + nodes.get(0);
+    }
+
+    private static void deleteProtectedNodes(ZkClient zkClient, String lockPath, String protectedId, String node) {
+        if (!StringUtil.isEmpty(node)) {
+            deleteNode(zkClient, node);
+        }
+        for (String child : findProtectedNodes(zkClient, lockPath, protectedId)) {
+            deleteNode(zkClient, lockPath + "/" + child);
+        }
+    }
+
+    private static List<String> findProtectedNodes(ZkClient zkClient, String lockPath, String protectedId) {
+        boolean interrupted = Thread.interrupted();
+        try {
+            return zkClient.getChildren(lockPath, Boolean.FALSE).stream().filter(child -> isProtectedBy(child, protectedId)).collect(Collectors.toList());
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private static boolean isProtectedBy(String child, String protectedId) {
+        return ProtectedUtils.extractProtectedId(child).map(protectedId::equals).orElse(Boolean.FALSE);
+    }
+
+    /**
+     * 节点名去掉protection前缀后是否以prefix开头
+     */
+    static boolean hasPrefix(String child, String prefix) {
+        return ProtectedUtils.normalize(child).startsWith(prefix);
+    }
+
+    /**
+     * 删除节点, 当前线程带中断标记时(不响应中断的等待被中断过)先清除再恢复, 避免删除失败导致节点残留
+     */
+    static void deleteNode(ZkClient zkClient, String node) {
+        boolean interrupted = Thread.interrupted();
+        try {
+            zkClient.delete(node);
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    static String sequence(String node) {
+        return node.length() <= SEQUENCE_LENGTH ? node : node.substring(node.length() - SEQUENCE_LENGTH);
+    }
+
+    /**
+     * 等待规则
+     */
+    @FunctionalInterface
+    interface WaitRule {
+
+        /**
+         * @param children 按序号排序的子节点
+         * @param index    当前节点下标
+         * @return 需要等待删除的节点, null表示已获取
+         */
+        String waitNode(List<String> children, int index);
+    }
+
+    /**
+     * 创建排队节点, 失败返回null
+     */
+    @FunctionalInterface
+    interface NodeCreator {
+
+        /**
+         * @param path 带protection前缀的节点路径(不含序号)
+         * @return 创建的节点路径, 失败返回null
+         */
+        String create(String path);
+    }
+
+    private static class Holder {
+
+        private final String node;
+
+        private int count = 1;
+
+        Holder(String node) {
+            this.node = node;
+        }
+    }
+}
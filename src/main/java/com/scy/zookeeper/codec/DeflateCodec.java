@@ -0,0 +1,78 @@
+package com.scy.zookeeper.codec;
+
+import com.scy.core.exception.BusinessException;
+
+import java.io.ByteArrayOutputStream;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * DeflateCodec
+ * jdk自带的deflate压缩, json配置通常可压缩到原大小的 1/5 ~ 1/10
+ *
+ * @author shichunyang
+ * Created by shichunyang on 2026/10/17.
+ */
+public class DeflateCodec implements ZkCodec {
+
+    public static final byte ID = 0x02;
+
+    private final int level;
+
+    public DeflateCodec() {
+        this(Deflater.DEFAULT_COMPRESSION);
+    }
+
+    public DeflateCodec(int level) {
+        this.level = level;
+    }
+
+    @Override
+    public byte id() {
+        return ID;
+    }
+
+    @Override
+    public byte[] compress(byte[] data) {
+        Deflater deflater = new Deflater(level, Boolean.TRUE);
+        try {
+            deflater.setInput(data);
+            deflater.finish();
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream(Math.max(data.length / 4, 64));
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                int length = deflater.deflate(buffer);
+                outputStream.write(buffer, 0, length);
+            }
+            return outputStream.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    @Override
+    public byte[] decompress(byte[] data, int offset, int length, int rawLength) {
+        Inflater inflater = new Inflater(Boolean.TRUE);
+        try {
+            inflater.setInput(data, offset, length);
+            byte[] result = new byte[rawLength];
+            int count = 0;
+            while (count < rawLength && !inflater.finished()) {
+                int inflated = inflater.inflate(result, count, rawLength - count);
+                if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                count += inflated;
+            }
+            if (count != rawLength) {
+                throw new BusinessException("deflate数据长度不一致, rawLength=" + rawLength + ", count=" + count);
+            }
+            return result;
+        } catch (DataFormatException e) {
+            throw new BusinessException("deflate数据格式错误", e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.scy.zookeeper.codec;
+
+import com.scy.core.exception.BusinessException;
+
+import java.util.Arrays;
+
+/**
+ * PlainCodec
+ * 不压缩, ZkCodecs直接写入原始字节(不加头部), 原始数据以0x00开头时加PLAIN头部
+ *
+ * @author shichunyang
+ * Created by shichunyang on 2026/10/17.
+ */
+public class PlainCodec implements ZkCodec {
+
+    public static final byte ID = 0x01;
+
+    @Override
+    public byte id() {
+        return ID;
+    }
+
+    @Override
+    public byte[] compress(byte[] data) {
+        return data;
+    }
+
+    @Override
+    public byte[] decompress(byte[] data, int offset, int length, int rawLength) {
+        if (length != rawLength) {
+            throw new BusinessException("plain数据长度不一致, rawLength=" + rawLength + ", length=" + length);
+        }
+        return Arrays.copyOfRange(data, offset, offset + length);
+    }
+}
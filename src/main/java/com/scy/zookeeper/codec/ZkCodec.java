@@ -0,0 +1,23 @@
+package com.scy.zookeeper.codec;
+
+/**
+ * ZkCodec
+ * 节点数据压缩算法, 压缩后的数据由ZkCodecs加上头部标记(0x00 + id + 原始长度), 未标记的数据按原始字节读取
+ *
+ * @author shichunyang
+ * Created by shichunyang on 2026/10/17.
+ */
+public interface ZkCodec {
+
+    /**
+     * 算法标识, 写入数据头部, 同一JVM内唯一
+     */
+    byte id();
+
+    byte[] compress(byte[] data);
+
+    /**
+     * @param rawLength 原始数据长度
+     */
+    byte[] decompress(byte[] data, int offset, int length, int rawLength);
+}
@@ -0,0 +1,137 @@
+package com.scy.zookeeper.codec;
+
+import com.scy.core.StringUtil;
+import com.scy.core.exception.BusinessException;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * ZkCodecs
+ * 节点数据编解码, 压缩数据格式: 0x00 + codecId(1) + 原始长度(4) + 压缩数据
+ * 不以0x00开头的数据视为未压缩的原始字节(与旧版本写入的utf-8字符串兼容), 新旧客户端可以共存
+ * 以0x00开头的原始数据总是加上PLAIN头部写入, 避免被误认为压缩数据
+ *
+ * @author shichunyang
+ * Created by shichunyang on 2026/10/17.
+ */
+public final class ZkCodecs {
+
+    private static final byte HEADER = 0x00;
+
+    private static final int HEADER_BYTES = 6;
+
+    /**
+     * 解码时允许的最大原始长度(与单个节点的数据上限jute.maxbuffer一致), 防止损坏的头部导致分配过大内存
+     */
+    public static final int MAX_RAW_LENGTH = Integer.getInteger("jute.maxbuffer", 0xfffff);
+
+    /**
+     * 小于该长度的数据不压缩
+     */
+    public static final int COMPRESS_THRESHOLD = 1024;
+
+    /**
+     * 不压缩, 直接写入原始字节
+     */
+    public static final ZkCodec PLAIN = new PlainCodec();
+
+    public static final ZkCodec DEFLATE = new DeflateCodec();
+
+    /**
+     * codecId -> codec
+     */
+    private static final ZkCodec[] CODECS = new ZkCodec[128];
+
+    static {
+        register(PLAIN);
+        register(DEFLATE);
+    }
+
+    private ZkCodecs() {
+    }
+
+    /**
+     * 注册自定义codec(读取方需注册同一id的codec才能解码)
+     */
+    public static synchronized void register(ZkCodec codec) {
+        byte id = codec.id();
+        if (id <= 0) {
+            throw new BusinessException("codec id必须大于0, id=" + id);
+        }
+        CODECS[id] = codec;
+    }
+
+    /**
+     * 编码, 不压缩/数据小于阈值/超过MAX_RAW_LENGTH/压缩后未变小时写入原始字节(以0x00开头时加PLAIN头部)
+     */
+    public static byte[] encode(ZkCodec codec, byte[] data) {
+        if (codec == null || codec == PLAIN || data == null || data.length < COMPRESS_THRESHOLD || data.length > MAX_RAW_LENGTH) {
+            return encodePlain(data);
+        }
+
+        byte[] compressed = codec.compress(data);
+        if (compressed.length + HEADER_BYTES >= data.length) {
+            return encodePlain(data);
+        }
+        return withHeader(codec.id(), data.length, compressed);
+    }
+
+    private static byte[] encodePlain(byte[] data) {
+        if (data == null || data.length == 0 || data[0] != HEADER) {
+            return data;
+        }
+        return withHeader(PLAIN.id(), data.length, data);
+    }
+
+    private static byte[] withHeader(byte codecId, int rawLength, byte[] payload) {
+        byte[] result = new byte[payload.length + HEADER_BYTES];
+        result[0] = HEADER;
+        result[1] = codecId;
+        result[2] = (byte) (rawLength >>> 24);
+        result[3] = (byte) (rawLength >>> 16);
+        result[4] = (byte) (rawLength >>> 8);
+        result[5] = (byte) rawLength;
+        System.arraycopy(payload, 0, result, HEADER_BYTES, payload.length);
+        return result;
+    }
+
+    public static byte[] encode(ZkCodec codec, String data) {
+        return encode(codec, data == null ? new byte[0] : data.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 解码, 未压缩的数据原样返回
+     */
+    public static byte[] decode(byte[] data) {
+        if (!isEncoded(data)) {
+            return data;
+        }
+
+        ZkCodec codec = CODECS[data[1]];
+        if (codec == null) {
+            throw new BusinessException("未注册的codec, id=" + data[1]);
+        }
+        int rawLength = ((data[2] & 0xff) << 24) | ((data[3] & 0xff) << 16) | ((data[4] & 0xff) << 8) | (data[5] & 0xff);
+        if (rawLength < 0 || rawLength > MAX_RAW_LENGTH) {
+            throw new BusinessException("原始长度超出限制, rawLength=" + rawLength + ", max=" + MAX_RAW_LENGTH);
+        }
+        return codec.decompress(data, HEADER_BYTES, data.length - HEADER_BYTES, rawLength);
+    }
+
+    /**
+     * 解码为utf-8字符串, null返回空字符串
+     */
+    public static String decodeToString(byte[] data) {
+        if (data == null || data.length == 0) {
+            return StringUtil.EMPTY;
+        }
+        return new String(decode(data), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 是否为压缩格式
+     */
+    public static boolean isEncoded(byte[] data) {
+        return data != null && data.length >= HEADER_BYTES && data[0] == HEADER && data[1] > 0;
+    }
+}
@@ -0,0 +1,147 @@
+package com.scy.zookeeper.config;
+
+import com.scy.core.format.MessageUtil;
+import com.scy.core.json.JsonUtil;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.ToString;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.core.convert.support.DefaultConversionService;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Modifier;
+import java.util.function.Function;
+
+/**
+ * ConfigBinding
+ * 配置key与field的绑定, 创建时预先生成setter与类型转换器, 配置变更时不再做注解解析与反射
+ * 只弱引用目标bean, bean被回收后绑定失效(isReleased), 由DynamicConfiguration清理
+ *
+ * @author shichunyang
+ * Created by shichunyang on 2026/10/17.
+ */
+@Slf4j
+@Getter
+@ToString(of = {"key", "field"})
+public class ConfigBinding {
+
+    private final String key;
+
+    private final Field field;
+
+    /**
+     * 目标bean(弱引用), 静态field为null
+     */
+    @Getter(AccessLevel.NONE)
+    private final WeakReference<Object> beanReference;
+
+    /**
+     * setter, 静态field类型为(Object)void, 实例field类型为(Object, Object)void
+     */
+    private final MethodHandle setter;
+
+    private final Function<Object, Object> converter;
+
+    private ConfigBinding(String key, Field field, Object bean, MethodHandle setter, Function<Object, Object> converter) {
+        this.key = key;
+        this.field = field;
+        this.beanReference = bean == null ? null : new WeakReference<>(bean);
+        this.setter = setter;
+        this.converter = converter;
+    }
+
+    /**
+     * @Value field绑定, 配置值按field类型转换
+     *
+     * @return field为final时返回null
+     */
+    public static ConfigBinding ofValue(String key, Field field, Object bean) {
+        return of(key, field, bean, valueConverter(field.getType()));
+    }
+
+    /**
+     * @ConfigCenter 静态field绑定, 配置值按json反序列化
+     *
+     * @return field为final时返回null
+     */
+    public static ConfigBinding ofConfigCenter(String key, Field field) {
+        Class<?> type = field.getType();
+        return of(key, field, null, value -> value instanceof String ? JsonUtil.json2Object((String) value, type) : value);
+    }
+
+    private static ConfigBinding of(String key, Field field, Object bean, Function<Object, Object> converter) {
+        if (Modifier.isFinal(field.getModifiers())) {
+            log.warn(MessageUtil.format("动态配置不支持final field", "class", field.getDeclaringClass().getName(), "field", field.getName()));
+            return null;
+        }
+
+        try {
+            field.setAccessible(Boolean.TRUE);
+            MethodHandle setter = MethodHandles.lookup().unreflectSetter(field);
+            if (Modifier.isStatic(field.getModifiers())) {
+                return new ConfigBinding(key, field, null, setter.asType(MethodType.methodType(void.class, Object.class)), converter);
+            }
+            return new ConfigBinding(key, field, bean, setter.asType(MethodType.methodType(void.class, Object.class, Object.class)), converter);
+        } catch (Exception e) {
+            log.error(MessageUtil.format("动态配置绑定error", e, "class", field.getDeclaringClass().getName(), "field", field.getName()));
+            return null;
+        }
+    }
+
+    /**
+     * 是否绑定同一bean的同一field
+     */
+    public boolean isSameTarget(ConfigBinding other) {
+        return field.equals(other.field) && getBean() == other.getBean();
+    }
+
+    private Object getBean() {
+        return beanReference == null ? null : beanReference.get();
+    }
+
+    /**
+     * 目标bean已被回收
+     */
+    public boolean isReleased() {
+        return beanReference != null && beanReference.get() == null;
+    }
+
+    /**
+     * 转换并设置配置值, 目标bean已被回收时忽略
+     */
+    public void apply(Object value) {
+        try {
+            Object result = converter.apply(value);
+            if (result == null) {
+                return;
+            }
+            if (beanReference == null) {
+                setter.invokeExact(result);
+                return;
+            }
+            Object bean = getBean();
+            if (bean != null) {
+                setter.invokeExact(bean, result);
+            }
+        } catch (Throwable e) {
+            log.error(MessageUtil.format("动态更新配置error", e, "class", field.getDeclaringClass().getName(), "field", field.getName()));
+        }
+    }
+
+    private static Function<Object, Object> valueConverter(Class<?> type) {
+        if (type == String.class || type == Object.class) {
+            return value -> value;
+        }
+
+        ConversionService conversionService = DefaultConversionService.getSharedInstance();
+        if (!conversionService.canConvert(String.class, type)) {
+            return value -> type.isInstance(value) ? value : null;
+        }
+        return value -> type.isInstance(value) ? value : conversionService.convert(value, type);
+    }
+}
@@ -0,0 +1,150 @@
+package com.scy.zookeeper.config;
+
+import com.scy.core.json.JsonUtil;
+import lombok.Getter;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * ConfigSnapshot
+ * 某一版本的全部动态配置, 创建后不可变, 每次配置推送整体替换
+ * 数值与布尔值在创建时预先解析, 读取时不再分配对象; 同一请求内持有同一个快照即可读到一致的配置
+ *
+ * @author shichunyang
+ * Created by shichunyang on 2026/10/17.
+ */
+public final class ConfigSnapshot {
+
+    public static final ConfigSnapshot EMPTY = new ConfigSnapshot(0L, Collections.emptyMap());
+
+    /**
+     * 版本号, 每次推送递增
+     */
+    @Getter
+    private final long version;
+
+    private final Map<String, Entry> entryMap;
+
+    private ConfigSnapshot(long version, Map<String, Entry> entryMap) {
+        this.version = version;
+        this.entryMap = entryMap;
+    }
+
+    /**
+     * 合并变更生成新版本快照, 未变化的key复用原有解析结果
+     */
+    public ConfigSnapshot with(Map<String, Object> changes) {
+        Map<String, Entry> newEntryMap = new HashMap<>(entryMap);
+        changes.forEach((key, value) -> {
+            if (value == null) {
+                newEntryMap.remove(key);
+            } else {
+                newEntryMap.put(key, new Entry(String.valueOf(value)));
+            }
+        });
+        return new ConfigSnapshot(version + 1, Collections.unmodifiableMap(newEntryMap));
+    }
+
+    public boolean contains(String key) {
+        return entryMap.containsKey(key);
+    }
+
+    public int size() {
+        return entryMap.size();
+    }
+
+    public String getString(String key) {
+        return getString(key, null);
+    }
+
+    public String getString(String key, String defaultValue) {
+        Entry entry = entryMap.get(key);
+        return entry == null ? defaultValue : entry.raw;
+    }
+
+    public long getLong(String key, long defaultValue) {
+        Entry entry = entryMap.get(key);
+        return entry == null || !entry.isLong ? defaultValue : entry.longValue;
+    }
+
+    public int getInt(String key, int defaultValue) {
+        Entry entry = entryMap.get(key);
+        return entry == null || !entry.isInt ? defaultValue : (int) entry.longValue;
+    }
+
+    public boolean getBoolean(String key, boolean defaultValue) {
+        Entry entry = entryMap.get(key);
+        return entry == null || !entry.isBoolean ? defaultValue : entry.booleanValue;
+    }
+
+    /**
+     * 按json反序列化为指定类型, 结果在快照内缓存(同一快照多次读取返回同一对象, 调用方不要修改)
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(String key, Class<T> type) {
+        Entry entry = entryMap.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (type == String.class) {
+            return (T) entry.raw;
+        }
+
+        Object value = entry.typedValueMap.get(type);
+        if (value == null) {
+            value = JsonUtil.json2Object(entry.raw, type);
+            if (value != null) {
+                entry.typedValueMap.putIfAbsent(type, value);
+            }
+        }
+        return (T) value;
+    }
+
+    @Override
+    public String toString() {
+        return "ConfigSnapshot(version=" + version + ", keys=" + entryMap.keySet() + ")";
+    }
+
+    private static final class Entry {
+
+        private final String raw;
+
+        private final boolean isLong;
+
+        private final boolean isInt;
+
+        private final long longValue;
+
+        private final boolean isBoolean;
+
+        private final boolean booleanValue;
+
+        /**
+         * 类型 -> 反序列化结果
+         */
+        private final Map<Class<?>, Object> typedValueMap = new ConcurrentHashMap<>(2);
+
+        private Entry(String raw) {
+            this.raw = raw;
+
+            long parsedLong = 0L;
+            boolean parsed = Boolean.FALSE;
+            try {
+                parsedLong = Long.parseLong(raw.trim());
+                parsed = Boolean.TRUE;
+            } catch (NumberFormatException e) {
+                // 非数值配置
+            }
+            this.isLong = parsed;
+            this.longValue = parsedLong;
+            this.isInt = parsed && parsedLong >= Integer.MIN_VALUE && parsedLong <= Integer.MAX_VALUE;
+
+            String trimmed = raw.trim();
+            this.isBoolean = "true".equalsIgnoreCase(trimmed) || "false".equalsIgnoreCase(trimmed);
+            this.booleanValue = "true".equalsIgnoreCase(trimmed);
+        }
+    }
+}
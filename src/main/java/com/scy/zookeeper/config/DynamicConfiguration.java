@@ -6,15 +6,19 @@ import com.scy.core.ObjectUtil;
 import com.scy.core.StringUtil;
 import com.scy.core.enums.ResponseCodeEnum;
 import com.scy.core.exception.BusinessException;
+import com.scy.core.exception.Try;
 import com.scy.core.format.MessageUtil;
 import com.scy.core.json.JsonUtil;
 import com.scy.core.reflect.AnnotationUtil;
 import com.scy.core.reflect.ReflectionsUtil;
 import com.scy.core.spring.ApplicationContextUtil;
 import com.scy.zookeeper.ZkClient;
+import com.scy.zookeeper.ZkExecutors;
 import com.scy.zookeeper.annotation.ConfigCenter;
 import com.scy.zookeeper.listener.CuratorListener;
 import com.scy.zookeeper.listener.DataListener;
+import com.scy.zookeeper.model.ChunkManifest;
+import com.scy.zookeeper.model.ZkOperation;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.zookeeper.CreateMode;
 import org.springframework.beans.BeansException;
@@ -24,11 +28,21 @@ import org.springframework.core.env.MutablePropertySources;
 import org.springframework.lang.NonNull;
 
 import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
 
 /**
@@ -42,31 +56,133 @@ public class DynamicConfiguration implements BeanPostProcessor {
 
     public static final String APPLICATION_CONFIG_PATH = "/application/config/dynamic_configuration";
 
-    public static final Map<Field, Object> VALUE_BEAN_MAP = CollectionUtil.newHashMap();
+    /**
+     * 默认变更合并窗口(毫秒)
+     */
+    public static final long DEFAULT_DEBOUNCE_MILLIS = 100L;
+
+    /**
+     * 配置key -> 绑定的field(含@Value与@ConfigCenter), bean初始化时建立, 配置变更时只处理对应key的field
+     * 同一bean的同一field只绑定一次, bean被回收后的绑定在添加/更新时清理
+     */
+    public static final Map<String, List<ConfigBinding>> BINDING_MAP = new ConcurrentHashMap<>();
 
     private final ZkClient zkClient;
 
-    private final Executor executor;
+    /**
+     * 单线程调度池, 合并窗口到期后在此线程应用变更
+     */
+    private final ScheduledExecutorService executor;
+
+    /**
+     * 变更合并窗口(毫秒)
+     */
+    private final long debounceMillis;
+
+    /**
+     * 窗口内尚未应用的变更, 同一key只保留最新值
+     */
+    private final Map<String, String> pendingChanges = new ConcurrentHashMap<>();
+
+    /**
+     * 是否已有待执行的合并任务
+     */
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+
+    /**
+     * 本地配置快照, zookeeper不可用时用于启动
+     */
+    private final LocalSnapshotFile localSnapshotFile;
+
+    /**
+     * 当前配置数据(与MapPropertySource内容一致), 监听事件按key增量更新
+     */
+    private final Map<String, Object> configData = new ConcurrentHashMap<>();
+
+    /**
+     * 当前配置快照, 每次推送整体替换
+     */
+    private static volatile ConfigSnapshot snapshot = ConfigSnapshot.EMPTY;
 
     public static final Set<Field> FIELDS;
 
     static {
         FIELDS = ReflectionsUtil.getFieldsAnnotatedWith(ConfigCenter.class);
+
+        CollectionUtil.emptyIfNull(FIELDS).forEach(field -> {
+            ConfigCenter configCenter = AnnotationUtil.findAnnotation(field, ConfigCenter.class);
+            if (ObjectUtil.isNull(configCenter) || StringUtil.isEmpty(configCenter.key())) {
+                return;
+            }
+            addBinding(ConfigBinding.ofConfigCenter(configCenter.key(), field));
+        });
     }
 
+    /**
+     * 兼容旧的构造方式, 使用默认合并窗口
+     *
+     * @param executor 为ScheduledExecutorService时直接使用, 否则使用内部单线程调度池(变更需在单线程中按顺序合并应用)
+     */
     public DynamicConfiguration(ZkClient zkClient, Executor executor) {
+        this(zkClient, executor instanceof ScheduledExecutorService ? (ScheduledExecutorService) executor : ZkExecutors.getScheduledPool("dynamicConfig", 1, zkClient.isVirtualThreads()), DEFAULT_DEBOUNCE_MILLIS);
+    }
+
+    public DynamicConfiguration(ZkClient zkClient, ScheduledExecutorService executor, long debounceMillis) {
         this.zkClient = zkClient;
         this.executor = executor;
+        this.debounceMillis = Math.max(debounceMillis, 0L);
+        this.localSnapshotFile = new LocalSnapshotFile(zkClient.getNamespace(), "dynamic_configuration");
     }
 
     @Override
     public Object postProcessBeforeInitialization(@NonNull Object bean, @NonNull String beanName) throws BeansException {
-        // 将有@Value注解的field缓存起来
-        ReflectionsUtil.doWithFields(bean.getClass(), field -> VALUE_BEAN_MAP.put(field, bean), field -> !Objects.isNull(AnnotationUtil.findAnnotation(field, Value.class)));
+        // 将有@Value注解的field按配置key建立绑定
+        ReflectionsUtil.doWithFields(bean.getClass(), field -> {
+            Value valueAnnotation = AnnotationUtil.findAnnotation(field, Value.class);
+            String valueKey = StringUtil.parseSpringValue(valueAnnotation.value());
+            if (StringUtil.isEmpty(valueKey)) {
+                return;
+            }
+            addBinding(ConfigBinding.ofValue(valueKey, field, bean));
+        }, field -> !Objects.isNull(AnnotationUtil.findAnnotation(field, Value.class)));
         return bean;
     }
 
+    private static void addBinding(ConfigBinding configBinding) {
+        if (ObjectUtil.isNull(configBinding)) {
+            return;
+        }
+        BINDING_MAP.compute(configBinding.getKey(), (key, configBindings) -> {
+            List<ConfigBinding> newConfigBindings = configBindings == null ? new CopyOnWriteArrayList<>() : configBindings;
+            newConfigBindings.removeIf(ConfigBinding::isReleased);
+            if (newConfigBindings.stream().noneMatch(configBinding::isSameTarget)) {
+                newConfigBindings.add(configBinding);
+            }
+            return newConfigBindings;
+        });
+    }
+
     public void init() {
+        String configName = "dynamic_configuration";
+
+        if (!zkClient.isConnected()) {
+            // zookeeper不可用时先使用本地快照启动, 连接建立后在配置线程对账
+            Map<String, String> localData = localSnapshotFile.read();
+            if (!CollectionUtil.isEmpty(localData)) {
+                log.info(MessageUtil.format("dynamicConfiguration load local snapshot", "path", localSnapshotFile.getPath(), "size", localData.size()));
+                loadData(configName, new HashMap<>(localData));
+            }
+            zkClient.whenConnected(() -> executor.execute(() -> Try.run(() -> syncData(configName))));
+            return;
+        }
+
+        syncData(configName);
+    }
+
+    /**
+     * 读取配置服务数据并注册监听, 已使用本地快照启动时只应用与快照不同的配置
+     */
+    private void syncData(String configName) {
         writeData();
 
         // 配置服务数据
@@ -75,14 +191,24 @@ public class DynamicConfiguration implements BeanPostProcessor {
             return;
         }
 
-        String configName = "dynamic_configuration";
+        if (configData.isEmpty()) {
+            loadData(configName, dataMap);
+        } else {
+            dataMap.forEach((key, value) -> pendingChanges.put(key, ObjectUtil.obj2Str(value)));
+            flushChanges(configName);
+        }
+        localSnapshotFile.write(configData);
 
+        addListener(configName);
+    }
+
+    private void loadData(String configName, Map<String, Object> dataMap) {
         // 校验数据
         check(dataMap);
+        configData.putAll(dataMap);
         ApplicationContextUtil.addLastMapPropertySource(configName, dataMap);
+        publishSnapshot(dataMap);
         updateData(dataMap);
-
-        addListener(configName);
     }
 
     private void writeData() {
@@ -133,80 +259,155 @@ public class DynamicConfiguration implements BeanPostProcessor {
             }
         }));
 
+        // 只写入尚不存在的配置, 已存在的配置以配置中心为准
+        Set<String> existKeys = new HashSet<>(zkClient.getChildren(APPLICATION_CONFIG_PATH, Boolean.FALSE));
+        List<ZkOperation> operations = new ArrayList<>();
         writeMap.forEach((key, value) -> {
-            String result = zkClient.createNode(APPLICATION_CONFIG_PATH + IOUtil.DIR_SEPARATOR_UNIX + key, ObjectUtil.obj2Str(value), CreateMode.PERSISTENT);
-            log.info("writeData key=>{}, value=>{}, result=>{}", key, ObjectUtil.obj2Str(value), result);
+            if (existKeys.contains(key)) {
+                return;
+            }
+
+            String path = APPLICATION_CONFIG_PATH + IOUtil.DIR_SEPARATOR_UNIX + key;
+            String data = ObjectUtil.obj2Str(value);
+            byte[] dataBytes = data.getBytes(StandardCharsets.UTF_8);
+            if (dataBytes.length > ZkClient.LARGE_DATA_CHUNK_BYTES) {
+                // 超过分块大小的配置分块写入, 不放入事务(可能超过jute.maxbuffer)
+                boolean success = zkClient.setLargeData(path, dataBytes);
+                log.info(MessageUtil.format("writeData large config", "key", key, "length", dataBytes.length, "success", success));
+                return;
+            }
+            operations.add(ZkOperation.create(path, data, CreateMode.PERSISTENT));
         });
+        int count = zkClient.batch(operations);
+        log.info("writeData operations=>{}, count=>{}", operations, count);
     }
 
     private void addListener(String configName) {
         String path = APPLICATION_CONFIG_PATH;
         CuratorListener curatorListener = new CuratorListener(zkClient, new DataListener() {
+            @Override
+            public void add(String addPath, String data) {
+                enqueueChange(configName, addPath, data);
+            }
+
             @Override
             public void update(String updatePath, String oldData, String newData) {
-                if (!ObjectUtil.equals(updatePath, path) && updatePath.startsWith(path)) {
-                    Map<String, Object> dataMap = getData();
-                    if (CollectionUtil.isEmpty(dataMap)) {
-                        return;
-                    }
-
-                    ApplicationContextUtil.replaceMapPropertySource(configName, dataMap);
-                    updateData(dataMap);
-                }
+                enqueueChange(configName, updatePath, newData);
             }
         });
-        zkClient.addListener(path, curatorListener, executor);
+        // 事件线程只记录变更, 不占用配置线程池
+        zkClient.addListener(path, curatorListener, Runnable::run);
     }
 
-    public static void updateData(Map<String, Object> dataMap) {
-        VALUE_BEAN_MAP.forEach((field, bean) -> {
-            Value valueAnnotation = AnnotationUtil.findAnnotation(field, Value.class);
-            if (ObjectUtil.isNull(valueAnnotation)) {
-                return;
-            }
+    /**
+     * 记录变更并在窗口到期后统一应用, 窗口内同一key被多次修改时只保留最新值
+     */
+    private void enqueueChange(String configName, String changePath, String data) {
+        String key = getConfigKey(changePath);
+        if (StringUtil.isEmpty(key) || ObjectUtil.isNull(data)) {
+            return;
+        }
 
-            String key = valueAnnotation.value();
-            String valueKey = StringUtil.parseSpringValue(key);
-            if (StringUtil.isEmpty(valueKey)) {
-                return;
-            }
+        pendingChanges.put(key, data);
+        if (!flushScheduled.compareAndSet(Boolean.FALSE, Boolean.TRUE)) {
+            return;
+        }
 
-            Object value = dataMap.get(valueKey);
-            if (ObjectUtil.isNull(value)) {
+        try {
+            executor.schedule(() -> flushChanges(configName), debounceMillis, TimeUnit.MILLISECONDS);
+        } catch (Exception e) {
+            flushScheduled.set(Boolean.FALSE);
+            log.error(MessageUtil.format("dynamicConfiguration schedule flush error", e, "key", key));
+        }
+    }
+
+    /**
+     * 合并窗口内的变更为一次增量, 只更新变化的key, 不再重新读取全部配置
+     */
+    private void flushChanges(String configName) {
+        // 先复位标记, 应用期间到达的变更会调度下一次合并
+        flushScheduled.set(Boolean.FALSE);
+
+        Map<String, Object> changes = new HashMap<>();
+        pendingChanges.keySet().forEach(key -> {
+            String data = resolveData(key, pendingChanges.remove(key));
+            if (ObjectUtil.isNull(data)) {
                 return;
             }
 
-            try {
-                field.setAccessible(Boolean.TRUE);
-                field.set(bean, value);
-            } catch (Exception e) {
-                log.error(MessageUtil.format("动态更新配置error", e, "bean", bean.getClass().getName(), "field", field.getName()));
+            // 缓存初始化回放的add事件及数据未变化的update事件直接忽略
+            Object oldValue = configData.put(key, data);
+            if (ObjectUtil.equals(oldValue, data)) {
+                return;
             }
+            log.info(MessageUtil.format("dynamicConfiguration refresh", "key", key, "oldValue", oldValue, "newValue", data));
+            changes.put(key, data);
         });
+        if (CollectionUtil.isEmpty(changes)) {
+            return;
+        }
 
-        CollectionUtil.emptyIfNull(DynamicConfiguration.FIELDS).forEach(field -> {
-            ConfigCenter configCenter = AnnotationUtil.findAnnotation(field, ConfigCenter.class);
-            if (ObjectUtil.isNull(configCenter)) {
-                return;
-            }
+        try {
+            ApplicationContextUtil.replaceMapPropertySource(configName, configData);
+            publishSnapshot(changes);
+            updateData(changes);
+            localSnapshotFile.write(configData);
+        } catch (Exception e) {
+            log.error(MessageUtil.format("dynamicConfiguration flush error", e, "keys", changes.keySet()));
+        }
+    }
+
+    /**
+     * 分块存储的配置(事件数据为清单)读取全部分块, 读取失败时返回null(保留旧值)
+     */
+    private String resolveData(String key, String data) {
+        if (!ChunkManifest.isManifest(data)) {
+            return data;
+        }
+
+        byte[] dataBytes = zkClient.getLargeData(APPLICATION_CONFIG_PATH + "/" + key);
+        return dataBytes == null ? null : new String(dataBytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 当前配置快照, 读取方在一次请求内持有同一快照即可读到一致版本
+     */
+    public static ConfigSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    private static synchronized void publishSnapshot(Map<String, Object> changes) {
+        snapshot = snapshot.with(changes);
+    }
 
-            String valueKey = configCenter.key();
-            Object value = dataMap.get(valueKey);
+    /**
+     * 配置节点path -> 配置key, 非配置节点(根节点/更深层节点)返回null
+     */
+    private static String getConfigKey(String path) {
+        String prefix = APPLICATION_CONFIG_PATH + "/";
+        if (!path.startsWith(prefix)) {
+            return null;
+        }
+
+        String key = path.substring(prefix.length());
+        return key.contains("/") ? null : key;
+    }
+
+    /**
+     * 按key查找绑定的field并更新, 只处理dataMap中出现的key
+     */
+    public static void updateData(Map<String, Object> dataMap) {
+        dataMap.forEach((key, value) -> {
             if (ObjectUtil.isNull(value)) {
                 return;
             }
 
-            Object result = JsonUtil.json2Object((String) value, field.getType());
-            if (Objects.isNull(result)) {
+            List<ConfigBinding> configBindings = BINDING_MAP.get(key);
+            if (CollectionUtil.isEmpty(configBindings)) {
                 return;
             }
-
-            try {
-                field.setAccessible(Boolean.TRUE);
-                field.set(null, result);
-            } catch (Exception e) {
-                log.error(MessageUtil.format("动态更新配置error", e, "class", field.getDeclaringClass(), "field", field.getName()));
-            }
+            configBindings.forEach(configBinding -> configBinding.apply(value));
+            configBindings.removeIf(ConfigBinding::isReleased);
         });
     }
 
@@ -221,14 +422,22 @@ public class DynamicConfiguration implements BeanPostProcessor {
     }
 
     /**
-     * 获取配置服务数据
+     * 获取配置服务数据(并发读取所有配置节点, 分块存储的配置读取全部分块)
      */
     private Map<String, Object> getData() {
         String path = APPLICATION_CONFIG_PATH;
-        List<String> children = zkClient.getChildren(path);
+        List<String> children = zkClient.getChildren(path, Boolean.FALSE);
         if (CollectionUtil.isEmpty(children)) {
             return CollectionUtil.emptyMap();
         }
-        return children.stream().collect(Collectors.toMap(child -> child, child -> zkClient.doGetContent(path + "/" + child)));
+
+        Map<String, CompletableFuture<String>> futureMap = children.stream().collect(Collectors.toMap(child -> child, child -> {
+            String childPath = path + "/" + child;
+            return zkClient.getLargeDataAsync(childPath).thenApply(dataBytes -> new String(dataBytes, StandardCharsets.UTF_8)).exceptionally(throwable -> {
+                log.error(MessageUtil.format("getData error", throwable, "path", childPath));
+                return StringUtil.EMPTY;
+            });
+        }));
+        return futureMap.entrySet().stream().collect(Collectors.toMap(Map.Entry::getKey, entry -> entry.getValue().join()));
     }
 }
@@ -0,0 +1,161 @@
+package com.scy.zookeeper.config;
+
+import com.scy.core.format.MessageUtil;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * LocalSnapshotFile
+ * 本地快照文件, 每次同步成功后写入, 启动时先读取本地快照提供服务, 连接建立后再与zookeeper对账
+ * 文件格式: magic(4) + 格式版本(4) + 条目数(4) + [keyLength(4) + key + valueLength(4) + value]* + crc32(8)
+ * 写入临时文件后原子替换, 读写均使用内存映射
+ *
+ * @author shichunyang
+ * Created by shichunyang on 2026/10/17.
+ */
+@Slf4j
+final class LocalSnapshotFile {
+
+    /**
+     * 快照目录, 默认 ${user.home}/.scy-zookeeper
+     */
+    public static final String SNAPSHOT_DIR_PROPERTY = "scy.zookeeper.snapshot.dir";
+
+    private static final int MAGIC = 0x5A4B534E;
+
+    private static final int FORMAT_VERSION = 1;
+
+    private static final int HEADER_BYTES = 12;
+
+    private static final int CHECKSUM_BYTES = 8;
+
+    @Getter
+    private final Path path;
+
+    LocalSnapshotFile(String namespace, String name) {
+        String dir = System.getProperty(SNAPSHOT_DIR_PROPERTY, Paths.get(System.getProperty("user.home"), ".scy-zookeeper").toString());
+        this.path = Paths.get(dir, namespace == null ? "default" : namespace, name + ".snapshot");
+    }
+
+    /**
+     * 读取快照, 文件不存在或已损坏时返回空map
+     */
+    Map<String, String> read() {
+        if (!Files.isRegularFile(path)) {
+            return Collections.emptyMap();
+        }
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES + CHECKSUM_BYTES || size > Integer.MAX_VALUE) {
+                log.warn(MessageUtil.format("local snapshot invalid size", "path", path, "size", size));
+                return Collections.emptyMap();
+            }
+
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            int bodyLength = (int) size - CHECKSUM_BYTES;
+            byte[] body = new byte[bodyLength];
+            buffer.get(body);
+            CRC32 crc32 = new CRC32();
+            crc32.update(body, 0, bodyLength);
+            if (crc32.getValue() != buffer.getLong()) {
+                log.warn(MessageUtil.format("local snapshot checksum mismatch", "path", path));
+                return Collections.emptyMap();
+            }
+
+            return decode(body);
+        } catch (Exception e) {
+            log.warn(MessageUtil.format("local snapshot read error", e, "path", path));
+            return Collections.emptyMap();
+        }
+    }
+
+    /**
+     * 写入快照(写临时文件后原子替换)
+     *
+     * @return true 写入成功
+     */
+    boolean write(Map<String, ?> data) {
+        List<byte[]> entries = new ArrayList<>(data.size() * 2);
+        int bodyLength = HEADER_BYTES;
+        for (Map.Entry<String, ?> entry : data.entrySet()) {
+            if (entry.getValue() == null) {
+                continue;
+            }
+            byte[] keyBytes = entry.getKey().getBytes(StandardCharsets.UTF_8);
+            byte[] valueBytes = String.valueOf(entry.getValue()).getBytes(StandardCharsets.UTF_8);
+            entries.add(keyBytes);
+            entries.add(valueBytes);
+            bodyLength += 8 + keyBytes.length + valueBytes.length;
+        }
+
+        Path tempPath = path.resolveSibling(path.getFileName() + ".tmp");
+        try {
+            Files.createDirectories(path.getParent());
+            try (FileChannel channel = FileChannel.open(tempPath, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, bodyLength + CHECKSUM_BYTES);
+                buffer.putInt(MAGIC).putInt(FORMAT_VERSION).putInt(entries.size() / 2);
+                entries.forEach(bytes -> buffer.putInt(bytes.length).put(bytes));
+
+                byte[] body = new byte[bodyLength];
+                buffer.flip();
+                buffer.get(body);
+                CRC32 crc32 = new CRC32();
+                crc32.update(body, 0, bodyLength);
+                buffer.limit(bodyLength + CHECKSUM_BYTES);
+                buffer.putLong(crc32.getValue());
+                buffer.force();
+            }
+            Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return Boolean.TRUE;
+        } catch (Exception e) {
+            log.warn(MessageUtil.format("local snapshot write error", e, "path", path));
+            return Boolean.FALSE;
+        }
+    }
+
+    private Map<String, String> decode(byte[] body) {
+        ByteBuffer buffer = ByteBuffer.wrap(body);
+        try {
+            if (buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION) {
+                log.warn(MessageUtil.format("local snapshot unknown format", "path", path));
+                return Collections.emptyMap();
+            }
+
+            int count = buffer.getInt();
+            Map<String, String> data = new HashMap<>(Math.max(Math.min(count, body.length / 8) * 4 / 3 + 1, 16));
+            for (int i = 0; i < count; i++) {
+                String key = readString(buffer);
+                data.put(key, readString(buffer));
+            }
+            return data;
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException e) {
+            log.warn(MessageUtil.format("local snapshot decode error", e, "path", path));
+            return Collections.emptyMap();
+        }
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        String value = new String(buffer.array(), buffer.position(), length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+}
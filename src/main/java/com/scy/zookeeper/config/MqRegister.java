@@ -1,14 +1,20 @@
 package com.scy.zookeeper.config;
 
+import com.scy.core.CollectionUtil;
 import com.scy.core.StringUtil;
 import com.scy.core.exception.Try;
-import com.scy.core.thread.ThreadPoolUtil;
+import com.scy.core.format.MessageUtil;
 import com.scy.zookeeper.ZkClient;
+import com.scy.zookeeper.ZkExecutors;
+import com.scy.zookeeper.model.ZkOperation;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.ToString;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.curator.framework.api.CuratorWatcher;
 import org.apache.zookeeper.CreateMode;
+import org.apache.zookeeper.WatchedEvent;
+import org.apache.zookeeper.Watcher;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
@@ -33,6 +39,17 @@ public class MqRegister {
 
     private volatile ConcurrentMap<String, String> registryData = new ConcurrentHashMap<>();
 
+    /**
+     * 已确认存在并添加了监听的注册节点, 节点删除时移出, 新会话建立时清空; 对账时只重新创建不在集合中的节点
+     */
+    private final Set<String> existPaths = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 注册节点的一次性监听, 所有节点共用同一实例(同一节点重复添加只计一次)
+     */
+    @ToString.Exclude
+    private final CuratorWatcher registryWatcher = this::onRegistryNodeEvent;
+
     private final ZkClient zkClient;
 
     private String env;
@@ -51,14 +68,71 @@ public class MqRegister {
     }
 
     public void init() {
-        ScheduledThreadPoolExecutor scheduledPool = ThreadPoolUtil.getScheduledPool("mqRegisterLoop", 5);
+        // 新会话建立后临时节点已全部丢失, 立即全量重新注册
+        zkClient.addSessionListener(() -> Try.run(this::registryAll));
+
+        ScheduledThreadPoolExecutor scheduledPool = ZkExecutors.getScheduledPool("mqRegisterLoop", 5, zkClient.isVirtualThreads());
         scheduledPool.scheduleWithFixedDelay(() -> {
             Try.run(this::refreshRegistryData);
         }, 0, 60, TimeUnit.SECONDS);
     }
 
+    /**
+     * 注册数据对账: 与已确认存在的节点比对, 只重新创建缺失的节点, 无缺失时不访问zookeeper
+     */
     public void refreshRegistryData() {
-        registryData.forEach((group, topic) -> registry(group, topic, Boolean.FALSE));
+        List<ZkOperation> operations = new ArrayList<>();
+        registryData.forEach((group, topic) -> {
+            ZkOperation operation = registryOperation(group, topic);
+            if (!existPaths.contains(operation.getPath())) {
+                operations.add(operation);
+            }
+        });
+        if (CollectionUtil.isEmpty(operations)) {
+            return;
+        }
+
+        log.info(MessageUtil.format("mqRegister registry missing nodes", "size", operations.size()));
+        zkClient.batch(operations);
+        operations.forEach(operation -> watchRegistryNode(operation.getPath()));
+    }
+
+    /**
+     * 全量注册(新会话建立后旧会话的临时节点及监听均已失效)
+     */
+    private void registryAll() {
+        existPaths.clear();
+        List<ZkOperation> operations = new ArrayList<>(registryData.size());
+        registryData.forEach((group, topic) -> operations.add(registryOperation(group, topic)));
+        zkClient.batch(operations);
+        operations.forEach(operation -> watchRegistryNode(operation.getPath()));
+    }
+
+    /**
+     * 节点存在时添加监听并记为已存在; 先加入集合再添加监听, 避免监听添加后节点立即被删除时集合残留
+     */
+    private void watchRegistryNode(String path) {
+        existPaths.add(path);
+        if (!zkClient.watchIfExists(path, registryWatcher)) {
+            existPaths.remove(path);
+        }
+    }
+
+    private void onRegistryNodeEvent(WatchedEvent event) {
+        if (event.getType() == Watcher.Event.EventType.None || event.getPath() == null) {
+            // 连接状态通知, 会话过期由会话监听全量注册
+            return;
+        }
+
+        if (event.getType() == Watcher.Event.EventType.NodeDeleted) {
+            existPaths.remove(event.getPath());
+        } else {
+            watchRegistryNode(event.getPath());
+        }
+    }
+
+    private ZkOperation registryOperation(String group, String topic) {
+        return ZkOperation.create(topicToPath(topic).concat("/").concat(group), StringUtil.EMPTY, CreateMode.EPHEMERAL);
     }
 
     public void registry(String group, String topic, boolean cache) {
@@ -72,6 +146,7 @@ public class MqRegister {
 
         if (cache) {
             registryData.putIfAbsent(group, topic);
+            watchRegistryNode(path);
         }
     }
 
@@ -82,6 +157,9 @@ public class MqRegister {
         return Boolean.TRUE;
     }
 
+    /**
+     * 查询topic下的group, 启用读缓存时直接返回缓存的列表, 调用方不可修改
+     */
     public List<String> discovery(String topic) {
         String topicPath = topicToPath(topic);
         return zkClient.getChildren(topicPath);
@@ -7,13 +7,25 @@ import com.scy.core.CollectionUtil;
 import com.scy.core.ObjectUtil;
 import com.scy.core.StringUtil;
 import com.scy.core.exception.Try;
+import com.scy.core.format.MessageUtil;
 import com.scy.core.json.JsonUtil;
-import com.scy.core.thread.ThreadPoolUtil;
 import com.scy.zookeeper.ZkClient;
+import com.scy.zookeeper.ZkExecutors;
 import com.scy.zookeeper.listener.CuratorListener;
 import com.scy.zookeeper.listener.DataListener;
+import com.scy.zookeeper.listener.OrderedEventDispatcher;
+import com.scy.zookeeper.loadbalance.AddressSelector;
+import com.scy.zookeeper.loadbalance.ConsistentHashSelector;
+import com.scy.zookeeper.loadbalance.KetamaHashSelector;
+import com.scy.zookeeper.loadbalance.KetamaRing;
+import com.scy.zookeeper.loadbalance.LoadBalanceEnum;
+import com.scy.zookeeper.loadbalance.SameZoneFirstSelector;
+import com.scy.zookeeper.loadbalance.SmoothWeightedRoundRobinSelector;
+import com.scy.zookeeper.loadbalance.WeightedRandomSelector;
 import com.scy.zookeeper.model.AddressDataBO;
+import com.scy.zookeeper.model.AddressSnapshot;
 import com.scy.zookeeper.model.RegisterCenterData;
+import com.scy.zookeeper.model.ZkOperation;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.ToString;
@@ -23,8 +35,10 @@ import org.apache.zookeeper.CreateMode;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * @author : shichunyang
@@ -41,24 +55,74 @@ public class RegisterCenter {
 
     private static final String BASE_PATH = "/scy-rpc";
 
-    private volatile ConcurrentMap<String, TreeSet<String>> registryData = new ConcurrentHashMap<>();
+    /**
+     * serviceKey -> 地址快照, 快照不可变, 变更时通过compute整体替换
+     */
+    private volatile ConcurrentMap<String, AddressSnapshot> registryData = new ConcurrentHashMap<>();
 
-    private volatile ConcurrentMap<String, TreeSet<String>> discoveryData = new ConcurrentHashMap<>();
+    private volatile ConcurrentMap<String, AddressSnapshot> discoveryData = new ConcurrentHashMap<>();
+
+    /**
+     * 本地缓存中已存在的地址节点path(含enable=false的节点), 用于注册数据对账
+     */
+    private final Set<String> existPaths = ConcurrentHashMap.newKeySet();
 
     public static final TypeReference<AddressDataBO> ADDRESS_DATA_TYPE_REFERENCE = new TypeReference<AddressDataBO>() {
     };
 
+    private static final long INITIALIZED_TIMEOUT_MS = 10_000L;
+
+    private final CountDownLatch initializedLatch = new CountDownLatch(1);
+
+    public static final TypeReference<Map<String, AddressDataBO>> ADDRESS_MAP_TYPE_REFERENCE = new TypeReference<Map<String, AddressDataBO>>() {
+    };
+
+    /**
+     * 本地发现数据快照, zookeeper不可用时用于启动
+     */
+    private LocalSnapshotFile localSnapshotFile;
+
+    /**
+     * 发现数据在上次写入本地快照后是否有变化
+     */
+    private final AtomicBoolean discoveryDirty = new AtomicBoolean();
+
     private final ZkClient zkClient;
 
     private String env;
 
     private String envPath;
 
+    /**
+     * 本机所在机房, 用于同机房优先
+     */
+    private String zone;
+
+    private final Map<LoadBalanceEnum, AddressSelector> selectorMap = new EnumMap<>(LoadBalanceEnum.class);
+
+    private final KetamaHashSelector ketamaHashSelector = new KetamaHashSelector();
+
+    /**
+     * 缓存事件分发, 同一服务的事件按顺序执行, 不同服务并行
+     */
+    private OrderedEventDispatcher eventDispatcher;
+
     public RegisterCenter(ZkClient zkClient, String env) {
+        this(zkClient, env, null);
+    }
+
+    public RegisterCenter(ZkClient zkClient, String env, String zone) {
         this.zkClient = zkClient;
         this.env = env;
+        this.zone = zone;
 
         envPath = BASE_PATH.concat("/").concat(env);
+
+        selectorMap.put(LoadBalanceEnum.WEIGHTED_RANDOM, new WeightedRandomSelector());
+        selectorMap.put(LoadBalanceEnum.SMOOTH_WEIGHTED_ROUND_ROBIN, new SmoothWeightedRoundRobinSelector());
+        selectorMap.put(LoadBalanceEnum.CONSISTENT_HASH, new ConsistentHashSelector());
+        selectorMap.put(LoadBalanceEnum.KETAMA_HASH, ketamaHashSelector);
+        selectorMap.put(LoadBalanceEnum.SAME_ZONE_FIRST, new SameZoneFirstSelector(zone));
     }
 
     public String serviceKeyToPath(String serviceKey) {
@@ -86,121 +150,265 @@ public class RegisterCenter {
     }
 
     public void init() {
+        localSnapshotFile = new LocalSnapshotFile(zkClient.getNamespace(), "register_center_" + env);
+        boolean loaded = loadLocalSnapshot();
+
         CuratorListener curatorListener = new CuratorListener(zkClient, new DataListener() {
 
             @Override
             public void add(String path, String data) {
-                listener(path);
+                existPaths.add(path);
+                refreshAddress(path, data);
             }
 
             @Override
             public void update(String path, String oldData, String newData) {
-                listener(path);
+                refreshAddress(path, newData);
             }
 
             @Override
             public void delete(String path, String data) {
-                listener(path);
+                existPaths.remove(path);
+                removeAddress(path);
+            }
+
+            @Override
+            public void initialized() {
+                removeStaleAddress();
+                initializedLatch.countDown();
+                writeLocalSnapshot();
+            }
+        });
+        eventDispatcher = new OrderedEventDispatcher(curatorListener, ZkExecutors.getThreadPool("registerCenter", 10, 10, 1024, zkClient.isVirtualThreads()),
+                OrderedEventDispatcher.DEFAULT_STRIPES, OrderedEventDispatcher.DEFAULT_MAX_PENDING, RegisterCenter::getParentPath);
+        zkClient.getMetrics().registerGauge("registerCenter.dispatchQueueDepth", eventDispatcher::getQueueDepth);
+        // 分发器入队只合并不阻塞, 直接在缓存事件线程上执行; listener在registerCenter线程池中执行
+        zkClient.addListener(envPath, eventDispatcher, Runnable::run);
+
+        // 新会话建立后临时节点已全部丢失, 立即全量重新注册
+        zkClient.addSessionListener(() -> Try.run(this::registryAll));
+
+        // 等待本地缓存完成首次加载, 之后discovery只读本地数据; 已加载本地快照时直接使用快照, 后台对账
+        try {
+            if (loaded) {
+                log.info(MessageUtil.format("registerCenter load local snapshot", "path", localSnapshotFile.getPath(), "size", discoveryData.size()));
+            } else if (!initializedLatch.await(INITIALIZED_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                log.warn(MessageUtil.format("registerCenter cache init timeout", "envPath", envPath));
+            }
+        } catch (InterruptedException e) {
+            log.warn(MessageUtil.format("registerCenter cache init interrupted", "envPath", envPath));
+            Thread.currentThread().interrupt();
+        }
+
+        ScheduledThreadPoolExecutor scheduledPool = ZkExecutors.getScheduledPool("registerCenterLoop", 5, zkClient.isVirtualThreads());
+        scheduledPool.scheduleWithFixedDelay(() -> Try.run(() -> {
+            refreshRegistryData();
+            writeLocalSnapshot();
+        }), 0, 60, TimeUnit.SECONDS);
+    }
+
+    /**
+     * 读取本地快照作为启动数据
+     *
+     * @return true 已加载
+     */
+    private boolean loadLocalSnapshot() {
+        Map<String, String> localData = localSnapshotFile.read();
+        localData.forEach((serviceKey, addressJson) -> {
+            Map<String, AddressDataBO> addressMap = JsonUtil.json2Object(addressJson, ADDRESS_MAP_TYPE_REFERENCE);
+            if (CollectionUtil.isEmpty(addressMap)) {
+                return;
+            }
+            addressMap.forEach((address, addressDataBO) -> {
+                if (ObjectUtil.isNull(addressDataBO) || !Boolean.TRUE.equals(addressDataBO.getEnable())) {
+                    return;
+                }
+                discoveryData.compute(serviceKey, (key, snapshot) -> (snapshot == null ? AddressSnapshot.EMPTY : snapshot).put(address, addressDataBO));
+            });
+        });
+        return !discoveryData.isEmpty();
+    }
+
+    /**
+     * 本地缓存首次加载完成后, 删除本地快照中已不存在的地址
+     */
+    private void removeStaleAddress() {
+        discoveryData.forEach((serviceKey, snapshot) -> {
+            for (int i = 0; i < snapshot.size(); i++) {
+                String address = snapshot.get(i);
+                if (!existPaths.contains(serviceKeyToPath(serviceKey).concat("/").concat(address))) {
+                    removeAddress(serviceKey, address);
+                }
             }
         });
-        zkClient.addListener(envPath, curatorListener, ThreadPoolUtil.getThreadPool("registerCenter", 10, 10, 1024));
+    }
 
-        ScheduledThreadPoolExecutor scheduledPool = ThreadPoolUtil.getScheduledPool("registerCenterLoop", 5);
-        scheduledPool.scheduleWithFixedDelay(() -> {
-            Try.run(() -> refreshDiscoveryData(null));
+    /**
+     * 本地缓存完成首次加载且发现数据有变化时写入本地快照
+     */
+    private void writeLocalSnapshot() {
+        if (initializedLatch.getCount() > 0 || !discoveryDirty.compareAndSet(Boolean.TRUE, Boolean.FALSE)) {
+            return;
+        }
 
-            Try.run(this::refreshRegistryData);
-        }, 0, 60, TimeUnit.SECONDS);
+        Map<String, String> snapshotData = Maps.newHashMap();
+        discoveryData.forEach((serviceKey, snapshot) -> {
+            if (snapshot.isEmpty()) {
+                return;
+            }
+            Map<String, AddressDataBO> addressMap = new LinkedHashMap<>(snapshot.size() * 4 / 3 + 1);
+            for (int i = 0; i < snapshot.size(); i++) {
+                addressMap.put(snapshot.get(i), snapshot.getAddressData(i));
+            }
+            snapshotData.put(serviceKey, JsonUtil.object2Json(addressMap));
+        });
+        if (!localSnapshotFile.write(snapshotData)) {
+            discoveryDirty.set(Boolean.TRUE);
+        }
     }
 
-    private void listener(String path) {
+    /**
+     * 根据缓存事件中的节点数据增量更新单个地址
+     */
+    private void refreshAddress(String path, String data) {
         RegisterCenterData registerCenterData = getRegisterCenterData(path);
         if (ObjectUtil.isNull(registerCenterData)) {
             return;
         }
 
-        refreshDiscoveryData(registerCenterData.getServiceKey());
+        String address = registerCenterData.getAddress();
+        AddressDataBO addressDataBO = parseAddressData(data);
+        if (ObjectUtil.isNull(addressDataBO) || !Boolean.TRUE.equals(addressDataBO.getEnable())) {
+            removeAddress(registerCenterData.getServiceKey(), address);
+            return;
+        }
+
+        discoveryData.compute(registerCenterData.getServiceKey(), (serviceKey, snapshot) -> (snapshot == null ? AddressSnapshot.EMPTY : snapshot).put(address, addressDataBO));
+        discoveryDirty.set(Boolean.TRUE);
     }
 
-    private void refreshDiscoveryData(String key) {
-        Set<String> keys = new HashSet<>();
-        if (!StringUtil.isEmpty(key)) {
-            keys.add(key);
-        } else {
-            if (!CollectionUtil.isEmpty(discoveryData)) {
-                keys.addAll(discoveryData.keySet());
-            }
-        }
+    /**
+     * 地址节点path -> 服务path, 事件按服务分段
+     */
+    private static String getParentPath(String path) {
+        int index = path.lastIndexOf('/');
+        return index > 0 ? path.substring(0, index) : path;
+    }
 
-        keys.forEach(serviceKey -> {
-            String servicePath = serviceKeyToPath(serviceKey);
-            List<String> addresses = zkClient.getChildren(servicePath);
-            if (CollectionUtil.isEmpty(addresses)) {
-                return;
-            }
+    /**
+     * 待处理的注册中心事件数(合并后)
+     */
+    public int getDispatchQueueDepth() {
+        return eventDispatcher == null ? 0 : eventDispatcher.getQueueDepth();
+    }
 
-            TreeSet<String> addressSet = addresses.stream().filter(address -> {
-                String addressPath = servicePath.concat("/").concat(address);
-                String addressData = zkClient.doGetContent(addressPath);
-                if (StringUtil.isEmpty(addressData)) {
-                    return Boolean.FALSE;
-                }
+    private void removeAddress(String path) {
+        RegisterCenterData registerCenterData = getRegisterCenterData(path);
+        if (ObjectUtil.isNull(registerCenterData)) {
+            return;
+        }
 
-                AddressDataBO addressDataBO = JsonUtil.json2Object(addressData, ADDRESS_DATA_TYPE_REFERENCE);
-                if (ObjectUtil.isNull(addressDataBO) || ObjectUtil.isNull(addressDataBO.getEnable())) {
-                    return Boolean.FALSE;
-                }
+        removeAddress(registerCenterData.getServiceKey(), registerCenterData.getAddress());
+    }
 
-                return addressDataBO.getEnable();
-            }).collect(TreeSet::new, TreeSet::add, TreeSet::addAll);
+    private void removeAddress(String serviceKey, String address) {
+        discoveryData.computeIfPresent(serviceKey, (key, snapshot) -> snapshot.remove(address));
+        discoveryDirty.set(Boolean.TRUE);
+    }
 
-            if (CollectionUtil.isEmpty(addressSet)) {
-                return;
-            }
+    private AddressDataBO parseAddressData(String addressData) {
+        if (StringUtil.isEmpty(addressData)) {
+            return null;
+        }
 
-            discoveryData.put(serviceKey, addressSet);
-        });
+        return JsonUtil.json2Object(addressData, ADDRESS_DATA_TYPE_REFERENCE);
     }
 
     public boolean registry(Set<String> serviceKeys, String address) {
+        return registry(serviceKeys, address, null);
+    }
+
+    /**
+     * 注册地址
+     *
+     * @param addressDataBO 启用状态/权重/机房/版本等元数据, 为null时使用默认权重并启用(已注册时保持原元数据); 不为null时覆盖已存在节点的数据, enable为false的地址不会被发现
+     */
+    public boolean registry(Set<String> serviceKeys, String address, AddressDataBO addressDataBO) {
         if (CollectionUtil.isEmpty(serviceKeys) || StringUtil.isEmpty(address)) {
             return Boolean.FALSE;
         }
 
+        List<ZkOperation> operations = new ArrayList<>(serviceKeys.size());
         serviceKeys.forEach(serviceKey -> {
-            TreeSet<String> addressSet = registryData.computeIfAbsent(serviceKey, key -> new TreeSet<>());
-            addressSet.add(address);
+            registryData.compute(serviceKey, (key, oldSnapshot) -> {
+                AddressSnapshot snapshot = oldSnapshot == null ? AddressSnapshot.EMPTY : oldSnapshot;
+                return ObjectUtil.isNull(addressDataBO) ? snapshot.add(address) : snapshot.put(address, addressDataBO);
+            });
 
-            registry(serviceKey, addressSet);
+            operations.add(registryOperation(serviceKey, address, !ObjectUtil.isNull(addressDataBO)));
         });
+        zkClient.batch(operations);
 
         return Boolean.TRUE;
     }
 
+    /**
+     * 注册数据对账: 与本地缓存比对, 只重新创建缺失的节点
+     */
     public void refreshRegistryData() {
-        registryData.forEach(this::registry);
-    }
-
-    private void registry(String serviceKey, TreeSet<String> addressSet) {
-        if (StringUtil.isEmpty(serviceKey) || CollectionUtil.isEmpty(addressSet)) {
+        List<ZkOperation> operations = new ArrayList<>();
+        registryData.forEach((serviceKey, snapshot) -> {
+            for (int i = 0; i < snapshot.size(); i++) {
+                ZkOperation operation = registryOperation(serviceKey, snapshot.get(i), Boolean.FALSE);
+                if (!existPaths.contains(operation.getPath())) {
+                    operations.add(operation);
+                }
+            }
+        });
+        if (CollectionUtil.isEmpty(operations)) {
             return;
         }
 
-        addressSet.forEach(address -> {
-            String path = serviceKeyToPath(serviceKey).concat("/").concat(address);
+        log.info(MessageUtil.format("registerCenter registry missing nodes", "size", operations.size()));
+        zkClient.batch(operations);
+    }
 
-            AddressDataBO addressDataBO = new AddressDataBO();
-            addressDataBO.setEnable(Boolean.TRUE);
-            zkClient.createNode(path, JsonUtil.object2Json(addressDataBO), CreateMode.EPHEMERAL);
+    /**
+     * 全量注册
+     */
+    private void registryAll() {
+        List<ZkOperation> operations = new ArrayList<>();
+        registryData.forEach((serviceKey, snapshot) -> {
+            for (int i = 0; i < snapshot.size(); i++) {
+                operations.add(registryOperation(serviceKey, snapshot.get(i), Boolean.FALSE));
+            }
         });
+        zkClient.batch(operations);
+    }
+
+    /**
+     * @param overwrite true 节点已存在时更新数据(元数据变更), false 节点已存在时跳过
+     */
+    private ZkOperation registryOperation(String serviceKey, String address, boolean overwrite) {
+        String path = serviceKeyToPath(serviceKey).concat("/").concat(address);
+
+        // 元数据(含启用状态)以注册数据为准, 重新注册时保持不变
+        AddressSnapshot snapshot = registryData.get(serviceKey);
+        int index = snapshot == null ? -1 : snapshot.indexOf(address);
+        AddressDataBO addressDataBO;
+        if (index >= 0) {
+            addressDataBO = snapshot.getAddressData(index);
+        } else {
+            addressDataBO = new AddressDataBO();
+            addressDataBO.setEnable(Boolean.TRUE);
+        }
+        String data = JsonUtil.object2Json(addressDataBO);
+        return overwrite ? ZkOperation.setData(path, data, CreateMode.EPHEMERAL) : ZkOperation.create(path, data, CreateMode.EPHEMERAL);
     }
 
     public boolean remove(Set<String> serviceKeys, String address) {
         serviceKeys.forEach(serviceKey -> {
-            TreeSet<String> addressSet = discoveryData.get(serviceKey);
-            if (!CollectionUtil.isEmpty(addressSet)) {
-                addressSet.remove(address);
-            }
+            removeAddress(serviceKey, address);
 
             String path = serviceKeyToPath(serviceKey).concat("/").concat(address);
             zkClient.delete(path);
@@ -208,30 +416,80 @@ public class RegisterCenter {
         return Boolean.TRUE;
     }
 
-    public Map<String, TreeSet<String>> discovery(Set<String> serviceKeys) {
+    /**
+     * 查询多个服务的地址快照, 不包含无地址的服务
+     */
+    public Map<String, AddressSnapshot> discoverySnapshot(Set<String> serviceKeys) {
         if (CollectionUtil.isEmpty(serviceKeys)) {
             return Collections.emptyMap();
         }
 
-        Map<String, TreeSet<String>> registryDataMap = Maps.newHashMap();
+        Map<String, AddressSnapshot> registryDataMap = Maps.newHashMap();
         serviceKeys.forEach(serviceKey -> {
-            TreeSet<String> addressSet = discovery(serviceKey);
-            if (!CollectionUtil.isEmpty(addressSet)) {
-                registryDataMap.put(serviceKey, addressSet);
+            AddressSnapshot snapshot = discoverySnapshot(serviceKey);
+            if (!snapshot.isEmpty()) {
+                registryDataMap.put(serviceKey, snapshot);
             }
         });
 
         return registryDataMap;
     }
 
+    /**
+     * 查询多个服务的地址, 不包含无地址的服务
+     *
+     * @deprecated 每次调用复制地址集合, 使用 {@link #discoverySnapshot(Set)}
+     */
+    @Deprecated
+    public Map<String, TreeSet<String>> discovery(Set<String> serviceKeys) {
+        Map<String, TreeSet<String>> registryDataMap = Maps.newHashMap();
+        discoverySnapshot(serviceKeys).forEach((serviceKey, snapshot) -> registryDataMap.put(serviceKey, toAddressSet(snapshot)));
+        return registryDataMap;
+    }
+
+    /**
+     * 按负载均衡算法选择一个地址, 选择数据按快照预计算, 每次调用不分配对象
+     *
+     * @param loadBalanceEnum 负载均衡算法, 为null时使用加权随机
+     * @param routeKey        路由key, 仅一致性hash使用
+     * @return 地址, 无可用地址时返回null
+     */
+    public String select(String serviceKey, LoadBalanceEnum loadBalanceEnum, String routeKey) {
+        AddressSelector selector = selectorMap.get(ObjectUtil.isNull(loadBalanceEnum) ? LoadBalanceEnum.WEIGHTED_RANDOM : loadBalanceEnum);
+        return selector.select(discoverySnapshot(serviceKey), routeKey);
+    }
+
+    /**
+     * 服务的ketama一致性hash环, 地址快照变化时才重建
+     */
+    public KetamaRing getRing(String serviceKey) {
+        return ketamaHashSelector.getRing(discoverySnapshot(serviceKey));
+    }
+
+    /**
+     * 查询服务地址快照, 快照不可变, 调用方可直接按下标访问, 无需拷贝
+     */
+    public AddressSnapshot discoverySnapshot(String serviceKey) {
+        AddressSnapshot snapshot = discoveryData.get(serviceKey);
+        return snapshot == null ? AddressSnapshot.EMPTY : snapshot;
+    }
+
+    /**
+     * 查询服务地址, 无地址时返回null
+     *
+     * @deprecated 每次调用复制地址集合, 使用 {@link #discoverySnapshot(String)}
+     */
+    @Deprecated
     public TreeSet<String> discovery(String serviceKey) {
-        TreeSet<String> addressSet = discoveryData.get(serviceKey);
-        if (CollectionUtil.isEmpty(addressSet)) {
-            refreshDiscoveryData(serviceKey);
+        AddressSnapshot snapshot = discoverySnapshot(serviceKey);
+        return snapshot.isEmpty() ? null : toAddressSet(snapshot);
+    }
 
-            addressSet = discoveryData.get(serviceKey);
+    private static TreeSet<String> toAddressSet(AddressSnapshot snapshot) {
+        TreeSet<String> addressSet = new TreeSet<>();
+        for (int i = 0; i < snapshot.size(); i++) {
+            addressSet.add(snapshot.get(i));
         }
-
         return addressSet;
     }
 }
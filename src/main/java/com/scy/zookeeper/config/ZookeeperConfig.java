@@ -1,12 +1,14 @@
 package com.scy.zookeeper.config;
 
+import com.scy.core.StringUtil;
 import com.scy.core.spring.ApplicationContextUtil;
-import com.scy.core.thread.ThreadPoolUtil;
 import com.scy.zookeeper.ZkClient;
+import com.scy.zookeeper.ZkExecutors;
+import com.scy.zookeeper.codec.ZkCodecs;
+import com.scy.zookeeper.metrics.HistogramZkMetrics;
 import org.springframework.context.annotation.Bean;
 
 import java.util.concurrent.ScheduledThreadPoolExecutor;
-import java.util.concurrent.ThreadPoolExecutor;
 
 /**
  * ZookeeperConfig
@@ -16,15 +18,80 @@ import java.util.concurrent.ThreadPoolExecutor;
  */
 public class ZookeeperConfig {
 
+    /**
+     * 配置变更合并窗口(毫秒)
+     */
+    public static final String CONFIG_DEBOUNCE_MILLIS = "zookeeper.config.debounce-millis";
+
+    public static final String CONNECT_STRING = "zookeeper.connect-string";
+
+    public static final String CHROOT = "zookeeper.chroot";
+
+    public static final String SESSION_TIMEOUT_MS = "zookeeper.session-timeout-ms";
+
+    public static final String CONNECTION_TIMEOUT_MS = "zookeeper.connection-timeout-ms";
+
+    public static final String RETRY_BASE_SLEEP_MS = "zookeeper.retry.base-sleep-ms";
+
+    public static final String RETRY_MAX_RETRIES = "zookeeper.retry.max-retries";
+
+    public static final String RETRY_MAX_SLEEP_MS = "zookeeper.retry.max-sleep-ms";
+
+    public static final String READY_TIMEOUT_MS = "zookeeper.ready-timeout-ms";
+
+    /**
+     * 写入压缩算法, 目前支持 deflate, 默认不压缩
+     */
+    public static final String CODEC = "zookeeper.codec";
+
+    /**
+     * 本机所在机房, 用于同机房优先的负载均衡
+     */
+    public static final String ZONE = "zookeeper.zone";
+
+    /**
+     * 是否启用内置指标统计(HistogramZkMetrics), 默认关闭
+     */
+    public static final String METRICS_ENABLED = "zookeeper.metrics.enabled";
+
+    /**
+     * 监听回调/后台刷新是否使用虚拟线程(JDK 21+), 默认关闭
+     */
+    public static final String VIRTUAL_THREADS_ENABLED = "zookeeper.virtual-threads.enabled";
+
+    /**
+     * doGetContent/getChildren读缓存占用内存上限(字节), 默认0不启用
+     */
+    public static final String READ_CACHE_MAX_BYTES = "zookeeper.read-cache.max-bytes";
+
     @Bean(destroyMethod = "close")
     public ZkClient zkClient() {
         String applicationName = ApplicationContextUtil.getApplicationName();
-        return new ZkClient(applicationName);
+        ZkClient.Builder builder = ZkClient.builder()
+                .namespace(applicationName)
+                .chroot(ApplicationContextUtil.getProperty(CHROOT))
+                .sessionTimeoutMs((int) getLongProperty(SESSION_TIMEOUT_MS, 60_000L))
+                .connectionTimeoutMs((int) getLongProperty(CONNECTION_TIMEOUT_MS, 15_000L))
+                .retry((int) getLongProperty(RETRY_BASE_SLEEP_MS, 1_000L), (int) getLongProperty(RETRY_MAX_RETRIES, 3L), (int) getLongProperty(RETRY_MAX_SLEEP_MS, 10_000L))
+                .readyTimeoutMs(getLongProperty(READY_TIMEOUT_MS, ZkClient.CONNECT_TIMEOUT_MS))
+                .virtualThreads(isVirtualThreads())
+                .readCacheMaxBytes(getLongProperty(READ_CACHE_MAX_BYTES, 0L));
+        if (Boolean.parseBoolean(ApplicationContextUtil.getProperty(METRICS_ENABLED))) {
+            builder.metrics(new HistogramZkMetrics());
+        }
+        if ("deflate".equalsIgnoreCase(ApplicationContextUtil.getProperty(CODEC))) {
+            builder.codec(ZkCodecs.DEFLATE);
+        }
+        String connectString = ApplicationContextUtil.getProperty(CONNECT_STRING);
+        if (!StringUtil.isEmpty(connectString)) {
+            builder.connectString(connectString);
+        }
+        return builder.build();
     }
 
     @Bean
     public ScheduledThreadPoolExecutor zookeeperScheduledThreadPoolExecutor() {
-        return ThreadPoolUtil.getScheduledPool("zookeeper-time-monitor", 1);
+        return ZkExecutors.getScheduledPool("zookeeper-time-monitor", 1, isVirtualThreads());
     }
 
     @Bean(initMethod = "init")
@@ -32,23 +99,42 @@ public class ZookeeperConfig {
         return new SystemTimeMonitor(zkClient, zookeeperScheduledThreadPoolExecutor);
     }
 
-    @Bean
-    public ThreadPoolExecutor dynamicConfigThreadPoolExecutor() {
-        return ThreadPoolUtil.getThreadPool("dynamicConfig", 1, 1, 10);
+    /**
+     * 保留旧的bean名称dynamicConfigThreadPoolExecutor(ScheduledThreadPoolExecutor也是ThreadPoolExecutor), 按旧名称注入的代码无需修改
+     */
+    @Bean({"dynamicConfigScheduledThreadPoolExecutor", "dynamicConfigThreadPoolExecutor"})
+    public ScheduledThreadPoolExecutor dynamicConfigScheduledThreadPoolExecutor() {
+        return ZkExecutors.getScheduledPool("dynamicConfig", 1, isVirtualThreads());
     }
 
     @Bean(initMethod = "init")
-    public DynamicConfiguration dynamicConfiguration(ZkClient zkClient, ThreadPoolExecutor dynamicConfigThreadPoolExecutor) {
-        return new DynamicConfiguration(zkClient, dynamicConfigThreadPoolExecutor);
+    public DynamicConfiguration dynamicConfiguration(ZkClient zkClient, ScheduledThreadPoolExecutor dynamicConfigScheduledThreadPoolExecutor) {
+        return new DynamicConfiguration(zkClient, dynamicConfigScheduledThreadPoolExecutor, getLongProperty(CONFIG_DEBOUNCE_MILLIS, DynamicConfiguration.DEFAULT_DEBOUNCE_MILLIS));
     }
 
     @Bean(initMethod = "init")
     public RegisterCenter registerCenter(ZkClient zkClient) {
-        return new RegisterCenter(zkClient, ApplicationContextUtil.getProperty(ApplicationContextUtil.ACTIVE));
+        return new RegisterCenter(zkClient, ApplicationContextUtil.getProperty(ApplicationContextUtil.ACTIVE), ApplicationContextUtil.getProperty(ZONE));
     }
 
     @Bean(initMethod = "init")
     public MqRegister mqRegister(ZkClient zkClient) {
         return new MqRegister(zkClient, ApplicationContextUtil.getProperty(ApplicationContextUtil.ACTIVE));
     }
+
+    private static boolean isVirtualThreads() {
+        return Boolean.parseBoolean(ApplicationContextUtil.getProperty(VIRTUAL_THREADS_ENABLED));
+    }
+
+    private static long getLongProperty(String key, long defaultValue) {
+        String value = ApplicationContextUtil.getProperty(key);
+        if (StringUtil.isEmpty(value)) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
 }
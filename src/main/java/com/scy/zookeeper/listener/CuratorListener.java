@@ -3,6 +3,7 @@ package com.scy.zookeeper.listener;
 import com.scy.core.CollectionUtil;
 import com.scy.core.StringUtil;
 import com.scy.zookeeper.ZkClient;
+import com.scy.zookeeper.codec.ZkCodecs;
 import lombok.AllArgsConstructor;
 import lombok.EqualsAndHashCode;
 import org.apache.curator.framework.api.CuratorWatcher;
@@ -30,15 +31,15 @@ public class CuratorListener implements CuratorCacheListener, CuratorWatcher {
     public void event(Type type, ChildData oldData, ChildData data) {
         switch (type) {
             case NODE_CREATED: {
-                dataListener.add(data.getPath(), new String(data.getData()));
+                dataListener.add(data.getPath(), ZkCodecs.decodeToString(data.getData()));
                 return;
             }
             case NODE_CHANGED: {
-                dataListener.update(oldData.getPath(), new String(oldData.getData()), new String(data.getData()));
+                dataListener.update(oldData.getPath(), ZkCodecs.decodeToString(oldData.getData()), ZkCodecs.decodeToString(data.getData()));
                 return;
             }
             case NODE_DELETED: {
-                dataListener.delete(oldData.getPath(), new String(oldData.getData()));
+                dataListener.delete(oldData.getPath(), ZkCodecs.decodeToString(oldData.getData()));
                 return;
             }
             default: {
@@ -47,6 +48,11 @@ public class CuratorListener implements CuratorCacheListener, CuratorWatcher {
         }
     }
 
+    @Override
+    public void initialized() {
+        dataListener.initialized();
+    }
+
     @Override
     public void process(WatchedEvent event) throws Exception {
         String path = event.getPath();
@@ -45,4 +45,10 @@ public interface DataListener {
      */
     default void childrenChange(List<String> children) {
     }
+
+    /**
+     * 缓存初始化完成(初始节点均已通过add回调)
+     */
+    default void initialized() {
+    }
 }
@@ -0,0 +1,301 @@
+package com.scy.zookeeper.listener;
+
+import com.scy.core.format.MessageUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.curator.framework.recipes.cache.ChildData;
+import org.apache.curator.framework.recipes.cache.CuratorCacheListener;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * OrderedEventDispatcher
+ * 缓存事件按key哈希分段, 同一段内串行执行(同一path/同一服务的事件不会乱序), 不同段在executor上并行
+ * 同一节点尚未执行的事件合并为最新状态: CREATED+CHANGED=CREATED, CREATED+DELETED=丢弃, DELETED+CREATED=CHANGED, CHANGED+DELETED=DELETED
+ * 待执行事件按节点path合并, 数量不超过缓存的节点数, 因此入队从不阻塞, 可以直接在curator缓存的事件线程上调用; 超过maxPending时只打印告警
+ * 使用方式: zkClient.addListener(path, dispatcher, Runnable::run)
+ *
+ * @author shichunyang
+ * Created by shichunyang on 2026/10/17.
+ */
+@Slf4j
+public class OrderedEventDispatcher implements CuratorCacheListener {
+
+    public static final int DEFAULT_STRIPES = 16;
+
+    public static final int DEFAULT_MAX_PENDING = 4096;
+
+    /**
+     * 单次调度最多执行的事件数, 之后重新提交, 避免长期占用executor线程
+     */
+    private static final int DRAIN_BATCH_SIZE = 64;
+
+    private static final long PENDING_WARN_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    /**
+     * initialized屏障在待执行map中的key前缀, 不会与节点path冲突
+     */
+    private static final String BARRIER_PREFIX = "\u0000initialized-";
+
+    private final CuratorCacheListener listener;
+
+    private final Executor executor;
+
+    private final Function<String, String> stripeKeyFunction;
+
+    private final int maxPending;
+
+    private final Stripe[] stripes;
+
+    private final AtomicInteger barrierSequence = new AtomicInteger();
+
+    public OrderedEventDispatcher(CuratorCacheListener listener, Executor executor) {
+        this(listener, executor, DEFAULT_STRIPES, DEFAULT_MAX_PENDING, Function.identity());
+    }
+
+    /**
+     * @param stripes           分段数, 向上取2的幂
+     * @param maxPending        每段待执行事件的告警阈值, 超过时打印告警(不阻塞, 不丢弃)
+     * @param stripeKeyFunction 节点path -> 分段key, 如按服务分段时取父节点path; 同一分段key的事件严格有序
+     */
+    public OrderedEventDispatcher(CuratorCacheListener listener, Executor executor, int stripes, int maxPending, Function<String, String> stripeKeyFunction) {
+        this.listener = listener;
+        this.executor = executor;
+        this.stripeKeyFunction = stripeKeyFunction;
+        this.maxPending = Math.max(maxPending, 1);
+
+        int stripeCount = Integer.highestOneBit(Math.max(stripes, 1) * 2 - 1);
+        this.stripes = new Stripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            this.stripes[i] = new Stripe();
+        }
+    }
+
+    @Override
+    public void event(Type type, ChildData oldData, ChildData data) {
+        String path = data != null ? data.getPath() : oldData.getPath();
+        String stripeKey = stripeKeyFunction.apply(path);
+        getStripe(stripeKey == null ? path : stripeKey).offer(path, new PendingEvent(type, oldData, data));
+    }
+
+    /**
+     * 首次加载完成: 所有分段执行完此前的事件后才通知listener
+     */
+    @Override
+    public void initialized() {
+        String barrierKey = BARRIER_PREFIX + barrierSequence.incrementAndGet();
+        AtomicInteger remaining = new AtomicInteger(stripes.length);
+        for (Stripe stripe : stripes) {
+            stripe.offer(barrierKey, new PendingEvent(remaining));
+        }
+    }
+
+    /**
+     * 待执行事件数(合并后)
+     */
+    public int getQueueDepth() {
+        int depth = 0;
+        for (Stripe stripe : stripes) {
+            depth += stripe.size();
+        }
+        return depth;
+    }
+
+    /**
+     * 待执行事件最多的分段的事件数, 用于判断是否有热点key
+     */
+    public int getMaxStripeDepth() {
+        int maxDepth = 0;
+        for (Stripe stripe : stripes) {
+            maxDepth = Math.max(maxDepth, stripe.size());
+        }
+        return maxDepth;
+    }
+
+    private Stripe getStripe(String stripeKey) {
+        int hash = stripeKey.hashCode();
+        return stripes[(hash ^ (hash >>> 16)) & (stripes.length - 1)];
+    }
+
+    private void execute(String path, PendingEvent pendingEvent) {
+        try {
+            if (pendingEvent.barrier != null) {
+                if (pendingEvent.barrier.decrementAndGet() == 0) {
+                    listener.initialized();
+                }
+                return;
+            }
+            listener.event(pendingEvent.type, pendingEvent.oldData, pendingEvent.data);
+        } catch (Exception e) {
+            log.error(MessageUtil.format("orderedEventDispatcher listener error", e, "path", path, "type", pendingEvent.type));
+        }
+    }
+
+    /**
+     * 待执行事件, barrier不为null时为initialized屏障
+     */
+    private static class PendingEvent {
+
+        private Type type;
+
+        private ChildData oldData;
+
+        private ChildData data;
+
+        private final AtomicInteger barrier;
+
+        PendingEvent(Type type, ChildData oldData, ChildData data) {
+            this.type = type;
+            this.oldData = oldData;
+            this.data = data;
+            this.barrier = null;
+        }
+
+        PendingEvent(AtomicInteger barrier) {
+            this.barrier = barrier;
+        }
+
+        /**
+         * 合并同一节点的后续事件
+         *
+         * @return false 两个事件相互抵消(创建后又删除)
+         */
+        boolean merge(PendingEvent next) {
+            if (type == Type.NODE_CREATED) {
+                if (next.type == Type.NODE_DELETED) {
+                    return Boolean.FALSE;
+                }
+                data = next.data;
+                return Boolean.TRUE;
+            }
+
+            if (type == Type.NODE_DELETED) {
+                if (next.type == Type.NODE_CREATED) {
+                    type = Type.NODE_CHANGED;
+                    data = next.data;
+                }
+                return Boolean.TRUE;
+            }
+
+            // NODE_CHANGED: 保留最早的oldData
+            type = next.type == Type.NODE_DELETED ? Type.NODE_DELETED : Type.NODE_CHANGED;
+            data = next.data;
+            return Boolean.TRUE;
+        }
+    }
+
+    private class Stripe implements Runnable {
+
+        private final ReentrantLock lock = new ReentrantLock();
+
+        /**
+         * 节点path -> 待执行事件, 按首次进入的顺序执行
+         */
+        private final Map<String, PendingEvent> pendingEvents = new LinkedHashMap<>();
+
+        private boolean scheduled;
+
+        /**
+         * 上次打印积压告警的时间
+         */
+        private long warnNanos = System.nanoTime() - PENDING_WARN_INTERVAL_NANOS;
+
+        int size() {
+            lock.lock();
+            try {
+                return pendingEvents.size();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * 入队或与同一节点的待执行事件合并, 不阻塞
+         */
+        void offer(String path, PendingEvent pendingEvent) {
+            boolean schedule;
+            boolean warn;
+            int size;
+            lock.lock();
+            try {
+                PendingEvent pending = pendingEvents.get(path);
+                if (pending != null && pending.barrier == null) {
+                    if (!pending.merge(pendingEvent)) {
+                        pendingEvents.remove(path);
+                    }
+                    return;
+                }
+
+                pendingEvents.put(path, pendingEvent);
+                size = pendingEvents.size();
+                schedule = !scheduled;
+                scheduled = Boolean.TRUE;
+                warn = size > maxPending && System.nanoTime() - warnNanos >= PENDING_WARN_INTERVAL_NANOS;
+                if (warn) {
+                    warnNanos = System.nanoTime();
+                }
+            } finally {
+                lock.unlock();
+            }
+
+            if (warn) {
+                log.warn(MessageUtil.format("orderedEventDispatcher events pending", "path", path, "pending", size, "maxPending", maxPending));
+            }
+
+            if (schedule) {
+                schedule();
+            }
+        }
+
+        private void schedule() {
+            try {
+                executor.execute(this);
+            } catch (RejectedExecutionException e) {
+                // executor已满或已关闭时在当前线程执行完, 保证事件不丢失且仍然有序
+                log.warn(MessageUtil.format("orderedEventDispatcher executor rejected, run in caller thread"));
+                while (drain()) {
+                    Thread.yield();
+                }
+            }
+        }
+
+        @Override
+        public void run() {
+            if (drain()) {
+                schedule();
+            }
+        }
+
+        /**
+         * 执行一批事件
+         *
+         * @return true 还有待执行事件
+         */
+        private boolean drain() {
+            for (int i = 0; i < DRAIN_BATCH_SIZE; i++) {
+                Map.Entry<String, PendingEvent> entry;
+                lock.lock();
+                try {
+                    Iterator<Map.Entry<String, PendingEvent>> iterator = pendingEvents.entrySet().iterator();
+                    if (!iterator.hasNext()) {
+                        scheduled = Boolean.FALSE;
+                        return Boolean.FALSE;
+                    }
+                    entry = iterator.next();
+                    iterator.remove();
+                } finally {
+                    lock.unlock();
+                }
+                execute(entry.getKey(), entry.getValue());
+            }
+            return Boolean.TRUE;
+        }
+    }
+}
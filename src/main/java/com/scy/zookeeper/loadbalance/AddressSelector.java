@@ -0,0 +1,22 @@
+package com.scy.zookeeper.loadbalance;
+
+import com.scy.zookeeper.model.AddressSnapshot;
+
+/**
+ * AddressSelector
+ * 负载均衡, 按快照预计算所需数据(AddressSnapshot#getSelectorState), 每次选择不分配对象
+ *
+ * @author shichunyang
+ * Created by shichunyang on 2026/10/17.
+ */
+public interface AddressSelector {
+
+    /**
+     * 选择一个地址
+     *
+     * @param snapshot 地址快照
+     * @param routeKey 路由key(一致性hash使用, 其他算法忽略)
+     * @return 地址, 快照为空时返回null
+     */
+    String select(AddressSnapshot snapshot, String routeKey);
+}
@@ -0,0 +1,86 @@
+package com.scy.zookeeper.loadbalance;
+
+import com.scy.zookeeper.model.AddressSnapshot;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+
+/**
+ * ConsistentHashSelector
+ * 加权rendezvous hash(最高随机权重): 每个地址按 weight / -ln(hash(routeKey, address)) 打分, 取最高分
+ * 地址增减时只有原本落在该地址上的key会迁移, 地址hash按快照预计算
+ *
+ * @author shichunyang
+ * Created by shichunyang on 2026/10/17.
+ */
+public class ConsistentHashSelector implements AddressSelector {
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final Function<AddressSnapshot, long[]> stateBuilder = ConsistentHashSelector::buildAddressHashes;
+
+    @Override
+    public String select(AddressSnapshot snapshot, String routeKey) {
+        int size = snapshot.size();
+        if (size == 0) {
+            return null;
+        }
+        if (routeKey == null) {
+            return snapshot.get(ThreadLocalRandom.current().nextInt(size));
+        }
+
+        long[] addressHashes = snapshot.getSelectorState(this, stateBuilder);
+        long keyHash = fnv1a64(routeKey);
+        int selected = 0;
+        double maxScore = -1D;
+        for (int i = 0; i < size; i++) {
+            int weight = snapshot.getWeight(i);
+            if (weight <= 0) {
+                continue;
+            }
+
+            // (0, 1) 之间的均匀分布
+            double uniform = ((mix64(keyHash ^ addressHashes[i]) >>> 11) + 0.5D) * 0x1.0p-53;
+            double score = weight / -Math.log(uniform);
+            if (score > maxScore) {
+                maxScore = score;
+                selected = i;
+            }
+        }
+        return snapshot.get(selected);
+    }
+
+    private static long[] buildAddressHashes(AddressSnapshot snapshot) {
+        long[] addressHashes = new long[snapshot.size()];
+        for (int i = 0; i < addressHashes.length; i++) {
+            addressHashes[i] = mix64(fnv1a64(snapshot.get(i)));
+        }
+        return addressHashes;
+    }
+
+    /**
+     * FNV-1a 64位hash, 按char计算, 不分配对象
+     */
+    static long fnv1a64(String value) {
+        long hash = FNV_OFFSET_BASIS;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= FNV_PRIME;
+        }
+        return hash;
+    }
+
+    /**
+     * murmur3 finalizer, 打散低质量hash
+     */
+    static long mix64(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+        return value;
+    }
+}
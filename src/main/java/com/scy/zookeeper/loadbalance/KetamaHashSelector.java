@@ -0,0 +1,33 @@
+package com.scy.zookeeper.loadbalance;
+
+import com.scy.zookeeper.model.AddressSnapshot;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+
+/**
+ * KetamaHashSelector
+ * ketama一致性hash, 环按快照构建一次(快照变化时重建), 查询为一次二分查找
+ *
+ * @author shichunyang
+ * Created by shichunyang on 2026/10/17.
+ */
+public class KetamaHashSelector implements AddressSelector {
+
+    private final Function<AddressSnapshot, KetamaRing> stateBuilder = KetamaRing::build;
+
+    @Override
+    public String select(AddressSnapshot snapshot, String routeKey) {
+        if (snapshot.isEmpty()) {
+            return null;
+        }
+        if (routeKey == null) {
+            return snapshot.get(ThreadLocalRandom.current().nextInt(snapshot.size()));
+        }
+        return getRing(snapshot).select(routeKey);
+    }
+
+    public KetamaRing getRing(AddressSnapshot snapshot) {
+        return snapshot.getSelectorState(this, stateBuilder);
+    }
+}
@@ -0,0 +1,119 @@
+package com.scy.zookeeper.loadbalance;
+
+import com.scy.core.exception.BusinessException;
+import com.scy.zookeeper.model.AddressSnapshot;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
+/**
+ * KetamaRing
+ * ketama一致性hash环, 每个地址按权重生成虚拟节点(默认权重160个, 每次md5产生4个节点)
+ * 环以有序的long[](32位无符号hash)与int[](地址下标)保存, 按快照构建一次, 查询时二分查找不分配对象
+ * 地址增减时只有约 1/N 的key迁移
+ * 单个地址的虚拟节点数上限为默认的 MAX_WEIGHT_RATIO 倍, 超出的权重按上限计算, 避免异常权重撑爆环
+ *
+ * @author shichunyang
+ * Created by shichunyang on 2026/10/17.
+ */
+public final class KetamaRing {
+
+    /**
+     * 默认权重地址的虚拟节点数
+     */
+    public static final int VIRTUAL_NODES = 160;
+
+    /**
+     * 单个地址权重相对默认权重的最大倍数
+     */
+    public static final int MAX_WEIGHT_RATIO = 64;
+
+    /**
+     * 单个地址的最大虚拟节点组数(每组4个节点)
+     */
+    static final int MAX_GROUPS = VIRTUAL_NODES * MAX_WEIGHT_RATIO / 4;
+
+    private final AddressSnapshot snapshot;
+
+    private final long[] hashes;
+
+    private final int[] addressIndexes;
+
+    private KetamaRing(AddressSnapshot snapshot, long[] hashes, int[] addressIndexes) {
+        this.snapshot = snapshot;
+        this.hashes = hashes;
+        this.addressIndexes = addressIndexes;
+    }
+
+    public static KetamaRing build(AddressSnapshot snapshot) {
+        int size = snapshot.size();
+        int[] groups = new int[size];
+        int total = 0;
+        for (int i = 0; i < size; i++) {
+            int weight = snapshot.getWeight(i);
+            // 每组4个虚拟节点, 权重大于0的地址至少一组, 至多MAX_GROUPS组
+            groups[i] = weight <= 0 ? 0 : (int) Math.min(MAX_GROUPS, Math.max(1L, (long) VIRTUAL_NODES * weight / AddressSnapshot.DEFAULT_WEIGHT / 4));
+            total += groups[i] * 4;
+        }
+
+        // 高32位hash(翻转符号位, 使有符号排序与无符号hash顺序一致), 低32位地址下标, 排序后拆分
+        long[] points = new long[total];
+        int count = 0;
+        MessageDigest md5 = md5();
+        for (int i = 0; i < size; i++) {
+            String address = snapshot.get(i);
+            for (int group = 0; group < groups[i]; group++) {
+                byte[] digest = md5.digest((address + "-" + group).getBytes(StandardCharsets.UTF_8));
+                for (int h = 0; h < 4; h++) {
+                    long hash = ((long) (digest[3 + h * 4] & 0xff) << 24)
+                            | ((long) (digest[2 + h * 4] & 0xff) << 16)
+                            | ((long) (digest[1 + h * 4] & 0xff) << 8)
+                            | (digest[h * 4] & 0xff);
+                    points[count++] = ((hash ^ 0x80000000L) << 32) | i;
+                }
+            }
+        }
+        Arrays.sort(points);
+
+        long[] hashes = new long[total];
+        int[] addressIndexes = new int[total];
+        for (int i = 0; i < total; i++) {
+            hashes[i] = (points[i] >>> 32) ^ 0x80000000L;
+            addressIndexes[i] = (int) points[i];
+        }
+        return new KetamaRing(snapshot, hashes, addressIndexes);
+    }
+
+    public int size() {
+        return hashes.length;
+    }
+
+    /**
+     * 查询key所在地址, 环为空时返回null
+     */
+    public String select(String routeKey) {
+        if (hashes.length == 0) {
+            return null;
+        }
+
+        long hash = ConsistentHashSelector.mix64(ConsistentHashSelector.fnv1a64(routeKey)) >>> 32;
+        int index = Arrays.binarySearch(hashes, hash);
+        if (index < 0) {
+            index = -index - 1;
+            if (index == hashes.length) {
+                index = 0;
+            }
+        }
+        return snapshot.get(addressIndexes[index]);
+    }
+
+    private static MessageDigest md5() {
+        try {
+            return MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new BusinessException("md5 not supported", e);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.scy.zookeeper.loadbalance;
+
+/**
+ * LoadBalanceEnum
+ *
+ * @author shichunyang
+ * Created by shichunyang on 2026/10/17.
+ */
+public enum LoadBalanceEnum {
+
+    /**
+     * 加权随机
+     */
+    WEIGHTED_RANDOM,
+
+    /**
+     * 平滑加权轮询
+     */
+    SMOOTH_WEIGHTED_ROUND_ROBIN,
+
+    /**
+     * 一致性hash(按routeKey, 加权rendezvous hash, 每次选择O(N))
+     * 无额外内存, 权重精确, 地址变化时只迁移该地址上的key; 适用于地址数较少(几十个以内)的服务
+     */
+    CONSISTENT_HASH,
+
+    /**
+     * ketama一致性hash(按routeKey, 虚拟节点环, 每次选择O(logN))
+     * 每个地址按权重占用虚拟节点, 快照变化时重建环; 适用于地址数较多或选择频繁的服务, 需要与其他ketama客户端路由一致时也使用此算法
+     */
+    KETAMA_HASH,
+
+    /**
+     * 同机房优先(同机房内加权随机, 同机房无可用地址时使用全部地址)
+     */
+    SAME_ZONE_FIRST,
+    ;
+}
@@ -0,0 +1,83 @@
+package com.scy.zookeeper.loadbalance;
+
+import com.scy.core.StringUtil;
+import com.scy.zookeeper.model.AddressSnapshot;
+
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+
+/**
+ * SameZoneFirstSelector
+ * 同机房优先: 同机房地址内加权随机, 同机房无可用地址时在全部地址内加权随机
+ *
+ * @author shichunyang
+ * Created by shichunyang on 2026/10/17.
+ */
+public class SameZoneFirstSelector implements AddressSelector {
+
+    private final String localZone;
+
+    private final WeightedRandomSelector fallbackSelector = new WeightedRandomSelector();
+
+    private final Function<AddressSnapshot, ZoneState> stateBuilder = this::buildZoneState;
+
+    public SameZoneFirstSelector(String localZone) {
+        this.localZone = localZone;
+    }
+
+    @Override
+    public String select(AddressSnapshot snapshot, String routeKey) {
+        if (snapshot.isEmpty()) {
+            return null;
+        }
+        if (StringUtil.isEmpty(localZone)) {
+            return fallbackSelector.select(snapshot, routeKey);
+        }
+
+        ZoneState zoneState = snapshot.getSelectorState(this, stateBuilder);
+        if (zoneState.indexes.length == 0) {
+            return fallbackSelector.select(snapshot, routeKey);
+        }
+
+        int position;
+        if (zoneState.prefixWeights.length == 0) {
+            position = ThreadLocalRandom.current().nextInt(zoneState.indexes.length);
+        } else {
+            position = WeightedRandomSelector.selectIndex(zoneState.prefixWeights, zoneState.indexes.length);
+        }
+        return snapshot.get(zoneState.indexes[position]);
+    }
+
+    private ZoneState buildZoneState(AddressSnapshot snapshot) {
+        int[] indexes = new int[snapshot.size()];
+        long[] prefixWeights = new long[snapshot.size()];
+        int count = 0;
+        long total = 0L;
+        for (int i = 0; i < snapshot.size(); i++) {
+            if (!localZone.equals(snapshot.getZone(i))) {
+                continue;
+            }
+            total += snapshot.getWeight(i);
+            indexes[count] = i;
+            prefixWeights[count] = total;
+            count++;
+        }
+        return new ZoneState(Arrays.copyOf(indexes, count), total <= 0 ? new long[0] : Arrays.copyOf(prefixWeights, count));
+    }
+
+    private static final class ZoneState {
+
+        private final int[] indexes;
+
+        /**
+         * 同机房地址的权重前缀和, 权重全为0时为空数组
+         */
+        private final long[] prefixWeights;
+
+        private ZoneState(int[] indexes, long[] prefixWeights) {
+            this.indexes = indexes;
+            this.prefixWeights = prefixWeights;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.scy.zookeeper.loadbalance;
+
+import com.scy.zookeeper.model.AddressSnapshot;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Function;
+
+/**
+ * SmoothWeightedRoundRobinSelector
+ * 平滑加权轮询(nginx算法), 权重 5:1:1 时选择序列为 a a b a c a a, 不会连续集中到高权重节点
+ * 当前权重按快照保存, 快照变化后重新开始
+ * 当前权重按线程分段(STRIPES段), 每段各自平滑轮询并只锁本段, 并发选择时不竞争同一把锁
+ *
+ * @author shichunyang
+ * Created by shichunyang on 2026/10/17.
+ */
+public class SmoothWeightedRoundRobinSelector implements AddressSelector {
+
+    /**
+     * 分段数, 不小于cpu数的2倍的2的幂(最多64)
+     */
+    static final int STRIPES = stripes(Runtime.getRuntime().availableProcessors());
+
+    private final Function<AddressSnapshot, AtomicReferenceArray<long[]>> stateBuilder = snapshot -> new AtomicReferenceArray<>(STRIPES);
+
+    @Override
+    public String select(AddressSnapshot snapshot, String routeKey) {
+        int size = snapshot.size();
+        if (size == 0) {
+            return null;
+        }
+
+        long totalWeight = snapshot.getTotalWeight();
+        if (totalWeight <= 0) {
+            return snapshot.get(ThreadLocalRandom.current().nextInt(size));
+        }
+
+        long[] currentWeights = getCurrentWeights(snapshot.getSelectorState(this, stateBuilder), size);
+        int selected = -1;
+        synchronized (currentWeights) {
+            for (int i = 0; i < size; i++) {
+                currentWeights[i] += snapshot.getWeight(i);
+                if (selected < 0 || currentWeights[i] > currentWeights[selected]) {
+                    selected = i;
+                }
+            }
+            currentWeights[selected] -= totalWeight;
+        }
+        return snapshot.get(selected);
+    }
+
+    /**
+     * 当前线程所在分段的当前权重, 首次使用时创建
+     */
+    private static long[] getCurrentWeights(AtomicReferenceArray<long[]> stripes, int size) {
+        int stripe = (int) Thread.currentThread().getId() & (STRIPES - 1);
+        long[] currentWeights = stripes.get(stripe);
+        if (currentWeights == null) {
+            stripes.compareAndSet(stripe, null, new long[size]);
+            currentWeights = stripes.get(stripe);
+        }
+        return currentWeights;
+    }
+
+    static int stripes(int processors) {
+        int stripes = 1;
+        while (stripes < processors * 2 && stripes < 64) {
+            stripes <<= 1;
+        }
+        return stripes;
+    }
+}
@@ -0,0 +1,64 @@
+package com.scy.zookeeper.loadbalance;
+
+import com.scy.zookeeper.model.AddressSnapshot;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+
+/**
+ * WeightedRandomSelector
+ * 加权随机, 按快照预计算权重前缀和, 选择时二分查找
+ *
+ * @author shichunyang
+ * Created by shichunyang on 2026/10/17.
+ */
+public class WeightedRandomSelector implements AddressSelector {
+
+    private final Function<AddressSnapshot, long[]> stateBuilder = WeightedRandomSelector::buildPrefixWeights;
+
+    @Override
+    public String select(AddressSnapshot snapshot, String routeKey) {
+        if (snapshot.isEmpty()) {
+            return null;
+        }
+        return snapshot.get(selectIndex(snapshot.getSelectorState(this, stateBuilder), snapshot.size()));
+    }
+
+    /**
+     * @param prefixWeights 权重前缀和, 权重全为0时为空数组
+     */
+    static int selectIndex(long[] prefixWeights, int size) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        if (prefixWeights.length == 0) {
+            return random.nextInt(size);
+        }
+
+        // 第一个前缀和大于随机数的下标(权重为0的地址前缀和与前一个相同, 不会被选中)
+        long value = random.nextLong(prefixWeights[prefixWeights.length - 1]);
+        int low = 0;
+        int high = prefixWeights.length - 1;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (prefixWeights[middle] > value) {
+                high = middle;
+            } else {
+                low = middle + 1;
+            }
+        }
+        return low;
+    }
+
+    static long[] buildPrefixWeights(AddressSnapshot snapshot) {
+        if (snapshot.getTotalWeight() <= 0) {
+            return new long[0];
+        }
+
+        long[] prefixWeights = new long[snapshot.size()];
+        long total = 0L;
+        for (int i = 0; i < snapshot.size(); i++) {
+            total += snapshot.getWeight(i);
+            prefixWeights[i] = total;
+        }
+        return prefixWeights;
+    }
+}
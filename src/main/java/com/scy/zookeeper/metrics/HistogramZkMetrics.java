@@ -0,0 +1,183 @@
+package com.scy.zookeeper.metrics;
+
+import com.scy.core.format.MessageUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.zookeeper.KeeperException;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * HistogramZkMetrics
+ * 内置指标实现: 按 操作 + path前缀 统计耗时直方图, 按 操作 + 错误码 计数, 以及瞬时值指标
+ *
+ * @author shichunyang
+ * Created by shichunyang on 2026/10/17.
+ */
+@Slf4j
+public class HistogramZkMetrics implements ZkMetrics {
+
+    /**
+     * 默认按path前2级归并
+     */
+    public static final int DEFAULT_PREFIX_DEPTH = 2;
+
+    /**
+     * 默认每个操作最多统计的path前缀数
+     */
+    public static final int DEFAULT_MAX_PREFIXES = 256;
+
+    /**
+     * 超出前缀数上限的path归入此前缀
+     */
+    public static final String OTHER_PREFIX = "other";
+
+    private final int prefixDepth;
+
+    private final int maxPrefixes;
+
+    /**
+     * 操作 -> path前缀 -> 直方图
+     */
+    private final Map<String, Map<String, LatencyHistogram>> latencyMap = new ConcurrentHashMap<>();
+
+    /**
+     * 事件分发等待时间, path前缀 -> 直方图
+     */
+    private final Map<String, LatencyHistogram> dispatchLagMap = new ConcurrentHashMap<>();
+
+    /**
+     * 操作 -> 错误码 -> 次数
+     */
+    private final Map<String, Map<KeeperException.Code, LongAdder>> errorMap = new ConcurrentHashMap<>();
+
+    private final Map<String, LongSupplier> gaugeMap = new ConcurrentHashMap<>();
+
+    public HistogramZkMetrics() {
+        this(DEFAULT_PREFIX_DEPTH);
+    }
+
+    /**
+     * @param prefixDepth path按前几级归并, 如 2 表示 /scy-rpc/prod/xxx 归并为 /scy-rpc/prod
+     */
+    public HistogramZkMetrics(int prefixDepth) {
+        this(prefixDepth, DEFAULT_MAX_PREFIXES);
+    }
+
+    /**
+     * @param prefixDepth path按前几级归并, 如 2 表示 /scy-rpc/prod/xxx 归并为 /scy-rpc/prod
+     * @param maxPrefixes 每个操作最多统计的path前缀数, 超出的归入 other, 防止锁key等动态path使直方图无限增长
+     */
+    public HistogramZkMetrics(int prefixDepth, int maxPrefixes) {
+        this.prefixDepth = prefixDepth;
+        this.maxPrefixes = maxPrefixes;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return Boolean.TRUE;
+    }
+
+    @Override
+    public void recordLatency(String operation, String path, long nanos) {
+        getHistogram(latencyMap.computeIfAbsent(operation, key -> new ConcurrentHashMap<>()), path).record(nanos);
+    }
+
+    @Override
+    public void recordError(String operation, String path, KeeperException.Code code) {
+        errorMap.computeIfAbsent(operation, key -> new ConcurrentHashMap<>()).computeIfAbsent(code, key -> new LongAdder()).increment();
+    }
+
+    @Override
+    public void recordDispatchLag(String path, long nanos) {
+        getHistogram(dispatchLagMap, path).record(nanos);
+    }
+
+    @Override
+    public void registerGauge(String name, LongSupplier supplier) {
+        gaugeMap.put(name, supplier);
+    }
+
+    public LatencyHistogram getLatency(String operation, String pathPrefix) {
+        Map<String, LatencyHistogram> histogramMap = latencyMap.get(operation);
+        return histogramMap == null ? null : histogramMap.get(pathPrefix);
+    }
+
+    public long getErrorCount(String operation, KeeperException.Code code) {
+        Map<KeeperException.Code, LongAdder> codeMap = errorMap.get(operation);
+        LongAdder counter = codeMap == null ? null : codeMap.get(code);
+        return counter == null ? 0L : counter.sum();
+    }
+
+    public long getGauge(String name) {
+        LongSupplier supplier = gaugeMap.get(name);
+        return supplier == null ? 0L : supplier.getAsLong();
+    }
+
+    /**
+     * 当前全部指标, 耗时单位为微秒
+     */
+    public Map<String, Object> report() {
+        Map<String, Object> report = new TreeMap<>();
+        latencyMap.forEach((operation, histogramMap) -> histogramMap.forEach((prefix, histogram) -> report.put("latency." + operation + "." + prefix, summary(histogram))));
+        dispatchLagMap.forEach((prefix, histogram) -> report.put("dispatchLag." + prefix, summary(histogram)));
+        errorMap.forEach((operation, codeMap) -> codeMap.forEach((code, counter) -> report.put("error." + operation + "." + code.name(), counter.sum())));
+        gaugeMap.forEach((name, supplier) -> report.put("gauge." + name, supplier.getAsLong()));
+        return report;
+    }
+
+    /**
+     * 输出到日志, 可由调用方定时执行
+     */
+    public void logReport() {
+        log.info(MessageUtil.format("zk metrics", "report", report()));
+    }
+
+    private LatencyHistogram getHistogram(Map<String, LatencyHistogram> histogramMap, String path) {
+        String prefix = getPathPrefix(path, prefixDepth);
+        LatencyHistogram histogram = histogramMap.get(prefix);
+        if (histogram == null) {
+            if (histogramMap.size() >= maxPrefixes) {
+                prefix = OTHER_PREFIX;
+            }
+            histogram = histogramMap.computeIfAbsent(prefix, key -> new LatencyHistogram());
+        }
+        return histogram;
+    }
+
+    /**
+     * path去掉最后一级(叶子节点)后最多保留前prefixDepth级, 如 /a/b 为 /a, /a 为 /
+     */
+    static String getPathPrefix(String path, int prefixDepth) {
+        int end = path == null ? -1 : path.lastIndexOf('/');
+        if (end <= 0) {
+            return "/";
+        }
+
+        int index = 0;
+        for (int depth = 0; depth < prefixDepth; depth++) {
+            int next = path.indexOf('/', index + 1);
+            if (next < 0 || next > end) {
+                return path.substring(0, end);
+            }
+            index = next;
+        }
+        return index == 0 ? "/" : path.substring(0, index);
+    }
+
+    private static Map<String, Long> summary(LatencyHistogram histogram) {
+        Map<String, Long> summary = new LinkedHashMap<>();
+        summary.put("count", histogram.getCount());
+        summary.put("meanUs", TimeUnit.NANOSECONDS.toMicros(histogram.getMean()));
+        summary.put("p50Us", TimeUnit.NANOSECONDS.toMicros(histogram.getValueAtQuantile(0.5D)));
+        summary.put("p99Us", TimeUnit.NANOSECONDS.toMicros(histogram.getValueAtQuantile(0.99D)));
+        summary.put("p999Us", TimeUnit.NANOSECONDS.toMicros(histogram.getValueAtQuantile(0.999D)));
+        summary.put("maxUs", TimeUnit.NANOSECONDS.toMicros(histogram.getMax()));
+        return summary;
+    }
+}
@@ -0,0 +1,107 @@
+package com.scy.zookeeper.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * LatencyHistogram
+ * 对数分桶直方图(HdrHistogram思路): 每个2的幂区间分为16个子桶, 相对误差不超过 1/16, 记录时无锁且不分配对象
+ * 覆盖 1 微秒 ~ 约 2^45 纳秒(约9小时), 超出部分计入最后一个桶
+ *
+ * @author shichunyang
+ * Created by shichunyang on 2026/10/17.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 4;
+
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    /**
+     * 最小精度 2^10 纳秒(约1微秒)
+     */
+    private static final int UNIT_SHIFT = 10;
+
+    private static final int MAGNITUDES = 31;
+
+    private final AtomicLongArray buckets = new AtomicLongArray((MAGNITUDES + 1) * SUB_BUCKETS);
+
+    private final LongAdder count = new LongAdder();
+
+    private final LongAdder sum = new LongAdder();
+
+    private volatile long max;
+
+    public void record(long nanos) {
+        long value = Math.max(nanos, 0L);
+        buckets.incrementAndGet(bucketIndex(value));
+        count.increment();
+        sum.add(value);
+        if (value > max) {
+            max = value;
+        }
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public long getMax() {
+        return max;
+    }
+
+    public long getMean() {
+        long total = count.sum();
+        return total == 0 ? 0L : sum.sum() / total;
+    }
+
+    /**
+     * 分位数(纳秒, 取所在桶的上界)
+     *
+     * @param quantile 0 ~ 1
+     */
+    public long getValueAtQuantile(double quantile) {
+        long total = 0L;
+        long[] counts = new long[buckets.length()];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = buckets.get(i);
+            total += counts[i];
+        }
+        if (total == 0) {
+            return 0L;
+        }
+
+        long target = Math.max(1L, (long) Math.ceil(total * quantile));
+        long seen = 0L;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= target) {
+                return Math.min(bucketUpperBound(i), max);
+            }
+        }
+        return max;
+    }
+
+    private static int bucketIndex(long nanos) {
+        long units = nanos >>> UNIT_SHIFT;
+        if (units < SUB_BUCKETS) {
+            return (int) units;
+        }
+
+        int magnitude = 63 - Long.numberOfLeadingZeros(units) - SUB_BUCKET_BITS + 1;
+        if (magnitude > MAGNITUDES) {
+            return (MAGNITUDES + 1) * SUB_BUCKETS - 1;
+        }
+        int subBucket = (int) (units >>> (magnitude - 1)) & (SUB_BUCKETS - 1);
+        return magnitude * SUB_BUCKETS + subBucket;
+    }
+
+    private static long bucketUpperBound(int index) {
+        int magnitude = index / SUB_BUCKETS;
+        int subBucket = index % SUB_BUCKETS;
+        if (magnitude == 0) {
+            return ((long) subBucket + 1) << UNIT_SHIFT;
+        }
+        return ((long) (SUB_BUCKETS + subBucket) + 1) << (magnitude - 1 + UNIT_SHIFT);
+    }
+}
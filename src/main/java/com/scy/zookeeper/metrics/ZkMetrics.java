@@ -0,0 +1,54 @@
+package com.scy.zookeeper.metrics;
+
+import org.apache.zookeeper.KeeperException;
+
+import java.util.function.LongSupplier;
+
+/**
+ * ZkMetrics
+ * ZkClient指标扩展点, 默认NOOP(ZkClient不计时, 几乎无开销), 可接入HistogramZkMetrics或自定义实现(如micrometer)
+ *
+ * @author shichunyang
+ * Created by shichunyang on 2026/10/17.
+ */
+public interface ZkMetrics {
+
+    ZkMetrics NOOP = new ZkMetrics() {
+    };
+
+    /**
+     * 是否启用, 未启用时ZkClient不调用其他方法
+     */
+    default boolean isEnabled() {
+        return Boolean.FALSE;
+    }
+
+    /**
+     * 操作耗时
+     *
+     * @param operation 操作名, 如 getData/createNodeAsync
+     * @param path      节点path(实现方自行归并为前缀)
+     */
+    default void recordLatency(String operation, String path, long nanos) {
+    }
+
+    /**
+     * 操作失败
+     *
+     * @param code zookeeper错误码, 非KeeperException时为SYSTEMERROR
+     */
+    default void recordError(String operation, String path, KeeperException.Code code) {
+    }
+
+    /**
+     * 监听事件从产生到开始执行的等待时间
+     */
+    default void recordDispatchLag(String path, long nanos) {
+    }
+
+    /**
+     * 注册瞬时值指标(并发请求数/排队数/监听数等)
+     */
+    default void registerGauge(String name, LongSupplier supplier) {
+    }
+}
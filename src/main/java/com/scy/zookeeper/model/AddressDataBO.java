@@ -17,4 +17,19 @@ import lombok.ToString;
 public class AddressDataBO {
 
     private Boolean enable;
+
+    /**
+     * 权重, 为空时使用默认权重
+     */
+    private Integer weight;
+
+    /**
+     * 所在机房/可用区
+     */
+    private String zone;
+
+    /**
+     * 服务版本
+     */
+    private String version;
 }
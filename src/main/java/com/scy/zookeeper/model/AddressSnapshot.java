@@ -0,0 +1,242 @@
+package com.scy.zookeeper.model;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * @author : shichunyang
+ * Date    : 2026/10/17
+ * Time    : 2:16 下午
+ * ---------------------------------------
+ * Desc    : 不可变的服务地址快照(有序数组, 权重/机房/版本/启用状态为平行数组), 变更时整体替换
+ */
+@Getter
+public final class AddressSnapshot {
+
+    /**
+     * 未设置权重时的默认权重
+     */
+    public static final int DEFAULT_WEIGHT = 100;
+
+    public static final AddressSnapshot EMPTY = new AddressSnapshot(new String[0], new int[0], new String[0], new String[0], new boolean[0], 0L);
+
+    /**
+     * 有序地址, 创建后不再修改
+     */
+    @Getter(AccessLevel.NONE)
+    private final String[] addresses;
+
+    @Getter(AccessLevel.NONE)
+    private final int[] weights;
+
+    @Getter(AccessLevel.NONE)
+    private final String[] zones;
+
+    @Getter(AccessLevel.NONE)
+    private final String[] addressVersions;
+
+    /**
+     * 启用状态, 未设置时为启用
+     */
+    @Getter(AccessLevel.NONE)
+    private final boolean[] enables;
+
+    /**
+     * 版本号, 每次变更递增
+     */
+    private final long version;
+
+    /**
+     * 地址列表hash, 创建时计算
+     */
+    private final int hash;
+
+    /**
+     * 权重之和(long, 地址多且权重大时不溢出)
+     */
+    private final long totalWeight;
+
+    /**
+     * 按快照预计算的负载均衡数据(key为selector), 首次使用时创建
+     */
+    @Getter(AccessLevel.NONE)
+    private final Map<Object, Object> selectorStates = new ConcurrentHashMap<>(4);
+
+    private AddressSnapshot(String[] addresses, int[] weights, String[] zones, String[] addressVersions, boolean[] enables, long version) {
+        this.addresses = addresses;
+        this.weights = weights;
+        this.zones = zones;
+        this.addressVersions = addressVersions;
+        this.enables = enables;
+        this.version = version;
+        this.hash = Arrays.hashCode(addresses);
+
+        long total = 0L;
+        for (int weight : weights) {
+            total += weight;
+        }
+        this.totalWeight = total;
+    }
+
+    public int size() {
+        return addresses.length;
+    }
+
+    public boolean isEmpty() {
+        return addresses.length == 0;
+    }
+
+    public String get(int index) {
+        return addresses[index];
+    }
+
+    public int getWeight(int index) {
+        return weights[index];
+    }
+
+    public String getZone(int index) {
+        return zones[index];
+    }
+
+    public String getAddressVersion(int index) {
+        return addressVersions[index];
+    }
+
+    public boolean isEnable(int index) {
+        return enables[index];
+    }
+
+    public boolean contains(String address) {
+        return Arrays.binarySearch(addresses, address) >= 0;
+    }
+
+    public int indexOf(String address) {
+        return Arrays.binarySearch(addresses, address);
+    }
+
+    /**
+     * 获取按快照预计算的数据, 不存在时创建(同一快照同一key只保留一份)
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T getSelectorState(Object key, Function<AddressSnapshot, T> builder) {
+        Object state = selectorStates.get(key);
+        if (state == null) {
+            state = selectorStates.computeIfAbsent(key, k -> builder.apply(this));
+        }
+        return (T) state;
+    }
+
+    /**
+     * 添加地址(默认权重, 无元数据), 返回新快照(地址已存在时返回自身)
+     */
+    public AddressSnapshot add(String address) {
+        if (contains(address)) {
+            return this;
+        }
+        return put(address, null);
+    }
+
+    /**
+     * 添加或更新地址及元数据, 返回新快照(地址已存在且元数据未变化时返回自身)
+     */
+    public AddressSnapshot put(String address, AddressDataBO addressData) {
+        int weight = addressData == null || addressData.getWeight() == null ? DEFAULT_WEIGHT : Math.max(addressData.getWeight(), 0);
+        String zone = addressData == null ? null : addressData.getZone();
+        String addressVersion = addressData == null ? null : addressData.getVersion();
+        boolean enable = addressData == null || !Boolean.FALSE.equals(addressData.getEnable());
+
+        int index = Arrays.binarySearch(addresses, address);
+        if (index >= 0) {
+            if (weights[index] == weight && Objects.equals(zones[index], zone) && Objects.equals(addressVersions[index], addressVersion) && enables[index] == enable) {
+                return this;
+            }
+
+            int[] newWeights = weights.clone();
+            String[] newZones = zones.clone();
+            String[] newAddressVersions = addressVersions.clone();
+            boolean[] newEnables = enables.clone();
+            newWeights[index] = weight;
+            newZones[index] = zone;
+            newAddressVersions[index] = addressVersion;
+            newEnables[index] = enable;
+            return new AddressSnapshot(addresses, newWeights, newZones, newAddressVersions, newEnables, version + 1);
+        }
+
+        int insertIndex = -index - 1;
+        int length = addresses.length;
+        String[] newAddresses = new String[length + 1];
+        int[] newWeights = new int[length + 1];
+        String[] newZones = new String[length + 1];
+        String[] newAddressVersions = new String[length + 1];
+        boolean[] newEnables = new boolean[length + 1];
+        insert(addresses, newAddresses, insertIndex, address);
+        insert(zones, newZones, insertIndex, zone);
+        insert(addressVersions, newAddressVersions, insertIndex, addressVersion);
+        System.arraycopy(weights, 0, newWeights, 0, insertIndex);
+        newWeights[insertIndex] = weight;
+        System.arraycopy(weights, insertIndex, newWeights, insertIndex + 1, length - insertIndex);
+        System.arraycopy(enables, 0, newEnables, 0, insertIndex);
+        newEnables[insertIndex] = enable;
+        System.arraycopy(enables, insertIndex, newEnables, insertIndex + 1, length - insertIndex);
+        return new AddressSnapshot(newAddresses, newWeights, newZones, newAddressVersions, newEnables, version + 1);
+    }
+
+    /**
+     * 删除地址, 返回新快照(地址不存在时返回自身)
+     */
+    public AddressSnapshot remove(String address) {
+        int index = Arrays.binarySearch(addresses, address);
+        if (index < 0) {
+            return this;
+        }
+
+        int length = addresses.length;
+        String[] newAddresses = new String[length - 1];
+        int[] newWeights = new int[length - 1];
+        String[] newZones = new String[length - 1];
+        String[] newAddressVersions = new String[length - 1];
+        boolean[] newEnables = new boolean[length - 1];
+        delete(addresses, newAddresses, index);
+        delete(zones, newZones, index);
+        delete(addressVersions, newAddressVersions, index);
+        System.arraycopy(weights, 0, newWeights, 0, index);
+        System.arraycopy(weights, index + 1, newWeights, index, length - index - 1);
+        System.arraycopy(enables, 0, newEnables, 0, index);
+        System.arraycopy(enables, index + 1, newEnables, index, length - index - 1);
+        return new AddressSnapshot(newAddresses, newWeights, newZones, newAddressVersions, newEnables, version + 1);
+    }
+
+    /**
+     * 地址元数据(用于注册与本地快照)
+     */
+    public AddressDataBO getAddressData(int index) {
+        AddressDataBO addressDataBO = new AddressDataBO();
+        addressDataBO.setEnable(enables[index] ? Boolean.TRUE : Boolean.FALSE);
+        addressDataBO.setWeight(weights[index]);
+        addressDataBO.setZone(zones[index]);
+        addressDataBO.setVersion(addressVersions[index]);
+        return addressDataBO;
+    }
+
+    private static void insert(String[] source, String[] target, int index, String value) {
+        System.arraycopy(source, 0, target, 0, index);
+        target[index] = value;
+        System.arraycopy(source, index, target, index + 1, source.length - index);
+    }
+
+    private static void delete(String[] source, String[] target, int index) {
+        System.arraycopy(source, 0, target, 0, index);
+        System.arraycopy(source, index + 1, target, index, source.length - index - 1);
+    }
+
+    @Override
+    public String toString() {
+        return "AddressSnapshot(version=" + version + ", addresses=" + Arrays.toString(addresses) + ", weights=" + Arrays.toString(weights) + ")";
+    }
+}
@@ -0,0 +1,65 @@
+package com.scy.zookeeper.model;
+
+import com.scy.core.json.JsonUtil;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * @author : shichunyang
+ * Date    : 2026/10/17
+ * Time    : 2:10 下午
+ * ---------------------------------------
+ * Desc    : 分块存储的清单, 写在原节点上, 分块以子节点 chunk-{sha256} 存储(内容寻址, 未变化的分块更新时跳过)
+ * 清单格式: 0x00 0x00 + json, 不会与普通字符串及ZkCodecs压缩格式(0x00 + codecId>0)冲突
+ */
+@Getter
+@Setter
+@ToString
+public class ChunkManifest {
+
+    public static final String CHUNK_PREFIX = "chunk-";
+
+    private static final String MANIFEST_PREFIX = "\u0000\u0000";
+
+    /**
+     * 原始数据总长度
+     */
+    private int length;
+
+    /**
+     * 原始数据sha256
+     */
+    private String checksum;
+
+    /**
+     * 分块sha256, 按顺序拼接为原始数据
+     */
+    private List<String> chunks;
+
+    public static boolean isManifest(byte[] data) {
+        return data != null && data.length > 2 && data[0] == 0 && data[1] == 0;
+    }
+
+    public static boolean isManifest(String data) {
+        return data != null && data.length() > 2 && data.startsWith(MANIFEST_PREFIX);
+    }
+
+    public static ChunkManifest parse(byte[] data) {
+        if (!isManifest(data)) {
+            return null;
+        }
+        return JsonUtil.json2Object(new String(data, 2, data.length - 2, StandardCharsets.UTF_8), ChunkManifest.class);
+    }
+
+    public byte[] toBytes() {
+        return (MANIFEST_PREFIX + JsonUtil.object2Json(this)).getBytes(StandardCharsets.UTF_8);
+    }
+
+    public static String chunkName(String hash) {
+        return CHUNK_PREFIX + hash;
+    }
+}
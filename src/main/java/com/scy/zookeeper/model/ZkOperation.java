@@ -0,0 +1,83 @@
+package com.scy.zookeeper.model;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+import org.apache.zookeeper.CreateMode;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * @author : shichunyang
+ * Date    : 2026/10/17
+ * Time    : 3:05 下午
+ * ---------------------------------------
+ * Desc    : 批量事务中的单个操作
+ */
+@Getter
+@ToString
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class ZkOperation {
+
+    /**
+     * 单个操作除path与data外的预估请求开销
+     */
+    private static final int OPERATION_OVERHEAD_BYTES = 64;
+
+    private final Type type;
+
+    private final String path;
+
+    private final String data;
+
+    private final CreateMode createMode;
+
+    /**
+     * 创建节点(若节点存在则跳过)
+     */
+    public static ZkOperation create(String path, String data, CreateMode createMode) {
+        return new ZkOperation(Type.CREATE, path, data, createMode);
+    }
+
+    /**
+     * 修改节点数据(若节点不存在则创建)
+     */
+    public static ZkOperation setData(String path, String data) {
+        return setData(path, data, CreateMode.PERSISTENT);
+    }
+
+    /**
+     * 修改节点数据(若节点不存在则按createMode创建)
+     */
+    public static ZkOperation setData(String path, String data, CreateMode createMode) {
+        return new ZkOperation(Type.SET_DATA, path, data, createMode);
+    }
+
+    /**
+     * 删除节点
+     */
+    public static ZkOperation delete(String path) {
+        return new ZkOperation(Type.DELETE, path, null, null);
+    }
+
+    public byte[] getDataBytes() {
+        return data == null ? new byte[0] : data.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 预估请求字节数, 用于按jute.maxbuffer拆分批次
+     */
+    public int estimateBytes() {
+        return OPERATION_OVERHEAD_BYTES + path.length() * 3 + (data == null ? 0 : data.length() * 3);
+    }
+
+    public enum Type {
+
+        CREATE,
+
+        SET_DATA,
+
+        DELETE,
+    }
+}
@@ -0,0 +1,118 @@
+package com.scy.zookeeper;
+
+import com.scy.zookeeper.metrics.HistogramZkMetrics;
+import com.scy.zookeeper.model.ZkOperation;
+import org.apache.zookeeper.CreateMode;
+import org.apache.zookeeper.KeeperException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * ZkClient.batch: 缺失父节点/已存在节点不应导致事务失败退化为逐个执行
+ *
+ * @author shichunyang
+ * Created by shichunyang on 2026/10/17.
+ */
+class ZkClientBatchTest {
+
+    private HistogramZkMetrics metrics;
+
+    private ZkClient zkClient;
+
+    @BeforeEach
+    void setUp() {
+        metrics = new HistogramZkMetrics();
+        zkClient = ZkTestSupport.clientBuilder().namespace("batch-test").metrics(metrics).build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        zkClient.delete("/svc");
+        zkClient.close();
+    }
+
+    @Test
+    void createsMissingParentsInOneTransaction() {
+        int count = zkClient.batch(Arrays.asList(
+                ZkOperation.create("/svc/a/1.1.1.1:80", "a", CreateMode.EPHEMERAL),
+                ZkOperation.create("/svc/b/2.2.2.2:80", "b", CreateMode.EPHEMERAL),
+                ZkOperation.create("/svc/b/3.3.3.3:80", "c", CreateMode.EPHEMERAL)));
+
+        assertEquals(3, count);
+        assertEquals("b", zkClient.doGetContent("/svc/b/2.2.2.2:80"));
+        assertEquals(2, zkClient.getChildren("/svc/b").size());
+        assertEquals(0, metrics.getErrorCount("multi", KeeperException.Code.NONODE));
+    }
+
+    @Test
+    void skipsExistingNodesInsteadOfFallingBack() {
+        zkClient.createNode("/svc/a/1.1.1.1:80", "old", CreateMode.PERSISTENT);
+
+        int count = zkClient.batch(Arrays.asList(
+                ZkOperation.create("/svc/a/1.1.1.1:80", "new", CreateMode.PERSISTENT),
+                ZkOperation.create("/svc/a/2.2.2.2:80", "x", CreateMode.PERSISTENT)));
+
+        assertEquals(1, count);
+        assertEquals("old", zkClient.doGetContent("/svc/a/1.1.1.1:80"));
+        assertTrue(zkClient.checkExists("/svc/a/2.2.2.2:80"));
+        assertEquals(0, metrics.getErrorCount("multi", KeeperException.Code.NODEEXISTS));
+    }
+
+    @Test
+    void setDataCreatesMissingNodeAndDeleteSkipsMissingNode() {
+        zkClient.createNode("/svc/a/k1", "1", CreateMode.PERSISTENT);
+
+        int count = zkClient.batch(Arrays.asList(
+                ZkOperation.setData("/svc/a/k1", "2"),
+                ZkOperation.setData("/svc/c/k2", "3"),
+                ZkOperation.delete("/svc/missing")));
+
+        assertEquals(2, count);
+        assertEquals("2", zkClient.doGetContent("/svc/a/k1"));
+        assertEquals("3", zkClient.doGetContent("/svc/c/k2"));
+        assertEquals(0, metrics.getErrorCount("multi", KeeperException.Code.NONODE));
+    }
+
+    @Test
+    void laterOperationsSeeEarlierOnesInSameBatch() {
+        int count = zkClient.batch(Arrays.asList(
+                ZkOperation.create("/svc/d", "", CreateMode.PERSISTENT),
+                ZkOperation.create("/svc/d/child", "c", CreateMode.PERSISTENT),
+                ZkOperation.delete("/svc/d/child")));
+
+        assertEquals(3, count);
+        assertTrue(zkClient.checkExists("/svc/d"));
+        assertFalse(zkClient.checkExists("/svc/d/child"));
+    }
+
+    @Test
+    void batchInWatcherCallbackDoesNotBlockEventThread() throws Exception {
+        zkClient.createNode("/svc/trigger", "", CreateMode.PERSISTENT);
+        zkClient.createNode("/svc/a/1.1.1.1:80", "old", CreateMode.PERSISTENT);
+        CompletableFuture<Integer> result = new CompletableFuture<>();
+        assertTrue(zkClient.watchIfExists("/svc/trigger", event -> result.complete(zkClient.batch(Arrays.asList(
+                ZkOperation.create("/svc/a/1.1.1.1:80", "new", CreateMode.PERSISTENT),
+                ZkOperation.setData("/svc/e/k", "1"),
+                ZkOperation.delete("/svc/missing"))))));
+
+        zkClient.delete("/svc/trigger");
+
+        assertEquals(1, result.get(10, TimeUnit.SECONDS));
+        assertEquals("1", zkClient.doGetContent("/svc/e/k"));
+    }
+
+    @Test
+    void emptyBatch() {
+        assertEquals(0, zkClient.batch(Collections.emptyList()));
+    }
+}
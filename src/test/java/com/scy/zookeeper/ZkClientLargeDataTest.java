@@ -0,0 +1,121 @@
+package com.scy.zookeeper;
+
+import com.scy.zookeeper.model.ChunkManifest;
+import org.apache.zookeeper.CreateMode;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * ZkClient.setLargeData: 分块写入/读取, 并发写入冲突方不残留分块
+ *
+ * @author shichunyang
+ * Created by shichunyang on 2026/10/17.
+ */
+class ZkClientLargeDataTest {
+
+    private static final int WRITERS = 6;
+
+    private ZkClient zkClient;
+
+    @BeforeEach
+    void setUp() {
+        zkClient = ZkTestSupport.clientBuilder().namespace("large-data-test").build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        zkClient.close();
+    }
+
+    @Test
+    void roundTripsChunkedData() {
+        byte[] data = randomData(new Random(1), ZkClient.LARGE_DATA_CHUNK_BYTES * 2 + 17);
+        assertTrue(zkClient.setLargeData("/round-trip", data));
+        assertArrayEquals(data, zkClient.getLargeData("/round-trip"));
+        assertEquals(3, chunkChildren("/round-trip").size());
+    }
+
+    @Test
+    void readsAndWritesInWatcherCallback() throws Exception {
+        byte[] data = randomData(new Random(2), ZkClient.LARGE_DATA_CHUNK_BYTES * 2 + 5);
+        byte[] newData = randomData(new Random(3), ZkClient.LARGE_DATA_CHUNK_BYTES + 5);
+        assertTrue(zkClient.setLargeData("/watched", data));
+        zkClient.createNode("/trigger", "", CreateMode.PERSISTENT);
+
+        // 另一个客户端没有本地分块缓存, 在zookeeper事件线程中逐个读取分块
+        ZkClient otherClient = ZkTestSupport.newClient("large-data-test");
+        try {
+            CompletableFuture<byte[]> result = new CompletableFuture<>();
+            assertTrue(otherClient.watchIfExists("/trigger", event -> {
+                byte[] readData = otherClient.getLargeData("/watched");
+                result.complete(otherClient.setLargeData("/watched", newData) ? readData : null);
+            }));
+            zkClient.delete("/trigger");
+
+            assertArrayEquals(data, result.get(10, TimeUnit.SECONDS));
+            assertArrayEquals(newData, zkClient.getLargeData("/watched"));
+        } finally {
+            otherClient.close();
+        }
+    }
+
+    @Test
+    void conflictingWritersLeaveNoOrphanChunks() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(WRITERS);
+        try {
+            boolean conflicted = Boolean.FALSE;
+            for (int round = 0; round < 5 && !conflicted; round++) {
+                String path = "/conflict-" + round;
+                CyclicBarrier barrier = new CyclicBarrier(WRITERS);
+                List<CompletableFuture<Boolean>> futures = new ArrayList<>();
+                for (int i = 0; i < WRITERS; i++) {
+                    byte[] data = randomData(new Random(round * 100L + i), ZkClient.LARGE_DATA_CHUNK_BYTES + 1);
+                    futures.add(CompletableFuture.supplyAsync(() -> {
+                        try {
+                            barrier.await(10, TimeUnit.SECONDS);
+                        } catch (Exception e) {
+                            return Boolean.FALSE;
+                        }
+                        return zkClient.setLargeData(path, data);
+                    }, executor));
+                }
+                long successes = futures.stream().filter(CompletableFuture::join).count();
+                conflicted = successes < WRITERS;
+
+                ChunkManifest chunkManifest = ChunkManifest.parse(zkClient.getData(path));
+                Set<String> referencedChunks = chunkManifest.getChunks().stream().map(ChunkManifest::chunkName).collect(Collectors.toSet());
+                assertEquals(referencedChunks, chunkChildren(path));
+                assertTrue(zkClient.getLargeData(path).length > ZkClient.LARGE_DATA_CHUNK_BYTES);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private Set<String> chunkChildren(String path) {
+        return new HashSet<>(zkClient.getChildren(path, Boolean.FALSE)).stream().filter(child -> child.startsWith(ChunkManifest.CHUNK_PREFIX)).collect(Collectors.toSet());
+    }
+
+    private static byte[] randomData(Random random, int length) {
+        byte[] data = new byte[length];
+        random.nextBytes(data);
+        return data;
+    }
+}
@@ -0,0 +1,161 @@
+package com.scy.zookeeper;
+
+import com.scy.zookeeper.metrics.HistogramZkMetrics;
+import org.apache.curator.framework.recipes.cache.ChildData;
+import org.apache.curator.framework.recipes.cache.CuratorCacheListener;
+import org.apache.zookeeper.CreateMode;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * ZkClient共享缓存: 同一子树只有一个CuratorCache, 订阅者在缓存提升后事件不丢失不重复
+ *
+ * @author shichunyang
+ * Created by shichunyang on 2026/10/17.
+ */
+class ZkClientListenerTest {
+
+    private HistogramZkMetrics metrics;
+
+    private ZkClient zkClient;
+
+    @BeforeEach
+    void setUp() {
+        metrics = new HistogramZkMetrics();
+        zkClient = ZkTestSupport.clientBuilder().namespace("listener-test").metrics(metrics).build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        zkClient.delete("/root");
+        zkClient.close();
+    }
+
+    @Test
+    void ancestorSubscribingLaterTakesOverDescendantCache() throws Exception {
+        zkClient.createNodeWithData("/root/child/a", "1", CreateMode.PERSISTENT);
+        zkClient.createNodeWithData("/root/child/b", "1", CreateMode.PERSISTENT);
+        RecordingListener descendantListener = new RecordingListener();
+        zkClient.addListener("/root/child", descendantListener, Runnable::run);
+        assertTrue(descendantListener.initialized.await(10, TimeUnit.SECONDS));
+        int eventsBeforePromotion = descendantListener.events.size();
+
+        RecordingListener ancestorListener = new RecordingListener();
+        zkClient.addListener("/root", ancestorListener, Runnable::run);
+        zkClient.createNodeWithData("/root/child/a", "2", CreateMode.PERSISTENT);
+        zkClient.delete("/root/child/b");
+        assertTrue(ancestorListener.initialized.await(10, TimeUnit.SECONDS));
+
+        assertEquals(1, metrics.getGauge("zk.caches"));
+        zkClient.createNodeWithData("/root/child/c", "1", CreateMode.PERSISTENT);
+        assertTrue(ZkTestSupport.waitUntil(() -> descendantListener.events.contains("NODE_CREATED /root/child/c")));
+        assertTrue(ZkTestSupport.waitUntil(() -> ancestorListener.events.contains("NODE_CREATED /root/child/c")));
+
+        List<String> events = descendantListener.events.subList(eventsBeforePromotion, descendantListener.events.size());
+        assertEquals(1, events.stream().filter("NODE_CHANGED /root/child/a"::equals).count(), events.toString());
+        assertEquals(1, events.stream().filter("NODE_DELETED /root/child/b"::equals).count(), events.toString());
+        assertEquals(1, events.stream().filter("NODE_CREATED /root/child/c"::equals).count(), events.toString());
+        assertTrue(events.stream().noneMatch(event -> event.startsWith("NODE_CREATED /root/child/a")), events.toString());
+        assertEquals(1, descendantListener.initializedCount);
+    }
+
+    @Test
+    void removeListenerClosesEveryCacheOfListener() throws Exception {
+        zkClient.createNodeWithData("/root/x/n", "1", CreateMode.PERSISTENT);
+        zkClient.createNodeWithData("/root/y/n", "1", CreateMode.PERSISTENT);
+        RecordingListener listener = new RecordingListener();
+        zkClient.addListener("/root/x", listener, Runnable::run);
+        zkClient.addListener("/root/y", listener, Runnable::run);
+        assertEquals(2, metrics.getGauge("zk.caches"));
+
+        zkClient.removeListener(listener);
+
+        assertEquals(0, metrics.getGauge("zk.caches"));
+    }
+
+    @Test
+    void sharedCacheStaysOpenWhileOtherSubscribersRemain() throws Exception {
+        zkClient.createNodeWithData("/root/x/n", "1", CreateMode.PERSISTENT);
+        RecordingListener first = new RecordingListener();
+        RecordingListener second = new RecordingListener();
+        zkClient.addListener("/root", first, Runnable::run);
+        zkClient.addListener("/root/x", second, Runnable::run);
+        assertTrue(second.initialized.await(10, TimeUnit.SECONDS));
+        assertEquals(1, metrics.getGauge("zk.caches"));
+
+        zkClient.removeListener(first);
+        zkClient.createNodeWithData("/root/x/m", "1", CreateMode.PERSISTENT);
+
+        assertTrue(ZkTestSupport.waitUntil(() -> second.events.contains("NODE_CREATED /root/x/m")));
+        assertEquals(1, metrics.getGauge("zk.caches"));
+    }
+
+    @Test
+    void blockedSubscriberDoesNotBlockSubscribing() throws Exception {
+        zkClient.createNodeWithData("/root/x/n", "1", CreateMode.PERSISTENT);
+        AtomicBoolean blocking = new AtomicBoolean();
+        CountDownLatch blocked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingListener slow = new RecordingListener();
+        zkClient.addListener("/root", slow, runnable -> {
+            if (blocking.get()) {
+                // 模拟executor队列已满时的阻塞提交
+                blocked.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            runnable.run();
+        });
+        assertTrue(slow.initialized.await(10, TimeUnit.SECONDS));
+
+        try {
+            blocking.set(Boolean.TRUE);
+            zkClient.createNodeWithData("/root/x/m", "1", CreateMode.PERSISTENT);
+            assertTrue(blocked.await(10, TimeUnit.SECONDS));
+
+            RecordingListener other = new RecordingListener();
+            CompletableFuture.runAsync(() -> zkClient.addListener("/root/x", other, Runnable::run)).get(10, TimeUnit.SECONDS);
+            assertTrue(other.initialized.await(10, TimeUnit.SECONDS));
+            assertTrue(other.events.contains("NODE_CREATED /root/x/m"), other.events.toString());
+            CompletableFuture.runAsync(() -> zkClient.removeListener(other)).get(10, TimeUnit.SECONDS);
+        } finally {
+            blocking.set(Boolean.FALSE);
+            release.countDown();
+        }
+        assertTrue(ZkTestSupport.waitUntil(() -> slow.events.contains("NODE_CREATED /root/x/m")));
+    }
+
+    private static class RecordingListener implements CuratorCacheListener {
+
+        private final List<String> events = new CopyOnWriteArrayList<>();
+
+        private final CountDownLatch initialized = new CountDownLatch(1);
+
+        private volatile int initializedCount;
+
+        @Override
+        public void event(Type type, ChildData oldData, ChildData data) {
+            events.add(type + " " + (data != null ? data.getPath() : oldData.getPath()));
+        }
+
+        @Override
+        public void initialized() {
+            initializedCount++;
+            initialized.countDown();
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.scy.zookeeper;
+
+import org.apache.curator.framework.state.ConnectionState;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 会话变化回调/连接回调: 不阻塞Curator的连接状态回调线程
+ *
+ * @author shichunyang
+ * Created by shichunyang on 2026/10/17.
+ */
+class ZkClientSessionTest {
+
+    private ZkClient zkClient;
+
+    @BeforeEach
+    void setUp() {
+        zkClient = ZkTestSupport.clientBuilder().namespace("session-test").build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        zkClient.close();
+    }
+
+    @Test
+    void connectedCallbackRunsOnSessionListenerThread() throws Exception {
+        CompletableFuture<Thread> callbackThread = new CompletableFuture<>();
+        CountDownLatch releaseCallback = new CountDownLatch(1);
+        zkClient.whenConnected(() -> {
+            callbackThread.complete(Thread.currentThread());
+            try {
+                releaseCallback.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        // whenConnected已返回, 回调仍在阻塞: 不在调用线程(或Curator的连接状态回调线程)中执行
+        try {
+            assertNotSame(Thread.currentThread(), callbackThread.get(10, TimeUnit.SECONDS));
+            assertEquals(1L, releaseCallback.getCount());
+        } finally {
+            releaseCallback.countDown();
+        }
+    }
+
+    @Test
+    void slowSessionListenerDoesNotBlockConnectionStateListeners() throws Exception {
+        CountDownLatch listenerStarted = new CountDownLatch(1);
+        CountDownLatch releaseListener = new CountDownLatch(1);
+        zkClient.addSessionListener(() -> {
+            listenerStarted.countDown();
+            try {
+                releaseListener.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        CountDownLatch reconnected = new CountDownLatch(1);
+        ZkTestSupport.curatorFramework(zkClient).getConnectionStateListenable().addListener((client, newState) -> {
+            if (newState == ConnectionState.RECONNECTED) {
+                reconnected.countDown();
+            }
+        });
+        long sessionId = zkClient.getSessionId();
+
+        ZkTestSupport.expireSession(zkClient);
+
+        try {
+            assertTrue(listenerStarted.await(30, TimeUnit.SECONDS));
+            assertTrue(reconnected.await(10, TimeUnit.SECONDS));
+            assertNotEquals(sessionId, zkClient.getSessionId());
+        } finally {
+            releaseListener.countDown();
+        }
+    }
+}
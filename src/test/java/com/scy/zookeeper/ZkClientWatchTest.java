@@ -0,0 +1,71 @@
+package com.scy.zookeeper;
+
+import com.scy.zookeeper.metrics.HistogramZkMetrics;
+import org.apache.curator.framework.api.CuratorWatcher;
+import org.apache.zookeeper.CreateMode;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * ZkClient zk.watches指标: 注册时增加, 触发/节点不存在/会话过期时减少, 同一watcher重复注册只计一次
+ *
+ * @author shichunyang
+ * Created by shichunyang on 2026/10/17.
+ */
+class ZkClientWatchTest {
+
+    private HistogramZkMetrics metrics;
+
+    private ZkClient zkClient;
+
+    @BeforeEach
+    void setUp() {
+        metrics = new HistogramZkMetrics();
+        zkClient = ZkTestSupport.clientBuilder().namespace("watch-test").metrics(metrics).build();
+        zkClient.createNodeWithData("/root", "1", CreateMode.PERSISTENT);
+    }
+
+    @AfterEach
+    void tearDown() {
+        zkClient.delete("/root");
+        zkClient.close();
+    }
+
+    @Test
+    void watchGaugeFollowsRegistrationAndTrigger() throws Exception {
+        CuratorWatcher watcher = event -> {
+        };
+        assertTrue(zkClient.watchIfExists("/root", watcher));
+        assertTrue(zkClient.watchIfExists("/root", watcher));
+        assertEquals(1, metrics.getGauge("zk.watches"));
+
+        zkClient.getChildrenAndAddListener("/root", watcher);
+        assertEquals(2, metrics.getGauge("zk.watches"));
+
+        assertFalse(zkClient.watchIfExists("/missing", watcher));
+        assertEquals(2, metrics.getGauge("zk.watches"));
+
+        zkClient.createNodeWithData("/root", "2", CreateMode.PERSISTENT);
+        assertTrue(ZkTestSupport.waitUntil(() -> metrics.getGauge("zk.watches") == 1L));
+
+        zkClient.createNodeWithData("/root/child", "1", CreateMode.PERSISTENT);
+        assertTrue(ZkTestSupport.waitUntil(() -> metrics.getGauge("zk.watches") == 0L));
+    }
+
+    @Test
+    void sessionExpiryClearsWatches() throws Exception {
+        assertTrue(zkClient.watchIfExists("/root", event -> {
+        }));
+        assertEquals(1, metrics.getGauge("zk.watches"));
+
+        ZkTestSupport.expireSession(zkClient);
+
+        assertTrue(ZkTestSupport.waitUntil(() -> metrics.getGauge("zk.watches") == 0L));
+    }
+}
@@ -0,0 +1,90 @@
+package com.scy.zookeeper;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.ref.WeakReference;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * ZkLockManager: 持有期间锁实例不被回收, 同一ZkClient共用管理器
+ *
+ * @author shichunyang
+ * Created by shichunyang on 2026/10/17.
+ */
+class ZkLockManagerTest {
+
+    private ZkClient zkClient;
+
+    @BeforeEach
+    void setUp() {
+        zkClient = ZkTestSupport.clientBuilder().namespace("lock-manager-test").build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        zkClient.close();
+    }
+
+    @Test
+    void heldLockSurvivesGcAndIsReleasedWhenIdle() throws Exception {
+        ZkLockManager lockManager = new ZkLockManager(zkClient);
+        WeakReference<ZkReentrantLock> lockReference = new WeakReference<>(lockManager.getLock("gc"));
+        lockManager.getLock("gc").lock();
+        assertEquals(1, lockManager.getActiveLockCount());
+
+        assertTrue(ZkTestSupport.fullGc());
+
+        ZkReentrantLock lock = lockManager.getLock("gc");
+        assertSame(lockReference.get(), lock);
+        assertTrue(lock.isHeldByCurrentThread());
+        lock.unlock();
+        assertEquals(0, lockManager.getActiveLockCount());
+    }
+
+    @Test
+    void reentrantHoldsKeepLockActiveUntilLastUnlock() {
+        ZkLockManager lockManager = new ZkLockManager(zkClient);
+        ZkReentrantLock lock = lockManager.getLock("reentrant");
+        lock.lock();
+        lock.lock();
+        lock.unlock();
+        assertEquals(1, lockManager.getActiveLockCount());
+        lock.unlock();
+        assertEquals(0, lockManager.getActiveLockCount());
+    }
+
+    @Test
+    void failedTryLockDoesNotLeaveLockActive() throws Exception {
+        ZkReentrantLock holderLock = new ZkLockManager(zkClient).getLock("try");
+        ZkLockManager lockManager = new ZkLockManager(zkClient);
+        holderLock.lock();
+        try {
+            Thread waiter = new Thread(() -> {
+                try {
+                    lockManager.getLock("try").tryLock(100L, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            waiter.start();
+            waiter.join(10_000L);
+            assertEquals(0, lockManager.getActiveLockCount());
+        } finally {
+            holderLock.unlock();
+        }
+    }
+
+    @Test
+    void zkClientSharesLockManager() {
+        assertSame(zkClient.getLockManager(Boolean.FALSE), zkClient.getLockManager(Boolean.FALSE));
+        assertSame(zkClient.getLockManager(Boolean.TRUE), zkClient.getLockManager(Boolean.TRUE));
+        assertNotSame(zkClient.getLockManager(Boolean.FALSE), zkClient.getLockManager(Boolean.TRUE));
+    }
+}
@@ -0,0 +1,97 @@
+package com.scy.zookeeper;
+
+import org.apache.zookeeper.WatchedEvent;
+import org.apache.zookeeper.Watcher;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * ZkReadCache: 读取期间只有同一path(或子树/全部)失效时才丢弃读取结果
+ *
+ * @author shichunyang
+ * Created by shichunyang on 2026/10/17.
+ */
+class ZkReadCacheTest {
+
+    @Test
+    void invalidationOfOtherPathKeepsLoadedValue() throws Exception {
+        ZkReadCache readCache = new ZkReadCache(1024L * 1024L);
+        AtomicInteger loads = new AtomicInteger();
+        readCache.getContent("/a", () -> {
+            loads.incrementAndGet();
+            readCache.invalidate("/b");
+            return "1";
+        });
+        assertEquals("1", readCache.getContent("/a", () -> {
+            loads.incrementAndGet();
+            return "2";
+        }));
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void invalidationOfSamePathDiscardsLoadedValue() throws Exception {
+        ZkReadCache readCache = new ZkReadCache(1024L * 1024L);
+        assertEquals("1", readCache.getContent("/a", () -> {
+            readCache.process(new WatchedEvent(Watcher.Event.EventType.NodeDataChanged, Watcher.Event.KeeperState.SyncConnected, "/a"));
+            return "1";
+        }));
+        assertEquals("2", readCache.getContent("/a", () -> "2"));
+    }
+
+    @Test
+    void childChangeDiscardsLoadedChildren() throws Exception {
+        ZkReadCache readCache = new ZkReadCache(1024L * 1024L);
+        readCache.getChildren("/a", () -> {
+            readCache.invalidate("/a/x");
+            return new ArrayList<>(Arrays.asList("y"));
+        });
+        assertEquals(Arrays.asList("x", "y"), readCache.getChildren("/a", () -> new ArrayList<>(Arrays.asList("x", "y"))));
+    }
+
+    @Test
+    void invalidateAllDiscardsEveryLoad() throws Exception {
+        ZkReadCache readCache = new ZkReadCache(1024L * 1024L);
+        readCache.getContent("/a", () -> {
+            readCache.invalidateAll();
+            return "1";
+        });
+        assertEquals("2", readCache.getContent("/a", () -> "2"));
+        assertEquals(1L, readCache.size());
+    }
+
+    @Test
+    void evictsByBytesNotEntries() throws Exception {
+        ZkReadCache readCache = new ZkReadCache(256L * 1024L);
+        StringBuilder large = new StringBuilder();
+        for (int i = 0; i < 16 * 1024; i++) {
+            large.append('x');
+        }
+        // 每个约32KB, 节点数据缓存容量128KB, 无法全部保留
+        for (int i = 0; i < 16; i++) {
+            readCache.getContent("/large-" + i, large::toString);
+        }
+        assertTrue(readCache.size() < 16L);
+
+        // 小节点按字节计算可以保留很多
+        for (int i = 0; i < 500; i++) {
+            readCache.getContent("/small-" + i, () -> "1");
+        }
+        assertTrue(readCache.size() >= 400L);
+    }
+
+    @Test
+    void cachedChildrenAreReadOnly() throws Exception {
+        ZkReadCache readCache = new ZkReadCache(1024L * 1024L);
+        List<String> children = readCache.getChildren("/a", () -> new ArrayList<>(Arrays.asList("x")));
+        assertThrows(UnsupportedOperationException.class, () -> children.add("y"));
+    }
+}
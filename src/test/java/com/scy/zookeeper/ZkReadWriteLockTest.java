@@ -0,0 +1,87 @@
+package com.scy.zookeeper;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Lock;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * ZkReadWriteLock: 读写互斥与写锁降级
+ *
+ * @author shichunyang
+ * Created by shichunyang on 2026/10/17.
+ */
+class ZkReadWriteLockTest {
+
+    private ZkClient zkClient;
+
+    private ZkClient otherClient;
+
+    @BeforeEach
+    void setUp() {
+        zkClient = ZkTestSupport.clientBuilder().namespace("rw-lock-test").build();
+        otherClient = ZkTestSupport.clientBuilder().namespace("rw-lock-test").build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        zkClient.close();
+        otherClient.close();
+    }
+
+    @Test
+    void readersShareAndWriterExcludes() throws Exception {
+        ZkReadWriteLock lock = new ZkReadWriteLock(zkClient, "share");
+        ZkReadWriteLock otherLock = new ZkReadWriteLock(otherClient, "share");
+        lock.readLock().lock();
+        try {
+            assertTrue(canLock(otherLock.readLock(), 5_000L));
+            assertFalse(canLock(otherLock.writeLock(), 200L));
+        } finally {
+            lock.readLock().unlock();
+        }
+        assertTrue(canLock(otherLock.writeLock(), 5_000L));
+    }
+
+    @Test
+    void writeHolderCanDowngradeToReadLock() throws Exception {
+        ZkReadWriteLock lock = new ZkReadWriteLock(zkClient, "downgrade");
+        ZkReadWriteLock otherLock = new ZkReadWriteLock(otherClient, "downgrade");
+        lock.writeLock().lock();
+        assertTrue(lock.readLock().tryLock(2, TimeUnit.SECONDS));
+        assertFalse(canLock(otherLock.readLock(), 200L));
+
+        lock.writeLock().unlock();
+        assertTrue(canLock(otherLock.readLock(), 5_000L));
+        assertFalse(canLock(otherLock.writeLock(), 200L));
+
+        lock.readLock().unlock();
+        assertTrue(canLock(otherLock.writeLock(), 5_000L));
+    }
+
+    /**
+     * 在新线程中限时加锁, 成功后立即释放
+     */
+    private static boolean canLock(Lock lock, long timeoutMs) throws Exception {
+        AtomicBoolean locked = new AtomicBoolean();
+        Thread thread = new Thread(() -> {
+            try {
+                if (lock.tryLock(timeoutMs, TimeUnit.MILLISECONDS)) {
+                    locked.set(Boolean.TRUE);
+                    lock.unlock();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        thread.start();
+        thread.join(timeoutMs + 10_000L);
+        return locked.get();
+    }
+}
@@ -0,0 +1,194 @@
+package com.scy.zookeeper;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Field;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * ZkReentrantLock: 不同ZkLockManager(相当于不同JVM)之间通过zookeeper互斥
+ *
+ * @author shichunyang
+ * Created by shichunyang on 2026/10/17.
+ */
+class ZkReentrantLockTest {
+
+    private ZkClient zkClient;
+
+    @BeforeEach
+    void setUp() {
+        zkClient = ZkTestSupport.clientBuilder().namespace("lock-test").build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        zkClient.close();
+    }
+
+    @Test
+    void lockKeepsWaitingWhenInterruptedAndRestoresInterruptFlag() throws Exception {
+        for (boolean fair : new boolean[]{Boolean.FALSE, Boolean.TRUE}) {
+            ZkReentrantLock holderLock = new ZkLockManager(zkClient, fair).getLock("interrupt");
+            ZkReentrantLock waiterLock = new ZkLockManager(zkClient, fair).getLock("interrupt");
+            holderLock.lock();
+
+            CountDownLatch waiting = new CountDownLatch(1);
+            AtomicBoolean interruptedAfterLock = new AtomicBoolean();
+            Thread waiter = new Thread(() -> {
+                waiting.countDown();
+                waiterLock.lock();
+                interruptedAfterLock.set(Thread.currentThread().isInterrupted());
+                waiterLock.unlock();
+            });
+            waiter.start();
+            assertTrue(waiting.await(5, TimeUnit.SECONDS));
+            for (int i = 0; i < 5; i++) {
+                assertTrue(ZkTestSupport.waitUntil(() -> ZkTestSupport.isParked(waiter)));
+                waiter.interrupt();
+            }
+            // 被中断后重新进入等待, 而不是放弃
+            assertTrue(ZkTestSupport.waitUntil(() -> ZkTestSupport.isParked(waiter) || !waiter.isAlive()));
+            assertTrue(waiter.isAlive(), "waiter must not give up while the lock is held");
+
+            holderLock.unlock();
+            waiter.join(10_000L);
+            assertFalse(waiter.isAlive());
+            assertTrue(interruptedAfterLock.get());
+            // 带中断标记释放时也要删除zookeeper节点
+            assertTrue(holderLock.tryLock(5, TimeUnit.SECONDS));
+            holderLock.unlock();
+        }
+    }
+
+    @Test
+    void tryLockTimesOutWhileHeldElsewhere() throws Exception {
+        ZkReentrantLock holderLock = new ZkLockManager(zkClient, Boolean.TRUE).getLock("timeout");
+        ZkReentrantLock waiterLock = new ZkLockManager(zkClient, Boolean.TRUE).getLock("timeout");
+        holderLock.lock();
+        try {
+            assertFalse(CompletableFuture.supplyAsync(() -> {
+                try {
+                    return waiterLock.tryLock(200L, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    return Boolean.FALSE;
+                }
+            }).get(10, TimeUnit.SECONDS));
+        } finally {
+            holderLock.unlock();
+        }
+        assertTrue(waiterLock.tryLock(5, TimeUnit.SECONDS));
+        waiterLock.unlock();
+    }
+
+    @Test
+    void localHandoffAfterSessionExpiryContendsAgain() throws Exception {
+        ZkReentrantLock lock = new ZkLockManager(zkClient).getLock("session");
+        lock.lock();
+
+        CountDownLatch waiting = new CountDownLatch(1);
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread waiter = new Thread(() -> {
+            waiting.countDown();
+            lock.lock();
+            try {
+                locked.countDown();
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                lock.unlock();
+            }
+        });
+        waiter.start();
+        assertTrue(waiting.await(5, TimeUnit.SECONDS));
+
+        long sessionId = zkClient.getSessionId();
+        ZkTestSupport.expireSession(zkClient);
+        assertTrue(ZkTestSupport.waitUntil(() -> zkClient.isConnected() && zkClient.getSessionId() != sessionId));
+
+        ZkClient otherClient = ZkTestSupport.clientBuilder().namespace("lock-test").build();
+        try {
+            ZkReentrantLock otherLock = new ZkLockManager(otherClient).getLock("session");
+            assertTrue(ZkTestSupport.waitUntil(() -> !otherClient.checkExists(ZkLock.LOCK_BASE_PATH + "session")));
+
+            // 旧会话的节点已删除, 等待者必须重新创建节点而不是直接接手
+            lock.unlock();
+            assertTrue(locked.await(10, TimeUnit.SECONDS));
+            assertTrue(otherClient.checkExists(ZkLock.LOCK_BASE_PATH + "session"));
+            assertFalse(otherLock.tryLock(300L, TimeUnit.MILLISECONDS));
+
+            release.countDown();
+            waiter.join(10_000L);
+            assertTrue(otherLock.tryLock(5, TimeUnit.SECONDS));
+            otherLock.unlock();
+        } finally {
+            otherClient.close();
+        }
+    }
+
+    @Test
+    void waiterTimingOutDuringHandoffReleasesNode() throws Exception {
+        ZkReentrantLock lock = new ZkLockManager(zkClient).getLock("handoff");
+        String path = ZkLock.LOCK_BASE_PATH + "handoff";
+        ReentrantLock localLock = localLock(lock);
+        lock.lock();
+
+        // 直接占用本地锁的线程排在等待者之前: 移交后先拿到本地锁且不接手, 使等待者在接手前超时(模拟调度延迟)
+        CountDownLatch blockerLocked = new CountDownLatch(1);
+        AtomicBoolean waiterLeft = new AtomicBoolean();
+        Thread blocker = new Thread(() -> {
+            localLock.lock();
+            try {
+                blockerLocked.countDown();
+                ZkTestSupport.waitUntil(waiterLeft::get);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                localLock.unlock();
+            }
+        });
+        blocker.start();
+        assertTrue(ZkTestSupport.waitUntil(() -> localLock.hasQueuedThread(blocker)));
+
+        AtomicBoolean waiterLocked = new AtomicBoolean(Boolean.TRUE);
+        Thread waiter = new Thread(() -> {
+            try {
+                waiterLocked.set(lock.tryLock(500L, TimeUnit.MILLISECONDS));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        waiter.start();
+        assertTrue(ZkTestSupport.waitUntil(() -> localLock.hasQueuedThread(waiter)));
+
+        lock.unlock();
+        assertTrue(blockerLocked.await(5, TimeUnit.SECONDS));
+        assertTrue(zkClient.checkExists(path), "node is kept for the local handoff");
+        assertTrue(ZkTestSupport.waitUntil(() -> !localLock.hasQueuedThread(waiter)));
+        waiterLeft.set(Boolean.TRUE);
+        waiter.join(10_000L);
+        blocker.join(10_000L);
+
+        assertFalse(waiterLocked.get());
+        assertFalse(zkClient.checkExists(path), "waiter leaving an unclaimed handoff must release the node");
+        ZkReentrantLock otherLock = new ZkLockManager(zkClient).getLock("handoff");
+        assertTrue(otherLock.tryLock(5, TimeUnit.SECONDS));
+        otherLock.unlock();
+    }
+
+    private static ReentrantLock localLock(ZkReentrantLock lock) throws Exception {
+        Field field = ZkReentrantLock.class.getDeclaredField("localLock");
+        field.setAccessible(Boolean.TRUE);
+        return (ReentrantLock) field.get(lock);
+    }
+}
@@ -0,0 +1,65 @@
+package com.scy.zookeeper;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * ZkSemaphore: 许可用完后等待释放
+ *
+ * @author shichunyang
+ * Created by shichunyang on 2026/10/17.
+ */
+class ZkSemaphoreTest {
+
+    private ZkClient zkClient;
+
+    private ZkClient otherClient;
+
+    @BeforeEach
+    void setUp() {
+        zkClient = ZkTestSupport.clientBuilder().namespace("semaphore-test").build();
+        otherClient = ZkTestSupport.clientBuilder().namespace("semaphore-test").build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        zkClient.close();
+        otherClient.close();
+    }
+
+    @Test
+    void waiterAcquiresReleasedPermit() throws Exception {
+        ZkSemaphore semaphore = new ZkSemaphore(zkClient, "permits", 2);
+        ZkSemaphore otherSemaphore = new ZkSemaphore(otherClient, "permits", 2);
+        String first = semaphore.acquire();
+        String second = semaphore.acquire();
+        assertNotNull(first);
+        assertNotNull(second);
+        assertNull(otherSemaphore.tryAcquire(200L, TimeUnit.MILLISECONDS));
+
+        CompletableFuture<String> waiter = CompletableFuture.supplyAsync(() -> {
+            try {
+                return otherSemaphore.tryAcquire(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                return null;
+            }
+        });
+        // 等待者已在zookeeper排队
+        assertTrue(ZkTestSupport.waitUntil(() -> !zkClient.getChildren(ZkSemaphore.SEMAPHORE_BASE_PATH + "permits/queue", Boolean.FALSE).isEmpty()));
+        semaphore.release(first);
+        String lease = waiter.get(15, TimeUnit.SECONDS);
+        assertNotNull(lease);
+
+        otherSemaphore.release(lease);
+        semaphore.release(second);
+        assertNotNull(otherSemaphore.tryAcquire(5, TimeUnit.SECONDS));
+    }
+}
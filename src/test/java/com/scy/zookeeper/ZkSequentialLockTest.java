@@ -0,0 +1,102 @@
+package com.scy.zookeeper;
+
+import org.apache.zookeeper.CreateMode;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * ZkSequentialLock.acquireNode: 创建请求失败(如ConnectionLoss)但服务端已创建的排队节点被接管或删除, 不阻塞后续等待者
+ *
+ * @author shichunyang
+ * Created by shichunyang on 2026/10/17.
+ */
+class ZkSequentialLockTest {
+
+    private ZkClient zkClient;
+
+    private ZkClient otherClient;
+
+    @BeforeEach
+    void setUp() {
+        zkClient = ZkTestSupport.newClient("sequential-lock-test");
+        otherClient = ZkTestSupport.newClient("sequential-lock-test");
+    }
+
+    @AfterEach
+    void tearDown() {
+        zkClient.close();
+        otherClient.close();
+    }
+
+    @Test
+    void nodeOfLostCreateResponseIsAdopted() throws Exception {
+        String lockPath = "/lost-response";
+        String node = acquireNode(lockPath, 5_000L, path -> {
+            // 服务端已创建节点, 客户端未收到响应
+            zkClient.createNode(path, "1", CreateMode.EPHEMERAL_SEQUENTIAL);
+            return null;
+        });
+        assertNotNull(node);
+        assertEquals(Collections.singletonList(node.substring(lockPath.length() + 1)), children(lockPath));
+
+        ZkSequentialLock.deleteNode(zkClient, node);
+        assertQueueNotWedged(lockPath);
+    }
+
+    @Test
+    void duplicateNodesOfRetriedCreateAreDeleted() throws Exception {
+        String lockPath = "/retried-create";
+        String node = acquireNode(lockPath, 5_000L, path -> {
+            // 内部重试创建了两个节点, 只返回后一个
+            zkClient.createNode(path, "1", CreateMode.EPHEMERAL_SEQUENTIAL);
+            return zkClient.createNode(path, "1", CreateMode.EPHEMERAL_SEQUENTIAL);
+        });
+        assertNotNull(node);
+        assertEquals(Collections.singletonList(node.substring(lockPath.length() + 1)), children(lockPath));
+
+        ZkSequentialLock.deleteNode(zkClient, node);
+        assertQueueNotWedged(lockPath);
+    }
+
+    @Test
+    void timedOutWaiterDeletesNodesOfFailedCreates() throws Exception {
+        String lockPath = "/failed-create";
+        ZkSequentialLock holderLock = new ZkSequentialLock(otherClient, lockPath, "lock-", ZkSequentialLock.PREDECESSOR_RULE);
+        assertTrue(holderLock.tryLock(5, TimeUnit.SECONDS));
+
+        assertNull(acquireNode(lockPath, 300L, path -> {
+            zkClient.createNode(path, "1", CreateMode.EPHEMERAL_SEQUENTIAL);
+            zkClient.createNode(path, "1", CreateMode.EPHEMERAL_SEQUENTIAL);
+            return null;
+        }));
+        assertEquals(1, children(lockPath).size());
+
+        holderLock.unlock();
+        assertQueueNotWedged(lockPath);
+    }
+
+    private String acquireNode(String lockPath, long timeoutMs, ZkSequentialLock.NodeCreator nodeCreator) throws InterruptedException {
+        ZkAcquireContext context = new ZkAcquireContext(lockPath, TimeUnit.MILLISECONDS.toNanos(timeoutMs), Boolean.TRUE);
+        return ZkSequentialLock.acquireNode(zkClient, lockPath, "lock-", ZkSequentialLock.PREDECESSOR_RULE, context, nodeCreator);
+    }
+
+    private List<String> children(String lockPath) {
+        return zkClient.getChildren(lockPath, Boolean.FALSE);
+    }
+
+    private void assertQueueNotWedged(String lockPath) throws InterruptedException {
+        ZkSequentialLock lock = new ZkSequentialLock(otherClient, lockPath, "lock-", ZkSequentialLock.PREDECESSOR_RULE);
+        assertTrue(lock.tryLock(5, TimeUnit.SECONDS));
+        lock.unlock();
+    }
+}
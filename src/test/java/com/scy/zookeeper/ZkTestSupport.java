@@ -0,0 +1,135 @@
+package com.scy.zookeeper;
+
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.test.TestingServer;
+import org.apache.zookeeper.Watcher;
+import org.apache.zookeeper.ZooKeeper;
+
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Field;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+/**
+ * 测试辅助: 共享的zookeeper测试服务, 条件轮询, 访问ZkClient内部的CuratorFramework, 模拟会话过期
+ * 测试服务在首次使用时启动, JVM退出时关闭; 各测试类使用不同的namespace互不影响
+ *
+ * @author shichunyang
+ * Created by shichunyang on 2026/10/17.
+ */
+public final class ZkTestSupport {
+
+    /**
+     * 条件轮询的最长等待时间
+     */
+    public static final long WAIT_TIMEOUT_MS = 10_000L;
+
+    private static final long POLL_INTERVAL_MS = 20L;
+
+    private static TestingServer testingServer;
+
+    private ZkTestSupport() {
+    }
+
+    public static synchronized String connectString() {
+        if (testingServer == null) {
+            try {
+                testingServer = new TestingServer(Boolean.TRUE);
+            } catch (Exception e) {
+                throw new IllegalStateException("testing server start failed", e);
+            }
+            TestingServer server = testingServer;
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    server.close();
+                } catch (Exception e) {
+                    // JVM退出, 忽略
+                }
+            }));
+        }
+        return testingServer.getConnectString();
+    }
+
+    /**
+     * 连接测试服务的ZkClient构造器
+     */
+    public static ZkClient.Builder clientBuilder() {
+        return ZkClient.builder().connectString(connectString());
+    }
+
+    public static ZkClient newClient(String namespace) {
+        return clientBuilder().namespace(namespace).build();
+    }
+
+    /**
+     * 轮询直到条件成立
+     *
+     * @return false 超时
+     */
+    public static boolean waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + WAIT_TIMEOUT_MS;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() >= deadline) {
+                return Boolean.FALSE;
+            }
+            TimeUnit.MILLISECONDS.sleep(POLL_INTERVAL_MS);
+        }
+        return Boolean.TRUE;
+    }
+
+    /**
+     * 触发gc直到条件成立
+     *
+     * @return false 超时
+     */
+    public static boolean gcUntil(BooleanSupplier condition) throws InterruptedException {
+        return waitUntil(() -> {
+            System.gc();
+            return condition.getAsBoolean();
+        });
+    }
+
+    /**
+     * 触发gc直到一个不可达对象被回收, 即至少完成了一次完整gc
+     */
+    public static boolean fullGc() throws InterruptedException {
+        WeakReference<Object> canary = new WeakReference<>(new Object());
+        return gcUntil(() -> canary.get() == null);
+    }
+
+    /**
+     * 线程已阻塞在等待中
+     */
+    public static boolean isParked(Thread thread) {
+        Thread.State state = thread.getState();
+        return state == Thread.State.WAITING || state == Thread.State.TIMED_WAITING;
+    }
+
+    static CuratorFramework curatorFramework(ZkClient zkClient) throws Exception {
+        Field field = ZkClient.class.getDeclaredField("curatorFramework");
+        field.setAccessible(Boolean.TRUE);
+        return (CuratorFramework) field.get(zkClient);
+    }
+
+    /**
+     * 服务端使会话过期(用同一会话建立第二个连接后关闭), 临时节点立即删除, 客户端随后以新会话重连
+     */
+    static void expireSession(ZkClient zkClient) throws Exception {
+        CuratorFramework curatorFramework = curatorFramework(zkClient);
+        ZooKeeper zooKeeper = curatorFramework.getZookeeperClient().getZooKeeper();
+        CountDownLatch connected = new CountDownLatch(1);
+        ZooKeeper duplicate = new ZooKeeper(curatorFramework.getZookeeperClient().getCurrentConnectionString(), 10_000, event -> {
+            if (event.getState() == Watcher.Event.KeeperState.SyncConnected) {
+                connected.countDown();
+            }
+        }, zooKeeper.getSessionId(), zooKeeper.getSessionPasswd());
+        try {
+            if (!connected.await(10, TimeUnit.SECONDS)) {
+                throw new IllegalStateException("duplicate session not connected");
+            }
+        } finally {
+            duplicate.close();
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.scy.zookeeper.codec;
+
+import com.scy.core.exception.BusinessException;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * ZkCodecs: 编解码往返, 0x00开头的原始数据, 损坏的头部
+ *
+ * @author shichunyang
+ * Created by shichunyang on 2026/10/17.
+ */
+class ZkCodecsTest {
+
+    @Test
+    void roundTrip() {
+        Random random = new Random(17);
+        for (ZkCodec codec : new ZkCodec[]{null, ZkCodecs.PLAIN, ZkCodecs.DEFLATE}) {
+            for (int length : new int[]{0, 1, 5, 6, 7, ZkCodecs.COMPRESS_THRESHOLD - 1, ZkCodecs.COMPRESS_THRESHOLD, 64 * 1024}) {
+                byte[] compressible = new byte[length];
+                Arrays.fill(compressible, (byte) 'a');
+                byte[] incompressible = new byte[length];
+                random.nextBytes(incompressible);
+                for (byte[] data : new byte[][]{compressible, incompressible, withFirstByte(compressible, 0x00), withFirstByte(incompressible, 0x00)}) {
+                    assertArrayEquals(data, ZkCodecs.decode(ZkCodecs.encode(codec, data)), "codec=" + codec + ", length=" + length);
+                }
+            }
+        }
+    }
+
+    @Test
+    void zeroPrefixedRawDataIsNotMistakenForCompressedData() {
+        // 0x00 + 合法的codecId, 未加头部时会被当作压缩数据解码
+        byte[] data = {0x00, DeflateCodec.ID, 0x00, 0x00, 0x00, 0x10, 0x01, 0x02};
+        byte[] encoded = ZkCodecs.encode(ZkCodecs.PLAIN, data);
+        assertTrue(ZkCodecs.isEncoded(encoded));
+        assertArrayEquals(data, ZkCodecs.decode(encoded));
+    }
+
+    @Test
+    void plainDataIsWrittenWithoutHeader() {
+        byte[] data = "{\"key\":\"value\"}".getBytes(StandardCharsets.UTF_8);
+        assertSame(data, ZkCodecs.encode(ZkCodecs.DEFLATE, data));
+        assertFalse(ZkCodecs.isEncoded(data));
+        assertEquals("{\"key\":\"value\"}", ZkCodecs.decodeToString(data));
+    }
+
+    @Test
+    void rawLengthAboveLimitIsRejectedBeforeAllocating() {
+        byte[] data = {0x00, DeflateCodec.ID, 0x7f, (byte) 0xff, (byte) 0xff, (byte) 0xff, 0x01};
+        assertThrows(BusinessException.class, () -> ZkCodecs.decode(data));
+    }
+
+    private static byte[] withFirstByte(byte[] data, int first) {
+        byte[] result = data.length == 0 ? new byte[1] : data.clone();
+        result[0] = (byte) first;
+        return result;
+    }
+}
@@ -0,0 +1,69 @@
+package com.scy.zookeeper.config;
+
+import com.scy.core.CollectionUtil;
+import com.scy.zookeeper.ZkClient;
+import com.scy.zookeeper.ZkTestSupport;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Value;
+
+import java.lang.ref.WeakReference;
+import java.util.Collections;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * DynamicConfiguration: @Value绑定按(bean, field)去重, 不阻止bean被回收
+ *
+ * @author shichunyang
+ * Created by shichunyang on 2026/10/17.
+ */
+class DynamicConfigurationBindingTest {
+
+    private static final String KEY = "binding.test.timeout";
+
+    private static ZkClient zkClient;
+
+    private static ScheduledExecutorService executor;
+
+    @BeforeAll
+    static void setUp() {
+        zkClient = ZkTestSupport.clientBuilder().namespace("binding-test").build();
+        executor = new ScheduledThreadPoolExecutor(1);
+    }
+
+    @AfterAll
+    static void tearDown() {
+        executor.shutdown();
+        zkClient.close();
+    }
+
+    @Test
+    void sameBeanIsBoundOnceAndReleasedBeanIsPruned() throws Exception {
+        DynamicConfiguration dynamicConfiguration = new DynamicConfiguration(zkClient, executor, 0L);
+        ValueHolder valueHolder = new ValueHolder();
+        dynamicConfiguration.postProcessBeforeInitialization(valueHolder, "valueHolder");
+        dynamicConfiguration.postProcessBeforeInitialization(valueHolder, "valueHolder");
+        assertEquals(1, DynamicConfiguration.BINDING_MAP.get(KEY).size());
+
+        DynamicConfiguration.updateData(Collections.singletonMap(KEY, "42"));
+        assertEquals(42, valueHolder.timeout);
+
+        WeakReference<ValueHolder> reference = new WeakReference<>(valueHolder);
+        valueHolder = null;
+        assertTrue(ZkTestSupport.gcUntil(() -> reference.get() == null), "binding must not keep the bean reachable");
+
+        DynamicConfiguration.updateData(Collections.singletonMap(KEY, "43"));
+        assertTrue(CollectionUtil.isEmpty(DynamicConfiguration.BINDING_MAP.get(KEY)));
+    }
+
+    static class ValueHolder {
+
+        @Value("${" + KEY + "}")
+        private int timeout;
+    }
+}
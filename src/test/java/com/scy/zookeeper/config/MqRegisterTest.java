@@ -0,0 +1,65 @@
+package com.scy.zookeeper.config;
+
+import com.scy.zookeeper.ZkClient;
+import com.scy.zookeeper.ZkTestSupport;
+import com.scy.zookeeper.metrics.HistogramZkMetrics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * MqRegister: 对账只重新创建已删除的注册节点, 节点都存在时不访问zookeeper
+ *
+ * @author shichunyang
+ * Created by shichunyang on 2026/10/17.
+ */
+class MqRegisterTest {
+
+    private HistogramZkMetrics metrics;
+
+    private ZkClient zkClient;
+
+    @BeforeEach
+    void setUp() {
+        metrics = new HistogramZkMetrics();
+        zkClient = ZkTestSupport.clientBuilder().namespace("mq-register-test").metrics(metrics).build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        zkClient.delete("/scy-mq");
+        zkClient.close();
+    }
+
+    @Test
+    void refreshRecreatesOnlyDeletedNodes() throws Exception {
+        MqRegister mqRegister = new MqRegister(zkClient, "test");
+        mqRegister.registry("group-a", "topic-a", Boolean.TRUE);
+        mqRegister.registry("group-b", "topic-b", Boolean.TRUE);
+        String path = mqRegister.topicToPath("topic-a").concat("/group-a");
+
+        mqRegister.refreshRegistryData();
+        assertEquals(0L, multiCount());
+
+        zkClient.delete(path);
+        assertTrue(ZkTestSupport.waitUntil(() -> !mqRegister.getExistPaths().contains(path)));
+        mqRegister.refreshRegistryData();
+
+        assertEquals(1L, multiCount());
+        assertTrue(zkClient.checkExists(path));
+        assertTrue(mqRegister.getExistPaths().contains(path));
+        mqRegister.refreshRegistryData();
+        assertEquals(1L, multiCount());
+    }
+
+    @SuppressWarnings("unchecked")
+    private long multiCount() {
+        return metrics.report().entrySet().stream().filter(entry -> entry.getKey().startsWith("latency.multi."))
+                .mapToLong(entry -> ((Map<String, Long>) entry.getValue()).get("count")).sum();
+    }
+}
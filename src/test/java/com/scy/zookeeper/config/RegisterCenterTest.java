@@ -0,0 +1,119 @@
+package com.scy.zookeeper.config;
+
+import com.scy.zookeeper.ZkClient;
+import com.scy.zookeeper.ZkTestSupport;
+import com.scy.zookeeper.loadbalance.LoadBalanceEnum;
+import com.scy.zookeeper.model.AddressDataBO;
+import com.scy.zookeeper.model.AddressSnapshot;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * RegisterCenter: 重复注册时元数据变更需要写入已存在的节点
+ *
+ * @author shichunyang
+ * Created by shichunyang on 2026/10/17.
+ */
+class RegisterCenterTest {
+
+    private static final String SERVICE_KEY = "order-service";
+
+    private static final String ADDRESS = "10.0.0.1:8080";
+
+    private static ZkClient zkClient;
+
+    @BeforeAll
+    static void setUp() throws Exception {
+        System.setProperty(LocalSnapshotFile.SNAPSHOT_DIR_PROPERTY, Files.createTempDirectory("register-center-test").toString());
+        zkClient = ZkTestSupport.clientBuilder().namespace("register-center-test").build();
+    }
+
+    @AfterAll
+    static void tearDown() {
+        zkClient.close();
+    }
+
+    @Test
+    void reRegistryUpdatesWeightAndZone() throws Exception {
+        RegisterCenter registerCenter = new RegisterCenter(zkClient, "test");
+        registerCenter.init();
+
+        assertTrue(registerCenter.registry(Collections.singleton(SERVICE_KEY), ADDRESS, addressData(1, "zone-a")));
+        assertTrue(ZkTestSupport.waitUntil(() -> hasAddress(registerCenter, 1, "zone-a")));
+
+        assertTrue(registerCenter.registry(Collections.singleton(SERVICE_KEY), ADDRESS, addressData(5, "zone-b")));
+        assertTrue(ZkTestSupport.waitUntil(() -> hasAddress(registerCenter, 5, "zone-b")));
+
+        // 不带元数据的重复注册保持已有元数据
+        String path = registerCenter.serviceKeyToPath(SERVICE_KEY).concat("/").concat(ADDRESS);
+        String data = zkClient.doGetContent(path);
+        assertTrue(registerCenter.registry(Collections.singleton(SERVICE_KEY), ADDRESS));
+        assertEquals(data, zkClient.doGetContent(path));
+        assertTrue(hasAddress(registerCenter, 5, "zone-b"));
+        assertEquals(1, registerCenter.discoverySnapshot(SERVICE_KEY).size());
+    }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    void deprecatedDiscoveryKeepsTreeSetSignature() throws Exception {
+        RegisterCenter registerCenter = new RegisterCenter(zkClient, "test-deprecated");
+        registerCenter.init();
+        assertTrue(registerCenter.registry(Collections.singleton(SERVICE_KEY), ADDRESS));
+        assertTrue(ZkTestSupport.waitUntil(() -> registerCenter.discoverySnapshot(SERVICE_KEY).contains(ADDRESS)));
+
+        TreeSet<String> addressSet = registerCenter.discovery(SERVICE_KEY);
+        assertEquals(new TreeSet<>(Collections.singleton(ADDRESS)), addressSet);
+        addressSet.clear();
+        assertTrue(registerCenter.discoverySnapshot(SERVICE_KEY).contains(ADDRESS));
+        assertNull(registerCenter.discovery("missing-service"));
+        assertEquals(Collections.singletonMap(SERVICE_KEY, new TreeSet<>(Collections.singleton(ADDRESS))),
+                registerCenter.discovery(new HashSet<>(Arrays.asList(SERVICE_KEY, "missing-service"))));
+    }
+
+    @Test
+    void disabledRegistryIsKeptAndNotDiscovered() throws Exception {
+        RegisterCenter registerCenter = new RegisterCenter(zkClient, "test-disabled");
+        registerCenter.init();
+        assertTrue(registerCenter.registry(Collections.singleton(SERVICE_KEY), ADDRESS));
+        assertTrue(ZkTestSupport.waitUntil(() -> ADDRESS.equals(registerCenter.select(SERVICE_KEY, null, null))));
+
+        AddressDataBO disabled = addressData(5, "zone-a");
+        disabled.setEnable(Boolean.FALSE);
+        assertTrue(registerCenter.registry(Collections.singleton(SERVICE_KEY), ADDRESS, disabled));
+        assertTrue(ZkTestSupport.waitUntil(() -> registerCenter.discoverySnapshot(SERVICE_KEY).isEmpty()));
+
+        // 对账与不带元数据的重复注册保持禁用状态
+        String path = registerCenter.serviceKeyToPath(SERVICE_KEY).concat("/").concat(ADDRESS);
+        assertTrue(registerCenter.registry(Collections.singleton(SERVICE_KEY), ADDRESS));
+        zkClient.delete(path);
+        assertTrue(ZkTestSupport.waitUntil(() -> !registerCenter.getExistPaths().contains(path)));
+        registerCenter.refreshRegistryData();
+        assertTrue(zkClient.doGetContent(path).contains("\"enable\":false"));
+        assertNull(registerCenter.select(SERVICE_KEY, LoadBalanceEnum.KETAMA_HASH, "route"));
+    }
+
+    private static boolean hasAddress(RegisterCenter registerCenter, int weight, String zone) {
+        AddressSnapshot snapshot = registerCenter.discoverySnapshot(SERVICE_KEY);
+        int index = snapshot.indexOf(ADDRESS);
+        return index >= 0 && snapshot.getWeight(index) == weight && zone.equals(snapshot.getZone(index));
+    }
+
+    private static AddressDataBO addressData(int weight, String zone) {
+        AddressDataBO addressDataBO = new AddressDataBO();
+        addressDataBO.setEnable(Boolean.TRUE);
+        addressDataBO.setWeight(weight);
+        addressDataBO.setZone(zone);
+        return addressDataBO;
+    }
+}
@@ -0,0 +1,76 @@
+package com.scy.zookeeper.listener;
+
+import org.apache.curator.framework.recipes.cache.ChildData;
+import org.apache.curator.framework.recipes.cache.CuratorCacheListener;
+import org.apache.zookeeper.data.Stat;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+/**
+ * OrderedEventDispatcher: 入队不阻塞事件产生线程, 同一节点的待执行事件合并
+ *
+ * @author shichunyang
+ * Created by shichunyang on 2026/10/17.
+ */
+class OrderedEventDispatcherTest {
+
+    @Test
+    void offerNeverBlocksProducerBeyondMaxPending() {
+        List<Runnable> tasks = new ArrayList<>();
+        List<String> events = new ArrayList<>();
+        OrderedEventDispatcher dispatcher = new OrderedEventDispatcher(listener(events), tasks::add, 1, 4, path -> "stripe");
+
+        // executor尚未执行任何任务, 积压超过maxPending时生产者也不阻塞
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+            for (int i = 0; i < 100; i++) {
+                dispatcher.event(CuratorCacheListener.Type.NODE_CREATED, null, childData("/service/node-" + i));
+            }
+        });
+        assertEquals(100, dispatcher.getQueueDepth());
+
+        while (!tasks.isEmpty()) {
+            tasks.remove(0).run();
+        }
+        assertEquals(0, dispatcher.getQueueDepth());
+        assertEquals(100, events.size());
+        assertEquals("NODE_CREATED /service/node-0", events.get(0));
+        assertEquals("NODE_CREATED /service/node-99", events.get(99));
+    }
+
+    @Test
+    void eventsOfSameNodeAreMerged() {
+        List<Runnable> tasks = new ArrayList<>();
+        List<String> events = new ArrayList<>();
+        OrderedEventDispatcher dispatcher = new OrderedEventDispatcher(listener(events), tasks::add);
+
+        dispatcher.event(CuratorCacheListener.Type.NODE_CREATED, null, childData("/a"));
+        dispatcher.event(CuratorCacheListener.Type.NODE_CHANGED, childData("/a"), childData("/a"));
+        dispatcher.event(CuratorCacheListener.Type.NODE_CREATED, null, childData("/b"));
+        dispatcher.event(CuratorCacheListener.Type.NODE_DELETED, childData("/b"), null);
+        dispatcher.event(CuratorCacheListener.Type.NODE_DELETED, childData("/c"), null);
+        dispatcher.event(CuratorCacheListener.Type.NODE_CREATED, null, childData("/c"));
+        assertEquals(2, dispatcher.getQueueDepth());
+
+        while (!tasks.isEmpty()) {
+            tasks.remove(0).run();
+        }
+        events.sort(String::compareTo);
+        assertEquals(2, events.size());
+        assertEquals("NODE_CHANGED /c", events.get(0));
+        assertEquals("NODE_CREATED /a", events.get(1));
+    }
+
+    private static CuratorCacheListener listener(List<String> events) {
+        return (type, oldData, data) -> events.add(type + " " + (data != null ? data.getPath() : oldData.getPath()));
+    }
+
+    private static ChildData childData(String path) {
+        return new ChildData(path, new Stat(), new byte[0]);
+    }
+}
@@ -0,0 +1,51 @@
+package com.scy.zookeeper.loadbalance;
+
+import com.scy.zookeeper.model.AddressSnapshot;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * KetamaRing: 虚拟节点数按权重计算并限制上限, 地址增减时只迁移少量key
+ *
+ * @author shichunyang
+ * Created by shichunyang on 2026/10/17.
+ */
+class KetamaRingTest {
+
+    @Test
+    void virtualNodesFollowWeight() {
+        AddressSnapshot snapshot = SmoothWeightedRoundRobinSelectorTest.snapshot(new String[]{"a", "b", "c"}, new int[]{100, 200, 0});
+        assertEquals(KetamaRing.VIRTUAL_NODES * 3, KetamaRing.build(snapshot).size());
+        assertEquals(0, KetamaRing.build(AddressSnapshot.EMPTY).size());
+        assertNull(KetamaRing.build(AddressSnapshot.EMPTY).select("key"));
+    }
+
+    @Test
+    void hugeWeightIsClamped() {
+        AddressSnapshot snapshot = SmoothWeightedRoundRobinSelectorTest.snapshot(new String[]{"a", "b"}, new int[]{1_000_000_000, Integer.MAX_VALUE});
+        assertEquals(KetamaRing.MAX_GROUPS * 4 * 2, KetamaRing.build(snapshot).size());
+    }
+
+    @Test
+    void removingAddressOnlyMovesItsKeys() {
+        AddressSnapshot snapshot = SmoothWeightedRoundRobinSelectorTest.snapshot(new String[]{"a", "b", "c", "d"}, new int[]{100, 100, 100, 100});
+        KetamaRing ring = KetamaRing.build(snapshot);
+        KetamaRing removed = KetamaRing.build(snapshot.remove("d"));
+        Map<String, Integer> counts = new HashMap<>();
+        for (int i = 0; i < 10_000; i++) {
+            String key = "key-" + i;
+            String before = ring.select(key);
+            counts.merge(before, 1, Integer::sum);
+            if (!"d".equals(before)) {
+                assertEquals(before, removed.select(key));
+            }
+        }
+        counts.values().forEach(count -> assertTrue(count > 1_500 && count < 3_500, String.valueOf(counts)));
+    }
+}
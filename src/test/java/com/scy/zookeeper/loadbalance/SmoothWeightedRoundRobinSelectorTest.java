@@ -0,0 +1,86 @@
+package com.scy.zookeeper.loadbalance;
+
+import com.scy.zookeeper.model.AddressDataBO;
+import com.scy.zookeeper.model.AddressSnapshot;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * SmoothWeightedRoundRobinSelector: 平滑序列, 多线程下的权重比例, 大权重不溢出
+ *
+ * @author shichunyang
+ * Created by shichunyang on 2026/10/17.
+ */
+class SmoothWeightedRoundRobinSelectorTest {
+
+    @Test
+    void selectsSmoothSequenceWithinThread() {
+        AddressSnapshot snapshot = snapshot(new String[]{"a", "b", "c"}, new int[]{5, 1, 1});
+        SmoothWeightedRoundRobinSelector selector = new SmoothWeightedRoundRobinSelector();
+        StringBuilder sequence = new StringBuilder();
+        for (int i = 0; i < 14; i++) {
+            sequence.append(selector.select(snapshot, null));
+        }
+        assertEquals("aabacaaaabacaa", sequence.toString());
+    }
+
+    @Test
+    void keepsWeightRatioAcrossThreads() throws Exception {
+        AddressSnapshot snapshot = snapshot(new String[]{"a", "b", "c"}, new int[]{5, 1, 1});
+        SmoothWeightedRoundRobinSelector selector = new SmoothWeightedRoundRobinSelector();
+        Map<String, AtomicInteger> counts = new ConcurrentHashMap<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < 7_000; i++) {
+                    counts.computeIfAbsent(selector.select(snapshot, null), key -> new AtomicInteger()).incrementAndGet();
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        // 每个线程的选择次数都是周期(7)的整数倍, 每段内严格按权重分配
+        assertEquals(40_000, counts.get("a").get());
+        assertEquals(8_000, counts.get("b").get());
+        assertEquals(8_000, counts.get("c").get());
+    }
+
+    @Test
+    void largeWeightsDoNotOverflow() {
+        AddressSnapshot snapshot = snapshot(new String[]{"a", "b", "c"}, new int[]{Integer.MAX_VALUE, Integer.MAX_VALUE, 1});
+        assertEquals(2L * Integer.MAX_VALUE + 1, snapshot.getTotalWeight());
+        SmoothWeightedRoundRobinSelector selector = new SmoothWeightedRoundRobinSelector();
+        StringBuilder sequence = new StringBuilder();
+        for (int i = 0; i < 4; i++) {
+            sequence.append(selector.select(snapshot, null));
+        }
+        assertEquals("abab", sequence.toString());
+    }
+
+    @Test
+    void stripesArePowerOfTwo() {
+        assertEquals(2, SmoothWeightedRoundRobinSelector.stripes(1));
+        assertEquals(8, SmoothWeightedRoundRobinSelector.stripes(3));
+        assertEquals(64, SmoothWeightedRoundRobinSelector.stripes(1024));
+    }
+
+    static AddressSnapshot snapshot(String[] addresses, int[] weights) {
+        AddressSnapshot snapshot = AddressSnapshot.EMPTY;
+        for (int i = 0; i < addresses.length; i++) {
+            AddressDataBO addressDataBO = new AddressDataBO();
+            addressDataBO.setEnable(Boolean.TRUE);
+            addressDataBO.setWeight(weights[i]);
+            snapshot = snapshot.put(addresses[i], addressDataBO);
+        }
+        return snapshot;
+    }
+}
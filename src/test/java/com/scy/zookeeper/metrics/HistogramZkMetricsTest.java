@@ -0,0 +1,43 @@
+package com.scy.zookeeper.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * HistogramZkMetrics: path前缀不含叶子节点, 前缀数有上限, 动态path不会使直方图无限增长
+ *
+ * @author shichunyang
+ * Created by shichunyang on 2026/10/17.
+ */
+class HistogramZkMetricsTest {
+
+    @Test
+    void pathPrefixNeverKeepsLeaf() {
+        assertEquals("/", HistogramZkMetrics.getPathPrefix(null, 2));
+        assertEquals("/", HistogramZkMetrics.getPathPrefix("", 2));
+        assertEquals("/", HistogramZkMetrics.getPathPrefix("/distributedlocks", 2));
+        assertEquals("/distributedlocks", HistogramZkMetrics.getPathPrefix("/distributedlocks/order-1", 2));
+        assertEquals("/scy-rpc/prod", HistogramZkMetrics.getPathPrefix("/scy-rpc/prod/service", 2));
+        assertEquals("/scy-rpc/prod", HistogramZkMetrics.getPathPrefix("/scy-rpc/prod/service/127.0.0.1:8080", 2));
+        assertEquals("/", HistogramZkMetrics.getPathPrefix("/scy-rpc/prod/service", 0));
+    }
+
+    @Test
+    void prefixesBeyondLimitShareOtherHistogram() {
+        HistogramZkMetrics metrics = new HistogramZkMetrics(3, 2);
+        for (int i = 0; i < 100; i++) {
+            metrics.recordLatency("getData", "/distributedlocks/order-" + i + "/lock-0000000001", 1_000L);
+        }
+
+        assertNotNull(metrics.getLatency("getData", "/distributedlocks/order-0"));
+        assertNotNull(metrics.getLatency("getData", "/distributedlocks/order-1"));
+        assertNull(metrics.getLatency("getData", "/distributedlocks/order-2"));
+        assertEquals(98L, metrics.getLatency("getData", HistogramZkMetrics.OTHER_PREFIX).getCount());
+
+        metrics.recordLatency("getData", "/distributedlocks/order-0/lock-0000000002", 1_000L);
+        assertEquals(2L, metrics.getLatency("getData", "/distributedlocks/order-0").getCount());
+    }
+}
@@ -0,0 +1,65 @@
+package com.scy.zookeeper.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * LatencyHistogram: 分桶相对误差不超过1/16, 分位数取桶上界且不超过最大值
+ *
+ * @author shichunyang
+ * Created by shichunyang on 2026/10/17.
+ */
+class LatencyHistogramTest {
+
+    @Test
+    void emptyHistogramReportsZero() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0L, histogram.getCount());
+        assertEquals(0L, histogram.getMean());
+        assertEquals(0L, histogram.getValueAtQuantile(0.99D));
+    }
+
+    @Test
+    void quantileErrorIsBoundedBySubBucket() {
+        long[] values = {0L, 1_000L, 15_000L, 17_000L, 123_456L, TimeUnit.MILLISECONDS.toNanos(3), TimeUnit.SECONDS.toNanos(7), TimeUnit.MINUTES.toNanos(5)};
+        for (long value : values) {
+            LatencyHistogram histogram = new LatencyHistogram();
+            histogram.record(value);
+            histogram.record(Long.MAX_VALUE / 4);
+            long reported = histogram.getValueAtQuantile(0.5D);
+            assertTrue(reported >= value, value + " -> " + reported);
+            assertTrue(reported <= Math.max(value + value / 16, 1024L), value + " -> " + reported);
+        }
+    }
+
+    @Test
+    void quantilesFollowDistribution() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 1_000; i++) {
+            histogram.record(TimeUnit.MICROSECONDS.toNanos(i));
+        }
+        assertEquals(1_000L, histogram.getCount());
+        assertEquals(TimeUnit.MICROSECONDS.toNanos(1_000), histogram.getMax());
+        assertEquals(TimeUnit.MICROSECONDS.toNanos(1_000), histogram.getValueAtQuantile(1D));
+        assertEquals(TimeUnit.MICROSECONDS.toNanos(500) + 500L, histogram.getMean());
+
+        long p50 = histogram.getValueAtQuantile(0.5D);
+        long p99 = histogram.getValueAtQuantile(0.99D);
+        assertTrue(p50 >= TimeUnit.MICROSECONDS.toNanos(500) && p50 <= TimeUnit.MICROSECONDS.toNanos(500) * 17 / 16, String.valueOf(p50));
+        assertTrue(p99 >= TimeUnit.MICROSECONDS.toNanos(990) && p99 <= TimeUnit.MICROSECONDS.toNanos(1_000), String.valueOf(p99));
+    }
+
+    @Test
+    void overflowGoesToLastBucket() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-5L);
+        histogram.record(Long.MAX_VALUE);
+        assertEquals(2L, histogram.getCount());
+        assertEquals(1024L, histogram.getValueAtQuantile(0.5D));
+        assertTrue(histogram.getValueAtQuantile(1D) >= TimeUnit.HOURS.toNanos(9));
+    }
+}